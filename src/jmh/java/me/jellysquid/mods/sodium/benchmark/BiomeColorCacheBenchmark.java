@@ -0,0 +1,72 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import me.jellysquid.mods.sodium.client.world.biome.BiomeColorCache;
+import net.minecraft.Bootstrap;
+import net.minecraft.client.color.world.BiomeColors;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.registry.BuiltinRegistries;
+import net.minecraft.util.registry.RegistryKey;
+import net.minecraft.world.biome.Biome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures biome color blending for every block of a section, starting from an empty cache each time as a chunk
+ * build would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BiomeColorCacheBenchmark {
+    @Param
+    public SyntheticTerrain terrain;
+
+    @Param({ "0", "1", "2", "3", "4", "5", "6", "7" })
+    public int radius;
+
+    private ChunkSectionPos origin;
+    private BiomeColorCache.BiomeLookup biomes;
+
+    private final BlockPos.Mutable pos = new BlockPos.Mutable();
+
+    @Setup
+    public void setup() {
+        Bootstrap.initialize();
+
+        RegistryKey<Biome>[] keys = this.terrain.getBiomes();
+        Biome[] biomes = new Biome[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            biomes[i] = BuiltinRegistries.BIOME.getOrThrow(keys[i]);
+        }
+
+        this.origin = this.terrain.getOriginSection();
+
+        // Biomes are scattered over 4x4 cells, which matches the resolution of the biome storage in chunks
+        this.biomes = (x, z) -> biomes[Math.floorMod(SyntheticTerrain.hash(x >> 2, 0, z >> 2), biomes.length)];
+    }
+
+    @Benchmark
+    public void getBlendedColor(Blackhole blackhole) {
+        BiomeColorCache cache = new BiomeColorCache(BiomeColors.GRASS_COLOR, this.biomes, this.origin, this.radius);
+        BlockPos.Mutable pos = this.pos;
+
+        for (int y = this.origin.getMinY(); y <= this.origin.getMaxY(); y++) {
+            for (int z = this.origin.getMinZ(); z <= this.origin.getMaxZ(); z++) {
+                for (int x = this.origin.getMinX(); x <= this.origin.getMaxX(); x++) {
+                    blackhole.consume(cache.getBlendedColor(pos.set(x, y, z)));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a number of sections containing redstone clocks which change a block every few game ticks, and counts the
+ * builds which are started for them, and those which are wasted on states that are superseded before they can be
+ * shown. This compares the render manager
+ * rebuilding a section as soon as it changes, where the previous task was never cancelled and its result was uploaded
+ * regardless, with rebuilds being held back for {@link #REBUILD_COALESCING_WINDOW} after the last one and superseded
+ * results being dropped.
+ *
+ * Chunk renders and worker threads can't be created outside of a running client, so the render manager, the workers and
+ * the upload queue are replayed frame by frame. Tasks are scheduled within the same budget as in game, and every task
+ * takes the same number of frames to build. Cancelled tasks are skipped by the workers, or abandoned if they have
+ * already started, as the rebuild tasks check for cancellation between blocks.
+ *
+ * The replay is deterministic, so the results are reported as auxiliary counters of a single replay:
+ * - builds: the number of tasks which a worker started to build
+ * - wastedBuilds: the number of started tasks which were abandoned, or whose result was superseded when it completed
+ * - staleUploads: the number of superseded results which were uploaded anyway, each showing an outdated state
+ * - framesToVisible: the average number of frames between a block changing and a state including the change being shown
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockFlickerBenchmark {
+    // The number of frames in a replay, which is ten seconds at 60 frames per second
+    private static final int FRAMES = 600;
+
+    private static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // The same window as the render manager's
+    private static final long REBUILD_COALESCING_WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // The number of sections which contain a clock
+    private static final int SECTIONS = 8;
+
+    private static final int WORKERS = 4;
+
+    // The number of tasks which can be queued for each worker, which limits the scheduling budget
+    private static final int TASK_QUEUE_LIMIT_PER_WORKER = 2;
+
+    @Param({ "immediate", "coalesced" })
+    public String implementation;
+
+    // The number of game ticks between two changes of each clock
+    @Param({ "1", "2" })
+    public int clockPeriod;
+
+    // The number of frames which a worker spends on building a section, which is longer than a game tick when the
+    // workers are busy with other sections
+    @Param({ "1", "3" })
+    public int buildFrames;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Builds {
+        public long builds;
+        public long wastedBuilds;
+        public long staleUploads;
+        public double framesToVisible;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.builds = 0L;
+            this.wastedBuilds = 0L;
+            this.staleUploads = 0L;
+            this.framesToVisible = 0.0D;
+        }
+    }
+
+    @Benchmark
+    public void replayClocks(Builds builds) {
+        new Replay(this.implementation.equals("coalesced"), this.clockPeriod, this.buildFrames).run(builds);
+    }
+
+    private static class Render {
+        private final int index;
+
+        // The number of times a block in this section has changed, and the frame of each change
+        private int version;
+        private final IntArrayList changeFrames = new IntArrayList();
+
+        // The newest version which has been shown at least once
+        private int shownVersion;
+
+        private int buildGeneration;
+        private long lastBuildTime;
+
+        private boolean needsRebuild;
+
+        private Task task;
+
+        private Render(int index) {
+            this.index = index;
+        }
+
+        private boolean isWithinCoalescingWindow(long time) {
+            return this.buildGeneration != 0 && time - this.lastBuildTime < REBUILD_COALESCING_WINDOW;
+        }
+    }
+
+    private static class Task {
+        private final Render render;
+        private final int generation;
+        private final int version;
+
+        private int remainingFrames;
+        private boolean cancelled;
+
+        private Task(Render render, int buildFrames) {
+            this.render = render;
+            this.generation = render.buildGeneration;
+            this.version = render.version;
+            this.remainingFrames = buildFrames;
+        }
+    }
+
+    private static class Replay {
+        private final boolean coalesce;
+        private final int clockPeriod;
+        private final int buildFrames;
+
+        private final Render[] renders = new Render[SECTIONS];
+
+        private final ArrayDeque<Render> rebuildQueue = new ArrayDeque<>();
+        private final List<Render> coalescedRebuilds = new ArrayList<>();
+
+        private final ArrayDeque<Task> buildQueue = new ArrayDeque<>();
+        private final Task[] running = new Task[WORKERS];
+        private final List<Task> uploadQueue = new ArrayList<>();
+
+        private long latencyFrames;
+        private long latencyChanges;
+
+        private Replay(boolean coalesce, int clockPeriod, int buildFrames) {
+            this.coalesce = coalesce;
+            this.clockPeriod = clockPeriod;
+            this.buildFrames = buildFrames;
+
+            for (int i = 0; i < SECTIONS; i++) {
+                this.renders[i] = new Render(i);
+            }
+        }
+
+        private void run(Builds builds) {
+            int tick = 0;
+
+            for (int frame = 0; frame < FRAMES; frame++) {
+                long time = frame * FRAME_NANOS;
+
+                while (tick * TICK_NANOS <= time) {
+                    this.tickClocks(tick++, frame);
+                }
+
+                this.updateChunks(time);
+                this.runWorkers(builds);
+                this.performUploads(builds, frame);
+            }
+
+            builds.framesToVisible += this.latencyChanges > 0 ? (double) this.latencyFrames / this.latencyChanges : 0.0D;
+        }
+
+        private void tickClocks(int tick, int frame) {
+            for (Render render : this.renders) {
+                // The clocks are out of phase with each other, so that their changes are spread over the ticks
+                if ((tick + render.index) % this.clockPeriod != 0) {
+                    continue;
+                }
+
+                render.version++;
+                render.changeFrames.add(frame);
+
+                if (!render.needsRebuild) {
+                    render.needsRebuild = true;
+
+                    this.rebuildQueue.add(render);
+                }
+            }
+        }
+
+        private void updateChunks(long time) {
+            int budget = Math.max(0, (WORKERS * TASK_QUEUE_LIMIT_PER_WORKER) - this.buildQueue.size());
+            int submitted = 0;
+
+            while (submitted < budget && !this.rebuildQueue.isEmpty()) {
+                Render render = this.rebuildQueue.poll();
+
+                if (!render.needsRebuild) {
+                    continue;
+                }
+
+                if (this.coalesce && render.isWithinCoalescingWindow(time)) {
+                    this.coalescedRebuilds.add(render);
+                    continue;
+                }
+
+                // The future of the previous task was never recorded before, so it couldn't be cancelled
+                if (this.coalesce && render.task != null) {
+                    render.task.cancelled = true;
+                }
+
+                render.buildGeneration++;
+                render.lastBuildTime = time;
+                render.needsRebuild = false;
+
+                render.task = new Task(render, this.buildFrames);
+
+                this.buildQueue.add(render.task);
+                submitted++;
+            }
+
+            this.rebuildQueue.addAll(this.coalescedRebuilds);
+            this.coalescedRebuilds.clear();
+        }
+
+        private void runWorkers(Builds builds) {
+            for (int i = 0; i < WORKERS; i++) {
+                Task task = this.running[i];
+
+                if (task == null) {
+                    task = this.pollTask();
+
+                    if (task == null) {
+                        continue;
+                    }
+
+                    builds.builds++;
+                }
+
+                if (task.cancelled) {
+                    builds.wastedBuilds++;
+                    task = null;
+                } else if (--task.remainingFrames == 0) {
+                    this.uploadQueue.add(task);
+                    task = null;
+                }
+
+                this.running[i] = task;
+            }
+        }
+
+        private Task pollTask() {
+            Task task;
+
+            while ((task = this.buildQueue.poll()) != null) {
+                if (!task.cancelled) {
+                    return task;
+                }
+            }
+
+            return null;
+        }
+
+        private void performUploads(Builds builds, int frame) {
+            for (Task task : this.uploadQueue) {
+                Render render = task.render;
+
+                if (render.task == task) {
+                    render.task = null;
+                }
+
+                if (task.generation != render.buildGeneration) {
+                    builds.wastedBuilds++;
+
+                    if (this.coalesce) {
+                        continue;
+                    }
+
+                    builds.staleUploads++;
+                }
+
+                for (int version = render.shownVersion + 1; version <= task.version; version++) {
+                    this.latencyFrames += frame - render.changeFrames.getInt(version - 1);
+                    this.latencyChanges++;
+                }
+
+                render.shownVersion = Math.max(render.shownVersion, task.version);
+            }
+
+            this.uploadQueue.clear();
+        }
+    }
+}
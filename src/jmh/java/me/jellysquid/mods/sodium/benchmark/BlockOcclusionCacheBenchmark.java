@@ -0,0 +1,228 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import it.unimi.dsi.fastutil.objects.Object2ByteLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import me.jellysquid.mods.sodium.client.render.occlusion.BlockOcclusionCache;
+import me.jellysquid.mods.sodium.client.render.occlusion.ShapeOcclusionTable;
+import net.minecraft.Bootstrap;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.function.BooleanBiFunction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.util.shape.VoxelShapes;
+import net.minecraft.world.BlockView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures face culling for every side of every non-air block in a section, as performed by the block renderer for
+ * each model quad with a cull face. The occlusion table is shared and kept between iterations, as it would be while
+ * building many chunks, and the {@link SyntheticTerrain#SHAPES} terrain covers the case of many distinct shapes.
+ *
+ * The shared table is compared against the LRU map which each worker used to keep for itself. Mixins aren't applied
+ * to the benchmarks, so the shapes can't hold their IDs, and {@link UnmixedShapeOcclusionTable} keeps them in a map
+ * instead. This adds a map lookup for each shape which the game doesn't pay.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BlockOcclusionCacheBenchmark {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Param
+    public SyntheticTerrain terrain;
+
+    @Param({ "lru", "table" })
+    public String implementation;
+
+    private SyntheticBlockView view;
+
+    private BlockOcclusionCache cache;
+    private LegacyBlockOcclusionCache legacyCache;
+
+    private BlockPos[] positions;
+    private BlockState[] states;
+
+    @Setup
+    public void setup() {
+        Bootstrap.initialize();
+
+        ChunkSectionPos origin = this.terrain.getOriginSection();
+
+        this.view = new SyntheticBlockView(this.terrain, origin);
+        this.cache = new BlockOcclusionCache(new UnmixedShapeOcclusionTable());
+        this.legacyCache = new LegacyBlockOcclusionCache();
+
+        List<BlockPos> positions = new ArrayList<>();
+        List<BlockState> states = new ArrayList<>();
+
+        for (BlockPos pos : BlockPos.iterate(origin.getMinX(), origin.getMinY(), origin.getMinZ(),
+                origin.getMaxX(), origin.getMaxY(), origin.getMaxZ())) {
+            BlockState state = this.view.getBlockState(pos);
+
+            if (!state.isAir()) {
+                positions.add(pos.toImmutable());
+                states.add(state);
+            }
+        }
+
+        this.positions = positions.toArray(new BlockPos[0]);
+        this.states = states.toArray(new BlockState[0]);
+    }
+
+    @Benchmark
+    public void shouldDrawSide(Blackhole blackhole) {
+        boolean legacy = this.implementation.equals("lru");
+
+        for (int i = 0; i < this.positions.length; i++) {
+            for (Direction dir : DIRECTIONS) {
+                if (legacy) {
+                    blackhole.consume(this.legacyCache.shouldDrawSide(this.states[i], this.view, this.positions[i], dir));
+                } else {
+                    blackhole.consume(this.cache.shouldDrawSide(this.states[i], this.view, this.positions[i], dir));
+                }
+            }
+        }
+    }
+
+    /**
+     * The shared occlusion table, with the IDs of shapes kept in a map as the shapes can't hold them without the
+     * mixins. Each benchmark thread has its own table, so the map doesn't need to be synchronized.
+     */
+    private static class UnmixedShapeOcclusionTable extends ShapeOcclusionTable {
+        private final Reference2IntOpenHashMap<VoxelShape> shapeIds = new Reference2IntOpenHashMap<>();
+
+        @Override
+        protected int getShapeId(VoxelShape shape) {
+            int id = this.shapeIds.getInt(shape);
+
+            if (id == 0) {
+                id = this.createShapeId();
+
+                if (id != 0) {
+                    this.shapeIds.put(shape, id);
+                }
+            }
+
+            return id;
+        }
+    }
+
+    /**
+     * The occlusion cache as it was before the shared table, which kept a 2048-entry LRU map of shape pairs for
+     * each worker.
+     */
+    private static class LegacyBlockOcclusionCache {
+        private static final byte UNCACHED_VALUE = (byte) 127;
+
+        private final Object2ByteLinkedOpenHashMap<CachedOcclusionShapeTest> map;
+        private final CachedOcclusionShapeTest cachedTest = new CachedOcclusionShapeTest();
+        private final BlockPos.Mutable cpos = new BlockPos.Mutable();
+
+        private LegacyBlockOcclusionCache() {
+            this.map = new Object2ByteLinkedOpenHashMap<>(2048, 0.5F);
+            this.map.defaultReturnValue(UNCACHED_VALUE);
+        }
+
+        private boolean shouldDrawSide(BlockState selfState, BlockView view, BlockPos pos, Direction facing) {
+            BlockPos.Mutable adjPos = this.cpos;
+            adjPos.set(pos.getX() + facing.getOffsetX(), pos.getY() + facing.getOffsetY(), pos.getZ() + facing.getOffsetZ());
+
+            BlockState adjState = view.getBlockState(adjPos);
+
+            if (selfState.isSideInvisible(adjState, facing)) {
+                return false;
+            } else if (adjState.isOpaque()) {
+                VoxelShape selfShape = selfState.getCullingFace(view, pos, facing);
+                VoxelShape adjShape = adjState.getCullingFace(view, adjPos, facing.getOpposite());
+
+                if (selfShape == VoxelShapes.fullCube() && adjShape == VoxelShapes.fullCube()) {
+                    return false;
+                }
+
+                return this.calculate(selfShape, adjShape);
+            } else {
+                return true;
+            }
+        }
+
+        private boolean calculate(VoxelShape selfShape, VoxelShape adjShape) {
+            CachedOcclusionShapeTest cache = this.cachedTest;
+            cache.a = selfShape;
+            cache.b = adjShape;
+            cache.updateHash();
+
+            byte cached = this.map.getByte(cache);
+
+            if (cached != UNCACHED_VALUE) {
+                return cached == 1;
+            }
+
+            boolean ret = VoxelShapes.matchesAnywhere(selfShape, adjShape, BooleanBiFunction.ONLY_FIRST);
+
+            this.map.put(cache.copy(), (byte) (ret ? 1 : 0));
+
+            if (this.map.size() > 2048) {
+                this.map.removeLastByte();
+            }
+
+            return ret;
+        }
+    }
+
+    private static final class CachedOcclusionShapeTest {
+        private VoxelShape a, b;
+        private int hashCode;
+
+        private CachedOcclusionShapeTest() {
+
+        }
+
+        private CachedOcclusionShapeTest(VoxelShape a, VoxelShape b, int hashCode) {
+            this.a = a;
+            this.b = b;
+            this.hashCode = hashCode;
+        }
+
+        public void updateHash() {
+            int result = System.identityHashCode(this.a);
+            result = 31 * result + System.identityHashCode(this.b);
+
+            this.hashCode = result;
+        }
+
+        public CachedOcclusionShapeTest copy() {
+            return new CachedOcclusionShapeTest(this.a, this.b, this.hashCode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof CachedOcclusionShapeTest) {
+                CachedOcclusionShapeTest that = (CachedOcclusionShapeTest) o;
+
+                return this.a == that.a &&
+                        this.b == that.b;
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the throughput of the chunk build workers in tasks per second, comparing the single shared queue and
+ * monitor which the workers used to wait on with the per-worker queues, work stealing and parking which they use now.
+ *
+ * The workers of the chunk builder need a running client, so both designs are reproduced here with the same queues and
+ * the same logic for handing out, taking and stealing tasks, but with tasks which only burn a fixed amount of CPU time.
+ * Each invocation schedules a burst of tasks from the benchmark thread, as the main thread would, and waits for all of
+ * them to complete. Short tasks show the overhead of the scheduling itself, while longer tasks are closer to the cost of
+ * building a section.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ChunkWorkerScalingBenchmark {
+    private static final int TASKS_PER_INVOCATION = 1024;
+
+    @Param({ "shared", "stealing" })
+    public String implementation;
+
+    @Param({ "4", "8", "16", "32" })
+    public int threads;
+
+    // The amount of work done by each task, in the arbitrary units of Blackhole#consumeCPU
+    @Param({ "100", "10000" })
+    public int work;
+
+    private WorkerPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.pool = this.implementation.equals("stealing") ? new StealingWorkerPool(this.threads) : new SharedQueueWorkerPool(this.threads);
+        this.pool.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.pool.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS_PER_INVOCATION)
+    public void runTasks() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(TASKS_PER_INVOCATION);
+
+        for (int i = 0; i < TASKS_PER_INVOCATION; i++) {
+            this.pool.schedule(new Task(latch, this.work, i));
+        }
+
+        latch.await();
+    }
+
+    private static class Task extends ChunkBuildQueue.Entry {
+        private final CountDownLatch latch;
+        private final int work;
+
+        private Task(CountDownLatch latch, int work, int index) {
+            this.latch = latch;
+            this.work = work;
+
+            this.setPriority(index);
+        }
+
+        private void run() {
+            Blackhole.consumeCPU(this.work);
+
+            this.latch.countDown();
+        }
+    }
+
+    private interface WorkerPool {
+        void start();
+
+        void stop();
+
+        void schedule(Task task);
+    }
+
+    /**
+     * The design which the chunk builder used before work stealing. Every task is added to one shared queue and every
+     * worker waits on the same monitor, which is notified for each scheduled task.
+     */
+    private static class SharedQueueWorkerPool implements WorkerPool {
+        private final Deque<Task> buildQueue = new ConcurrentLinkedDeque<>();
+        private final Object jobNotifier = new Object();
+
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final List<Thread> threads = new ArrayList<>();
+
+        private SharedQueueWorkerPool(int count) {
+            for (int i = 0; i < count; i++) {
+                Thread thread = new Thread(this::runWorker, "Shared Queue Worker #" + i);
+                thread.setDaemon(true);
+
+                this.threads.add(thread);
+            }
+        }
+
+        @Override
+        public void start() {
+            this.running.set(true);
+
+            for (Thread thread : this.threads) {
+                thread.start();
+            }
+        }
+
+        @Override
+        public void stop() {
+            this.running.set(false);
+
+            synchronized (this.jobNotifier) {
+                this.jobNotifier.notifyAll();
+            }
+
+            joinAll(this.threads);
+        }
+
+        @Override
+        public void schedule(Task task) {
+            this.buildQueue.add(task);
+
+            synchronized (this.jobNotifier) {
+                this.jobNotifier.notify();
+            }
+        }
+
+        private void runWorker() {
+            while (this.running.get()) {
+                Task task = this.getNextJob();
+
+                if (task != null) {
+                    task.run();
+                }
+            }
+        }
+
+        private Task getNextJob() {
+            Task task = this.buildQueue.poll();
+
+            if (task == null) {
+                synchronized (this.jobNotifier) {
+                    try {
+                        // The old workers could miss a notification between polling the queue and waiting, which the
+                        // next scheduled task made up for in game. The last tasks of an invocation have no next task,
+                        // so the wait is bounded here to not stall the benchmark.
+                        this.jobNotifier.wait(1L);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            }
+
+            return task;
+        }
+    }
+
+    /**
+     * The design which the chunk builder uses now. Tasks are pushed to the queue of a parked worker if there is one, or
+     * otherwise to the workers in turn, and workers which run out of tasks steal from the others before parking.
+     */
+    private static class StealingWorkerPool implements WorkerPool {
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final List<Worker> workers = new ArrayList<>();
+
+        private int nextWorker;
+
+        private StealingWorkerPool(int count) {
+            for (int i = 0; i < count; i++) {
+                this.workers.add(new Worker(i));
+            }
+        }
+
+        @Override
+        public void start() {
+            this.running.set(true);
+
+            for (Worker worker : this.workers) {
+                worker.thread.start();
+            }
+        }
+
+        @Override
+        public void stop() {
+            this.running.set(false);
+
+            List<Thread> threads = new ArrayList<>();
+
+            for (Worker worker : this.workers) {
+                LockSupport.unpark(worker.thread);
+
+                threads.add(worker.thread);
+            }
+
+            joinAll(threads);
+        }
+
+        @Override
+        public void schedule(Task task) {
+            Worker worker = this.findWorkerForTask();
+            worker.queue.add(task);
+
+            if (worker.parked) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
+
+        private Worker findWorkerForTask() {
+            List<Worker> workers = this.workers;
+            int count = workers.size();
+
+            for (int i = 0; i < count; i++) {
+                Worker worker = workers.get(i);
+
+                if (worker.parked && worker.queue.isEmpty()) {
+                    return worker;
+                }
+            }
+
+            Worker worker = workers.get(this.nextWorker % count);
+            this.nextWorker = (this.nextWorker + 1) % count;
+
+            return worker;
+        }
+
+        private class Worker implements Runnable {
+            private final ChunkBuildQueue<Task> queue = new ChunkBuildQueue<>(2);
+            private final int index;
+            private final Thread thread;
+
+            private volatile boolean parked;
+
+            private Worker(int index) {
+                this.index = index;
+
+                this.thread = new Thread(this, "Work Stealing Worker #" + index);
+                this.thread.setDaemon(true);
+            }
+
+            @Override
+            public void run() {
+                while (StealingWorkerPool.this.running.get()) {
+                    Task task = this.getNextJob();
+
+                    if (task != null) {
+                        task.run();
+                    }
+                }
+            }
+
+            private Task getNextJob() {
+                Task task = this.findJob();
+
+                if (task == null) {
+                    this.parked = true;
+
+                    task = this.findJob();
+
+                    if (task == null && StealingWorkerPool.this.running.get()) {
+                        LockSupport.park(this);
+                    }
+
+                    this.parked = false;
+                }
+
+                return task;
+            }
+
+            private Task findJob() {
+                Task task = this.queue.poll();
+
+                if (task == null) {
+                    task = this.steal();
+                }
+
+                return task;
+            }
+
+            private Task steal() {
+                List<Worker> workers = StealingWorkerPool.this.workers;
+                int count = workers.size();
+
+                for (int i = 1; i < count; i++) {
+                    Task task = workers.get((this.index + i) % count).queue.poll();
+
+                    if (task != null) {
+                        return task;
+                    }
+                }
+
+                return null;
+            }
+        }
+    }
+
+    private static void joinAll(List<Thread> threads) {
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+}
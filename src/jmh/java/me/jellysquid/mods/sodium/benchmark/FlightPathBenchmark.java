@@ -0,0 +1,393 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildQueue;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
+import net.minecraft.util.math.ChunkPos;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a flight over new terrain and measures how long it takes for the sections in view to be built, comparing the
+ * render manager scheduling its pending rebuilds in the order the graph search found them with it ranking them by
+ * {@link ChunkBuilder#getTaskPriority(double, boolean)} first.
+ *
+ * The camera flies in a straight line and makes a quarter turn at a fixed interval, which brings a large number of
+ * unbuilt sections into view at once. Chunk renders and worker threads can't be created outside of a running client,
+ * so the scheduling path is replayed frame by frame:
+ * - the graph search walks breadth-first from the camera through the sections in view, collecting the unbuilt ones
+ * - the render manager hands them to the chunk builder within its scheduling budget, in graph order or ranked
+ * - the chunk builder pushes each task to a worker with an empty queue if there is one, or otherwise round-robin, into
+ *   the {@link ChunkBuildQueue} of that worker, which is reprioritized every frame
+ * - every worker takes a task from its own queue or steals it from another, and spends a fixed number of frames on it
+ * The sections are a single layer at the height of the camera.
+ *
+ * The replay is deterministic, so the results are reported as auxiliary counters of a single flight:
+ * - holes: the average number of sections in view which hadn't been built yet in each frame
+ * - framesToVisible: the average number of frames between a section coming into view and being built
+ * - incompleteFrames: the number of frames in which any section in view hadn't been built yet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FlightPathBenchmark {
+    // The number of frames in a flight
+    private static final int FLIGHT_FRAMES = 1200;
+
+    // The speed of the camera in blocks per frame, which is about as fast as flying with rockets
+    private static final double SPEED = 1.0D;
+
+    // The number of frames between two turns, and the number of frames each turn takes
+    private static final int TURN_INTERVAL = 150;
+    private static final int TURN_FRAMES = 15;
+
+    // The render distance in sections
+    private static final int RENDER_DISTANCE = 12;
+
+    // The cosine of the largest angle between the view direction and a section which is still in view. This includes
+    // some margin for the size of the sections themselves.
+    private static final double VIEW_COS = Math.cos(Math.toRadians(55.0D));
+
+    // The number of tasks which can be queued for each worker, which limits the scheduling budget
+    private static final int TASK_QUEUE_LIMIT_PER_WORKER = 2;
+
+    @Param({ "graph", "priority" })
+    public String implementation;
+
+    @Param({ "2", "4", "8" })
+    public int workers;
+
+    // The number of frames which a worker spends on each task. A single layer of sections is replayed, while the columns
+    // in game have many sections to build.
+    @Param({ "1", "4" })
+    public int framesPerTask;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Completeness {
+        public double holes;
+        public double framesToVisible;
+        public long incompleteFrames;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.holes = 0.0D;
+            this.framesToVisible = 0.0D;
+            this.incompleteFrames = 0L;
+        }
+    }
+
+    @Benchmark
+    public void replayFlight(Completeness completeness) {
+        new Flight(this.implementation.equals("priority"), this.workers, this.framesPerTask).run(completeness);
+    }
+
+    /**
+     * A task which builds the section at a position.
+     */
+    private static class Task extends ChunkBuildQueue.Entry {
+        private final int x, z;
+
+        private Task(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+    }
+
+    private static class Flight {
+        private final boolean rankRebuilds;
+        private final int framesPerTask;
+
+        private final List<ChunkBuildQueue<Task>> queues = new ArrayList<>();
+        private int nextWorker;
+
+        // The task which each worker is building, and the number of frames until it is finished
+        private final Task[] running;
+        private final int[] remainingFrames;
+
+        private final LongOpenHashSet built = new LongOpenHashSet();
+        private final LongOpenHashSet scheduled = new LongOpenHashSet();
+
+        // The frame in which each unbuilt section first came into view
+        private final Long2IntOpenHashMap firstVisibleFrame = new Long2IntOpenHashMap();
+
+        private final LongArrayFIFOQueue searchQueue = new LongArrayFIFOQueue();
+        private final LongOpenHashSet searched = new LongOpenHashSet();
+
+        private final List<Task> rebuildQueue = new ArrayList<>();
+
+        private double cameraX, cameraZ;
+        private double yaw;
+
+        private long latencyFrames;
+        private long latencySections;
+
+        private Flight(boolean rankRebuilds, int workers, int framesPerTask) {
+            this.rankRebuilds = rankRebuilds;
+            this.framesPerTask = framesPerTask;
+
+            this.running = new Task[workers];
+            this.remainingFrames = new int[workers];
+
+            for (int i = 0; i < workers; i++) {
+                this.queues.add(new ChunkBuildQueue<>(TASK_QUEUE_LIMIT_PER_WORKER));
+            }
+        }
+
+        private void run(Completeness completeness) {
+            long holes = 0;
+
+            // Everything around the start is built, as if the player had been waiting there
+            this.buildAll();
+
+            for (int frame = 0; frame < FLIGHT_FRAMES; frame++) {
+                this.moveCamera(frame);
+                this.reprioritizePendingTasks();
+
+                int visibleHoles = this.searchGraph(frame);
+                this.updateChunks();
+                this.runWorkers(frame);
+
+                holes += visibleHoles;
+
+                if (visibleHoles > 0) {
+                    completeness.incompleteFrames++;
+                }
+            }
+
+            completeness.holes += (double) holes / FLIGHT_FRAMES;
+            completeness.framesToVisible += this.latencySections > 0 ? (double) this.latencyFrames / this.latencySections : 0.0D;
+        }
+
+        private void buildAll() {
+            for (int x = -RENDER_DISTANCE; x <= RENDER_DISTANCE; x++) {
+                for (int z = -RENDER_DISTANCE; z <= RENDER_DISTANCE; z++) {
+                    this.built.add(ChunkPos.toLong(x, z));
+                }
+            }
+        }
+
+        private void moveCamera(int frame) {
+            int turnFrame = frame % TURN_INTERVAL;
+
+            // Turn left and right in turns, so that the flight doesn't go around in a circle
+            if (frame >= TURN_INTERVAL && turnFrame < TURN_FRAMES) {
+                double direction = ((frame / TURN_INTERVAL) & 1) == 0 ? 1.0D : -1.0D;
+
+                this.yaw += direction * (Math.PI / 2.0D) / TURN_FRAMES;
+            }
+
+            this.cameraX += Math.cos(this.yaw) * SPEED;
+            this.cameraZ += Math.sin(this.yaw) * SPEED;
+        }
+
+        private void reprioritizePendingTasks() {
+            for (ChunkBuildQueue<Task> queue : this.queues) {
+                queue.reprioritize(this::getTaskPriority);
+            }
+        }
+
+        /**
+         * Walks breadth-first from the camera through the sections in view, as the graph search does, and collects the
+         * unbuilt sections which haven't been scheduled yet into the rebuild queue in the order they were reached.
+         *
+         * @return The number of sections in view which haven't been built
+         */
+        private int searchGraph(int frame) {
+            this.rebuildQueue.clear();
+            this.searched.clear();
+
+            long origin = ChunkPos.toLong((int) Math.floor(this.cameraX / 16.0D), (int) Math.floor(this.cameraZ / 16.0D));
+
+            this.searchQueue.enqueue(origin);
+            this.searched.add(origin);
+
+            int holes = 0;
+
+            while (!this.searchQueue.isEmpty()) {
+                long pos = this.searchQueue.dequeueLong();
+
+                int x = ChunkPos.getPackedX(pos);
+                int z = ChunkPos.getPackedZ(pos);
+
+                if (!this.built.contains(pos)) {
+                    holes++;
+
+                    if (!this.firstVisibleFrame.containsKey(pos)) {
+                        this.firstVisibleFrame.put(pos, frame);
+                    }
+
+                    if (!this.scheduled.contains(pos)) {
+                        this.rebuildQueue.add(new Task(x, z));
+                    }
+                }
+
+                this.visit(x + 1, z);
+                this.visit(x - 1, z);
+                this.visit(x, z + 1);
+                this.visit(x, z - 1);
+            }
+
+            return holes;
+        }
+
+        private void visit(int x, int z) {
+            if (this.isInRange(x, z) && this.isInView(x, z) && this.searched.add(ChunkPos.toLong(x, z))) {
+                this.searchQueue.enqueue(ChunkPos.toLong(x, z));
+            }
+        }
+
+        /**
+         * Hands the pending rebuilds to the chunk builder within its scheduling budget, as the render manager does.
+         */
+        private void updateChunks() {
+            if (this.rankRebuilds) {
+                for (Task task : this.rebuildQueue) {
+                    task.setPriority(this.getTaskPriority(task));
+                }
+
+                this.rebuildQueue.sort((a, b) -> Double.compare(a.getPriority(), b.getPriority()));
+            }
+
+            int budget = Math.max(0, (this.queues.size() * TASK_QUEUE_LIMIT_PER_WORKER) - this.getBuildQueueSize());
+
+            for (int i = 0; i < budget && i < this.rebuildQueue.size(); i++) {
+                Task task = this.rebuildQueue.get(i);
+                task.setPriority(this.getTaskPriority(task));
+
+                this.scheduled.add(ChunkPos.toLong(task.x, task.z));
+                this.findQueueForTask().add(task);
+            }
+        }
+
+        /**
+         * Mirrors the chunk builder, which prefers a worker which has run out of tasks and parked.
+         */
+        private ChunkBuildQueue<Task> findQueueForTask() {
+            for (int i = 0; i < this.queues.size(); i++) {
+                ChunkBuildQueue<Task> queue = this.queues.get(i);
+
+                if (this.running[i] == null && queue.isEmpty()) {
+                    return queue;
+                }
+            }
+
+            ChunkBuildQueue<Task> queue = this.queues.get(this.nextWorker);
+            this.nextWorker = (this.nextWorker + 1) % this.queues.size();
+
+            return queue;
+        }
+
+        private int getBuildQueueSize() {
+            int size = 0;
+
+            for (ChunkBuildQueue<Task> queue : this.queues) {
+                size += queue.size();
+            }
+
+            return size;
+        }
+
+        private void runWorkers(int frame) {
+            for (int i = 0; i < this.queues.size(); i++) {
+                Task task = this.running[i];
+
+                if (task == null) {
+                    task = this.pollTask(i);
+
+                    if (task == null) {
+                        continue;
+                    }
+
+                    this.running[i] = task;
+                    this.remainingFrames[i] = this.framesPerTask;
+                }
+
+                if (--this.remainingFrames[i] > 0) {
+                    continue;
+                }
+
+                this.running[i] = null;
+
+                long pos = ChunkPos.toLong(task.x, task.z);
+
+                this.scheduled.remove(pos);
+                this.built.add(pos);
+
+                if (this.firstVisibleFrame.containsKey(pos)) {
+                    this.latencyFrames += frame - this.firstVisibleFrame.remove(pos);
+                    this.latencySections++;
+                }
+            }
+        }
+
+        /**
+         * Takes the next task of a worker from its own queue, or steals it from the other workers in turn.
+         */
+        private Task pollTask(int worker) {
+            int count = this.queues.size();
+
+            for (int i = 0; i < count; i++) {
+                ChunkBuildQueue<Task> queue = this.queues.get((worker + i) % count);
+                Task task;
+
+                // Sections which have gone out of range would have been unloaded, and their tasks cancelled
+                while ((task = queue.poll()) != null) {
+                    if (this.isInRange(task.x, task.z)) {
+                        return task;
+                    }
+
+                    this.scheduled.remove(ChunkPos.toLong(task.x, task.z));
+                }
+            }
+
+            return null;
+        }
+
+        private double getTaskPriority(Task task) {
+            return ChunkBuilder.getTaskPriority(this.getSquaredDistance(task), !this.isInView(task.x, task.z));
+        }
+
+        private double getSquaredDistance(Task task) {
+            double dx = ((task.x << 4) + 8) - this.cameraX;
+            double dz = ((task.z << 4) + 8) - this.cameraZ;
+
+            return (dx * dx) + (dz * dz);
+        }
+
+        private boolean isInRange(int x, int z) {
+            double dx = ((x << 4) + 8) - this.cameraX;
+            double dz = ((z << 4) + 8) - this.cameraZ;
+
+            return (dx * dx) + (dz * dz) <= (RENDER_DISTANCE * 16.0D) * (RENDER_DISTANCE * 16.0D);
+        }
+
+        private boolean isInView(int x, int z) {
+            double dx = ((x << 4) + 8) - this.cameraX;
+            double dz = ((z << 4) + 8) - this.cameraZ;
+
+            double length = Math.sqrt((dx * dx) + (dz * dz));
+
+            // The sections right around the camera are always in view
+            if (length < 24.0D) {
+                return true;
+            }
+
+            return ((dx * Math.cos(this.yaw)) + (dz * Math.sin(this.yaw))) / length >= VIEW_COS;
+        }
+    }
+}
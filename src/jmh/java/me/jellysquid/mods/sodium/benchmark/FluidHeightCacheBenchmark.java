@@ -0,0 +1,164 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import me.jellysquid.mods.sodium.client.render.pipeline.FluidHeightCache;
+import net.minecraft.Bootstrap;
+import net.minecraft.block.BlockState;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures calculating the heights of the four top corners of every fluid block in a section which has an exposed face,
+ * as the fluid renderer does for each of them. The uncached implementation calculates every corner again for each of
+ * the blocks sharing it, while the cached implementation uses a {@link FluidHeightCache} which is reset for each
+ * section, as a chunk build would.
+ *
+ * The fluid renderer can't be created outside of a running client, so the calculation of a corner is copied here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FluidHeightCacheBenchmark {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Param({ "OCEAN" })
+    public SyntheticTerrain terrain;
+
+    @Param({ "uncached", "cached" })
+    public String implementation;
+
+    private ChunkSectionPos origin;
+    private SyntheticBlockView view;
+
+    // The fluid blocks which have at least one face that isn't hidden by the same fluid
+    private final List<BlockPos> exposed = new ArrayList<>();
+    private final List<Fluid> fluids = new ArrayList<>();
+
+    private final FluidHeightCache cache = new FluidHeightCache();
+    private final BlockPos.Mutable scratchPos = new BlockPos.Mutable();
+
+    @Setup
+    public void setup() {
+        Bootstrap.initialize();
+
+        this.origin = this.terrain.getOriginSection();
+        this.view = new SyntheticBlockView(this.terrain, this.origin);
+
+        for (BlockPos pos : BlockPos.iterate(this.origin.getMinX(), this.origin.getMinY(), this.origin.getMinZ(),
+                this.origin.getMaxX(), this.origin.getMaxY(), this.origin.getMaxZ())) {
+            FluidState fluidState = this.view.getFluidState(pos);
+
+            if (fluidState.isEmpty() || !this.isExposed(pos, fluidState.getFluid())) {
+                continue;
+            }
+
+            this.exposed.add(pos.toImmutable());
+            this.fluids.add(fluidState.getFluid());
+        }
+    }
+
+    @Benchmark
+    public void getCornerHeights(Blackhole blackhole) {
+        boolean cached = this.implementation.equals("cached");
+
+        if (cached) {
+            this.cache.init(this.origin);
+        }
+
+        for (int i = 0; i < this.exposed.size(); i++) {
+            BlockPos pos = this.exposed.get(i);
+            Fluid fluid = this.fluids.get(i);
+
+            int x = pos.getX();
+            int y = pos.getY();
+            int z = pos.getZ();
+
+            if (cached) {
+                blackhole.consume(this.getCornerHeight(x, y, z, fluid));
+                blackhole.consume(this.getCornerHeight(x, y, z + 1, fluid));
+                blackhole.consume(this.getCornerHeight(x + 1, y, z + 1, fluid));
+                blackhole.consume(this.getCornerHeight(x + 1, y, z, fluid));
+            } else {
+                blackhole.consume(this.calculateCornerHeight(x, y, z, fluid));
+                blackhole.consume(this.calculateCornerHeight(x, y, z + 1, fluid));
+                blackhole.consume(this.calculateCornerHeight(x + 1, y, z + 1, fluid));
+                blackhole.consume(this.calculateCornerHeight(x + 1, y, z, fluid));
+            }
+        }
+    }
+
+    private boolean isExposed(BlockPos pos, Fluid fluid) {
+        for (Direction dir : DIRECTIONS) {
+            if (!this.view.getFluidState(pos.offset(dir)).getFluid().matchesType(fluid)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private float getCornerHeight(int x, int y, int z, Fluid fluid) {
+        FluidHeightCache cache = this.cache;
+        int index = cache.getIndex(x, y, z);
+
+        if (index < 0) {
+            return this.calculateCornerHeight(x, y, z, fluid);
+        }
+
+        if (!cache.contains(index, fluid)) {
+            cache.put(index, fluid, this.calculateCornerHeight(x, y, z, fluid));
+        }
+
+        return cache.get(index);
+    }
+
+    private float calculateCornerHeight(int x, int y, int z, Fluid fluid) {
+        int samples = 0;
+        float totalHeight = 0.0F;
+
+        for (int i = 0; i < 4; ++i) {
+            int x2 = x - (i & 1);
+            int z2 = z - (i >> 1 & 1);
+
+            if (this.view.getFluidState(this.scratchPos.set(x2, y + 1, z2)).getFluid().matchesType(fluid)) {
+                return 1.0F;
+            }
+
+            BlockPos pos = this.scratchPos.set(x2, y, z2);
+
+            BlockState blockState = this.view.getBlockState(pos);
+            FluidState fluidState = blockState.getFluidState();
+
+            if (fluidState.getFluid().matchesType(fluid)) {
+                float height = fluidState.getHeight(this.view, pos);
+
+                if (height >= 0.8F) {
+                    totalHeight += height * 10.0F;
+                    samples += 10;
+                } else {
+                    totalHeight += height;
+                    ++samples;
+                }
+            } else if (!blockState.getMaterial().isSolid()) {
+                ++samples;
+            }
+        }
+
+        return totalHeight / (float) samples;
+    }
+}
@@ -0,0 +1,114 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import me.jellysquid.mods.sodium.client.model.MultipartQuadTable;
+import net.minecraft.Bootstrap;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.FenceBlock;
+import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.render.model.BasicBakedModel;
+import net.minecraft.client.render.model.MultipartBakedModel;
+import net.minecraft.state.property.BooleanProperty;
+import net.minecraft.util.math.Direction;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Measures resolving the quads of every face of a section filled with fences, which use a multipart model with a post
+ * and one part for each connected side. The vanilla model is compared against the quad table which replaces it in
+ * game. Mixins aren't applied to the benchmarks, so the vanilla model runs unmodified here. The allocation rate is
+ * reported by the GC profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MultipartModelBenchmark {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Param({ "vanilla", "table" })
+    public String implementation;
+
+    private BakedModel vanillaModel;
+    private MultipartQuadTable quadTable;
+
+    private BlockState[] states;
+
+    private final Random random = new Random();
+
+    @Setup
+    public void setup() {
+        Bootstrap.initialize();
+
+        List<Pair<Predicate<BlockState>, BakedModel>> components = new ArrayList<>();
+        components.add(Pair.of(state -> true, createPart()));
+        components.add(Pair.of(isConnected(FenceBlock.NORTH), createPart()));
+        components.add(Pair.of(isConnected(FenceBlock.EAST), createPart()));
+        components.add(Pair.of(isConnected(FenceBlock.SOUTH), createPart()));
+        components.add(Pair.of(isConnected(FenceBlock.WEST), createPart()));
+
+        this.vanillaModel = new MultipartBakedModel(components);
+        this.quadTable = new MultipartQuadTable(components);
+
+        List<BlockState> fences = Blocks.OAK_FENCE.getStateManager().getStates();
+
+        this.states = new BlockState[16 * 16 * 16];
+
+        for (int i = 0; i < this.states.length; i++) {
+            this.states[i] = fences.get(Math.floorMod(SyntheticTerrain.hash(i, 0, 0), fences.size()));
+        }
+    }
+
+    private static Predicate<BlockState> isConnected(BooleanProperty property) {
+        return state -> state.get(property);
+    }
+
+    /**
+     * Creates a model part with a single quad on every face, which stands in for one of the boxes of a fence.
+     */
+    private static BakedModel createPart() {
+        Map<Direction, List<BakedQuad>> faceQuads = new EnumMap<>(Direction.class);
+
+        for (Direction dir : DIRECTIONS) {
+            faceQuads.put(dir, Collections.emptyList());
+        }
+
+        List<BakedQuad> quads = new ArrayList<>();
+
+        for (Direction dir : DIRECTIONS) {
+            quads.add(new BakedQuad(new int[32], -1, dir, null, true));
+        }
+
+        return new BasicBakedModel(quads, faceQuads, true, true, false, null, null, null);
+    }
+
+    @Benchmark
+    public void getQuads(Blackhole blackhole) {
+        boolean vanilla = this.implementation.equals("vanilla");
+
+        for (BlockState state : this.states) {
+            for (Direction dir : DIRECTIONS) {
+                blackhole.consume(vanilla ? this.vanillaModel.getQuads(state, dir, this.random) : this.quadTable.getQuads(state, dir, this.random));
+            }
+
+            blackhole.consume(vanilla ? this.vanillaModel.getQuads(state, null, this.random) : this.quadTable.getQuads(state, null, this.random));
+        }
+    }
+}
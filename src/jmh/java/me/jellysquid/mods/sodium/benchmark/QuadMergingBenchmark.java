@@ -0,0 +1,208 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferBuilder;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import me.jellysquid.mods.sodium.client.render.chunk.format.xhfp.XHFPQuadMerger;
+import net.minecraft.Bootstrap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockRenderType;
+import net.minecraft.block.BlockState;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.LightType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures merging the faces of a section into larger quads. Every exposed block face is written with a texture tile
+ * picked from its block state and the light of the block in front of it, so that only faces which would look the
+ * same in game can be merged. The exposed faces of fluids are written into a separate translucent mesh, where only the
+ * quads which were written by fluids may be merged, as is done for the translucent pass in game.
+ *
+ * The merged meshes are checked for correctness by XHFPQuadMergerTest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QuadMergingBenchmark {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private static final int STRIDE = 48;
+    private static final int QUAD_STRIDE = STRIDE * 4;
+
+    // The size of a texture tile in the texture coordinates
+    private static final int TILE_SIZE = 512;
+
+    // The corners of each block face in counter-clockwise order, indexed by direction
+    private static final float[][] FACE_CORNERS = new float[][] {
+            { 0, 0, 0,  1, 0, 0,  1, 0, 1,  0, 0, 1 }, // DOWN
+            { 0, 1, 1,  1, 1, 1,  1, 1, 0,  0, 1, 0 }, // UP
+            { 1, 1, 0,  1, 0, 0,  0, 0, 0,  0, 1, 0 }, // NORTH
+            { 0, 1, 1,  0, 0, 1,  1, 0, 1,  1, 1, 1 }, // SOUTH
+            { 0, 1, 0,  0, 0, 0,  0, 0, 1,  0, 1, 1 }, // WEST
+            { 1, 1, 1,  1, 0, 1,  1, 0, 0,  1, 1, 0 }  // EAST
+    };
+
+    // The meshes which are written, as the solid and translucent passes are merged differently
+    private static final int SOLID = 0;
+    private static final int TRANSLUCENT = 1;
+    private static final int MESH_COUNT = 2;
+
+    @Param
+    public SyntheticTerrain terrain;
+
+    private final ChunkVertexType vertexType = DefaultModelVertexFormats.MODEL_VERTEX_XHFP;
+    private final XHFPQuadMerger merger = new XHFPQuadMerger();
+
+    private final VertexBufferBuilder[][] builders = new VertexBufferBuilder[MESH_COUNT][ModelQuadFacing.COUNT];
+
+    // The vertex data of each facing before merging
+    private final ByteBuffer[][] inputs = new ByteBuffer[MESH_COUNT][ModelQuadFacing.COUNT];
+
+    // The ranges of the quads written by fluids into each facing of the translucent mesh
+    private final IntArrayList[] fluidRanges = new IntArrayList[ModelQuadFacing.COUNT];
+
+    @Setup
+    public void setup() {
+        Bootstrap.initialize();
+
+        ChunkSectionPos origin = this.terrain.getOriginSection();
+        SyntheticBlockView view = new SyntheticBlockView(this.terrain, origin);
+
+        ModelVertexSink[][] sinks = new ModelVertexSink[MESH_COUNT][ModelQuadFacing.COUNT];
+
+        for (int mesh = 0; mesh < MESH_COUNT; mesh++) {
+            for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+                VertexBufferBuilder builder = new VertexBufferBuilder(this.vertexType.getBufferVertexFormat(), 16 * 16 * 16 * QUAD_STRIDE);
+
+                this.builders[mesh][facing.ordinal()] = builder;
+                sinks[mesh][facing.ordinal()] = this.vertexType.createBufferWriter(builder, false);
+            }
+        }
+
+        for (BlockPos pos : BlockPos.iterate(origin.getMinX(), origin.getMinY(), origin.getMinZ(),
+                origin.getMaxX(), origin.getMaxY(), origin.getMaxZ())) {
+            BlockState state = view.getBlockState(pos);
+
+            if (state.getRenderType() == BlockRenderType.MODEL) {
+                this.writeFaces(view, sinks[SOLID], pos, state, false);
+            }
+
+            if (!state.getFluidState().isEmpty()) {
+                this.writeFaces(view, sinks[TRANSLUCENT], pos, state, true);
+            }
+        }
+
+        for (int mesh = 0; mesh < MESH_COUNT; mesh++) {
+            for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+                sinks[mesh][facing.ordinal()].flush();
+
+                VertexBufferBuilder builder = this.builders[mesh][facing.ordinal()];
+
+                ByteBuffer input = copyOf(builder);
+                this.inputs[mesh][facing.ordinal()] = input;
+
+                // Every quad of the translucent mesh is written by a fluid, so the range covers the whole buffer
+                if (mesh == TRANSLUCENT) {
+                    this.fluidRanges[facing.ordinal()] = IntArrayList.wrap(new int[] { 0, input.remaining() });
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void mergeQuads(Blackhole blackhole) {
+        for (int mesh = 0; mesh < MESH_COUNT; mesh++) {
+            for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+                VertexBufferBuilder builder = this.builders[mesh][facing.ordinal()];
+                ByteBuffer input = this.inputs[mesh][facing.ordinal()];
+
+                // Restore the faces before merging, as the merged quads are written in place
+                builder.truncate(0);
+
+                ByteBuffer dst = builder.getDirectBuffer().duplicate();
+                dst.clear();
+                dst.put(input.duplicate());
+
+                builder.flush(input.remaining() / STRIDE, builder.getVertexFormat());
+
+                this.merge(mesh, builder, facing);
+
+                blackhole.consume(builder.getSize());
+            }
+        }
+    }
+
+    private void merge(int mesh, VertexBufferBuilder builder, ModelQuadFacing facing) {
+        this.merger.merge(builder, facing, mesh == TRANSLUCENT ? this.fluidRanges[facing.ordinal()] : null);
+    }
+
+    /**
+     * Writes every exposed face of the given block, or of its fluid. Like in game, the faces between two blocks of the
+     * same fluid are hidden.
+     */
+    private void writeFaces(SyntheticBlockView view, ModelVertexSink[] sinks, BlockPos pos, BlockState state, boolean fluid) {
+        FluidState fluidState = state.getFluidState();
+        int tile = Block.getRawIdFromState(fluid ? fluidState.getBlockState() : state) & 63;
+
+        for (Direction dir : DIRECTIONS) {
+            BlockPos adjPos = pos.offset(dir);
+            BlockState adjState = view.getBlockState(adjPos);
+
+            if (adjState.isOpaque() || (fluid && adjState.getFluidState().getFluid().matchesType(fluidState.getFluid()))) {
+                continue;
+            }
+
+            int light = (view.getLightLevel(LightType.SKY, adjPos) << 20) | (view.getLightLevel(LightType.BLOCK, adjPos) << 4);
+
+            ModelVertexSink sink = sinks[ModelQuadFacing.fromDirection(dir).ordinal()];
+            sink.ensureCapacity(4);
+
+            writeFace(sink, pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15, dir, tile, light);
+        }
+    }
+
+    private static void writeFace(ModelVertexSink sink, float x, float y, float z, Direction dir, int tile, int light) {
+        float[] corners = FACE_CORNERS[dir.ordinal()];
+
+        float minU = (tile & 7) * TILE_SIZE;
+        float minV = (tile >> 3) * TILE_SIZE;
+
+        for (int i = 0; i < 4; i++) {
+            float u = minU + ((i >> 1) * TILE_SIZE);
+            float v = minV + ((((i + 1) >> 1) & 1) * TILE_SIZE);
+
+            sink.writeQuad(x + corners[i * 3], y + corners[i * 3 + 1], z + corners[i * 3 + 2], 0xFFFFFFFF,
+                    u / 32768.0f, v / 32768.0f, light);
+        }
+    }
+
+    private static ByteBuffer copyOf(VertexBufferBuilder builder) {
+        ByteBuffer view = builder.getDirectBuffer().duplicate().order(ByteOrder.nativeOrder());
+        view.position(0);
+        view.limit(builder.getSize());
+
+        ByteBuffer copy = ByteBuffer.allocate(builder.getSize()).order(ByteOrder.nativeOrder());
+        copy.put(view);
+        copy.flip();
+
+        return copy;
+    }
+}
@@ -0,0 +1,112 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import me.jellysquid.mods.sodium.client.model.light.cache.ArrayLightDataCache;
+import me.jellysquid.mods.sodium.client.model.light.cache.EagerLightDataCache;
+import me.jellysquid.mods.sodium.client.model.light.cache.SectionLightDataCache;
+import me.jellysquid.mods.sodium.client.model.light.data.QuadLightData;
+import me.jellysquid.mods.sodium.client.model.light.smooth.SmoothLightPipeline;
+import me.jellysquid.mods.sodium.client.model.quad.ModelQuad;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFlags;
+import net.minecraft.Bootstrap;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures smooth lighting for every exposed full block face of a section, including the cost of filling the light
+ * data cache from the world as a chunk build would. The lazy cache only computes the blocks which are accessed, while
+ * the eager cache computes every block up front, so the terrain types cover both dense and sparse sections.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SmoothLightPipelineBenchmark {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Param
+    public SyntheticTerrain terrain;
+
+    @Param({ "lazy", "eager" })
+    public String cacheType;
+
+    private SyntheticBlockView view;
+    private ChunkSectionPos origin;
+
+    private SectionLightDataCache cache;
+    private SmoothLightPipeline pipeline;
+
+    private final ModelQuad[] quads = new ModelQuad[DIRECTIONS.length];
+    private final QuadLightData out = new QuadLightData();
+
+    private BlockPos[] faces;
+    private Direction[] faceDirections;
+
+    @Setup
+    public void setup() {
+        Bootstrap.initialize();
+
+        this.origin = this.terrain.getOriginSection();
+        this.view = new SyntheticBlockView(this.terrain, this.origin);
+
+        this.cache = this.cacheType.equals("eager") ? new EagerLightDataCache() : new ArrayLightDataCache();
+        this.pipeline = new SmoothLightPipeline(this.cache);
+
+        for (Direction dir : DIRECTIONS) {
+            ModelQuad quad = new ModelQuad();
+            quad.setFlags(ModelQuadFlags.IS_ALIGNED);
+
+            this.quads[dir.ordinal()] = quad;
+        }
+
+        List<BlockPos> faces = new ArrayList<>();
+        List<Direction> faceDirections = new ArrayList<>();
+
+        for (BlockPos pos : BlockPos.iterate(this.origin.getMinX(), this.origin.getMinY(), this.origin.getMinZ(),
+                this.origin.getMaxX(), this.origin.getMaxY(), this.origin.getMaxZ())) {
+            BlockState state = this.view.getBlockState(pos);
+
+            if (state.isAir()) {
+                continue;
+            }
+
+            for (Direction dir : DIRECTIONS) {
+                if (!this.view.getBlockState(pos.offset(dir)).isOpaque()) {
+                    faces.add(pos.toImmutable());
+                    faceDirections.add(dir);
+                }
+            }
+        }
+
+        this.faces = faces.toArray(new BlockPos[0]);
+        this.faceDirections = faceDirections.toArray(new Direction[0]);
+    }
+
+    @Benchmark
+    public void calculate(Blackhole blackhole) {
+        this.cache.init(this.view, this.origin);
+
+        QuadLightData out = this.out;
+
+        for (int i = 0; i < this.faces.length; i++) {
+            Direction dir = this.faceDirections[i];
+
+            this.pipeline.calculate(this.quads[dir.ordinal()], this.faces[i], out, dir, true);
+
+            blackhole.consume(out.lm[0]);
+        }
+    }
+}
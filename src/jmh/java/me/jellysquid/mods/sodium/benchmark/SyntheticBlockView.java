@@ -0,0 +1,114 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.BlockRenderView;
+import net.minecraft.world.LightType;
+import net.minecraft.world.chunk.light.LightingProvider;
+import net.minecraft.world.level.ColorResolver;
+
+/**
+ * A minimal block view over a {@link SyntheticTerrain} which covers a chunk section and all of its direct neighbors.
+ * Blocks are precomputed into a flat array so that the cost of generating the terrain doesn't show up in the
+ * benchmarks. Light is approximated as full sky light above the surface and darkness below it, since there is no
+ * lighting engine available outside of a running world.
+ */
+public class SyntheticBlockView implements BlockRenderView {
+    private static final int SIZE = 16 * 3;
+
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final BlockState[] states = new BlockState[SIZE * SIZE * SIZE];
+
+    private final int originX, originY, originZ;
+
+    public SyntheticBlockView(SyntheticTerrain terrain, ChunkSectionPos origin) {
+        this.originX = origin.getMinX() - 16;
+        this.originY = origin.getMinY() - 16;
+        this.originZ = origin.getMinZ() - 16;
+
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    this.states[index(x, y, z)] = terrain.getBlockState(this.originX + x, this.originY + y, this.originZ + z);
+                }
+            }
+        }
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y * SIZE * SIZE) + (z * SIZE) + x;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        int x = pos.getX() - this.originX;
+        int y = pos.getY() - this.originY;
+        int z = pos.getZ() - this.originZ;
+
+        if (x < 0 || y < 0 || z < 0 || x >= SIZE || y >= SIZE || z >= SIZE) {
+            return AIR;
+        }
+
+        return this.states[index(x, y, z)];
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return this.getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public int getLightLevel(LightType type, BlockPos pos) {
+        if (type == LightType.SKY) {
+            return pos.getY() > SyntheticTerrain.SURFACE_Y ? 15 : 0;
+        }
+
+        return 0;
+    }
+
+    @Override
+    public int getBaseLightLevel(BlockPos pos, int ambientDarkness) {
+        return Math.max(this.getLightLevel(LightType.SKY, pos) - ambientDarkness, this.getLightLevel(LightType.BLOCK, pos));
+    }
+
+    @Override
+    public float getBrightness(Direction direction, boolean shaded) {
+        if (!shaded) {
+            return 1.0f;
+        }
+
+        switch (direction) {
+            case DOWN:
+                return 0.5f;
+            case NORTH:
+            case SOUTH:
+                return 0.8f;
+            case WEST:
+            case EAST:
+                return 0.6f;
+            default:
+                return 1.0f;
+        }
+    }
+
+    @Override
+    public LightingProvider getLightingProvider() {
+        throw new UnsupportedOperationException("Synthetic views do not have a lighting provider");
+    }
+
+    @Override
+    public int getColor(BlockPos pos, ColorResolver colorResolver) {
+        return 0xFFFFFFFF;
+    }
+}
@@ -0,0 +1,239 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.registry.RegistryKey;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.BiomeKeys;
+import net.minecraft.world.chunk.ChunkSection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic terrain used by the benchmarks in place of a real world. Each type of terrain stresses a different
+ * part of the meshing pipeline, from simple uniform sections to sections with many exposed faces and translucent
+ * or non-cubic blocks.
+ */
+public enum SyntheticTerrain {
+    /**
+     * Solid stone up to a flat surface. Almost every face is hidden, so this is close to the best case.
+     */
+    FLAT_STONE(3, BiomeKeys.PLAINS) {
+        @Override
+        public BlockState getBlockState(int x, int y, int z) {
+            return y <= SURFACE_Y ? Blocks.STONE.getDefaultState() : Blocks.AIR.getDefaultState();
+        }
+    },
+
+    /**
+     * Stone riddled with cave pockets and scattered ores, which exposes many faces deep below the surface.
+     */
+    CAVES(2, BiomeKeys.MOUNTAINS, BiomeKeys.GRAVELLY_MOUNTAINS) {
+        @Override
+        public BlockState getBlockState(int x, int y, int z) {
+            if (y > SURFACE_Y) {
+                return Blocks.AIR.getDefaultState();
+            }
+
+            if (y > 0 && (hash(x >> 2, y >> 2, z >> 2) & 7) < 3) {
+                return Blocks.CAVE_AIR.getDefaultState();
+            }
+
+            int h = hash(x, y, z) & 63;
+
+            if (h == 0) {
+                return Blocks.COAL_ORE.getDefaultState();
+            } else if (h == 1) {
+                return Blocks.IRON_ORE.getDefaultState();
+            } else if (h < 8) {
+                return Blocks.ANDESITE.getDefaultState();
+            }
+
+            return Blocks.STONE.getDefaultState();
+        }
+    },
+
+    /**
+     * Grass-covered ground with dense trees and plants, which is heavy on leaves, cross-shaped models and biome
+     * tinting.
+     */
+    FOREST(3, BiomeKeys.FOREST, BiomeKeys.BIRCH_FOREST, BiomeKeys.DARK_FOREST) {
+        private static final int TRUNK_HEIGHT = 5;
+
+        @Override
+        public BlockState getBlockState(int x, int y, int z) {
+            if (y < SURFACE_Y - 3) {
+                return Blocks.STONE.getDefaultState();
+            } else if (y < SURFACE_Y) {
+                return Blocks.DIRT.getDefaultState();
+            } else if (y == SURFACE_Y) {
+                return Blocks.GRASS_BLOCK.getDefaultState();
+            }
+
+            int height = y - SURFACE_Y;
+
+            if (isTree(x, z)) {
+                return height <= TRUNK_HEIGHT ? Blocks.OAK_LOG.getDefaultState() : Blocks.OAK_LEAVES.getDefaultState();
+            }
+
+            if (height >= TRUNK_HEIGHT - 2 && height <= TRUNK_HEIGHT + 1) {
+                int radius = height > TRUNK_HEIGHT ? 1 : 2;
+
+                for (int dx = -radius; dx <= radius; dx++) {
+                    for (int dz = -radius; dz <= radius; dz++) {
+                        if (isTree(x + dx, z + dz)) {
+                            return Blocks.OAK_LEAVES.getDefaultState();
+                        }
+                    }
+                }
+            }
+
+            if (height == 1) {
+                int h = hash(x, y, z) & 7;
+
+                if (h < 3) {
+                    return Blocks.GRASS.getDefaultState();
+                } else if (h == 3) {
+                    return Blocks.FERN.getDefaultState();
+                }
+            }
+
+            return Blocks.AIR.getDefaultState();
+        }
+
+        private boolean isTree(int x, int z) {
+            return Math.floorMod(hash(x, 0, z), 23) == 0;
+        }
+    },
+
+    /**
+     * A sandy sea floor covered by deep water and sea grass, which is heavy on fluids and translucent geometry.
+     */
+    OCEAN(3, BiomeKeys.OCEAN, BiomeKeys.WARM_OCEAN) {
+        private static final int FLOOR_Y = SURFACE_Y - 16;
+
+        @Override
+        public BlockState getBlockState(int x, int y, int z) {
+            int floor = FLOOR_Y + (hash(x >> 2, 0, z >> 2) & 3);
+
+            if (y < floor - 4) {
+                return Blocks.STONE.getDefaultState();
+            } else if (y <= floor) {
+                return Blocks.SAND.getDefaultState();
+            } else if (y == floor + 1 && (hash(x, y, z) & 3) == 0) {
+                return Blocks.SEAGRASS.getDefaultState();
+            } else if (y <= SURFACE_Y) {
+                return Blocks.WATER.getDefaultState();
+            }
+
+            return Blocks.AIR.getDefaultState();
+        }
+    },
+
+    /**
+     * Stone mixed with every state of many blocks which have complex shapes, which is the worst case for face culling
+     * as most faces need their culling shapes to be compared.
+     */
+    SHAPES(3, BiomeKeys.PLAINS) {
+        private BlockState[] shapes;
+
+        @Override
+        public BlockState getBlockState(int x, int y, int z) {
+            if (y > SURFACE_Y) {
+                return Blocks.AIR.getDefaultState();
+            }
+
+            int h = hash(x, y, z);
+
+            if ((h & 1) == 0) {
+                return Blocks.STONE.getDefaultState();
+            }
+
+            // Blocks can't be accessed until the game has been bootstrapped, so the states are collected on first use
+            if (this.shapes == null) {
+                this.shapes = collectStates(Blocks.OAK_STAIRS, Blocks.STONE_BRICK_STAIRS, Blocks.OAK_SLAB, Blocks.STONE_SLAB,
+                        Blocks.SNOW, Blocks.COBBLESTONE_WALL, Blocks.OAK_FENCE, Blocks.GLASS_PANE, Blocks.DAYLIGHT_DETECTOR,
+                        Blocks.ENCHANTING_TABLE, Blocks.FARMLAND, Blocks.GRASS_PATH, Blocks.STONECUTTER, Blocks.LECTERN,
+                        Blocks.HOPPER, Blocks.CAULDRON, Blocks.COMPOSTER, Blocks.END_PORTAL_FRAME, Blocks.OAK_TRAPDOOR);
+            }
+
+            return this.shapes[Math.floorMod(h >>> 1, this.shapes.length)];
+        }
+    };
+
+    /**
+     * The height of the top-most solid (or fluid) layer of every terrain type.
+     */
+    public static final int SURFACE_Y = 60;
+
+    private final int originSectionY;
+    private final RegistryKey<Biome>[] biomes;
+
+    @SafeVarargs
+    SyntheticTerrain(int originSectionY, RegistryKey<Biome>... biomes) {
+        this.originSectionY = originSectionY;
+        this.biomes = biomes;
+    }
+
+    /**
+     * @return The block state at the given global position
+     */
+    public abstract BlockState getBlockState(int x, int y, int z);
+
+    /**
+     * @return The position of the most interesting section of this terrain, which the benchmarks are centered on
+     */
+    public ChunkSectionPos getOriginSection() {
+        return ChunkSectionPos.from(0, this.originSectionY, 0);
+    }
+
+    /**
+     * @return The biomes which are scattered over this terrain
+     */
+    public RegistryKey<Biome>[] getBiomes() {
+        return this.biomes;
+    }
+
+    /**
+     * Creates a chunk section containing the blocks of this terrain at the given section position.
+     */
+    public ChunkSection createSection(ChunkSectionPos pos) {
+        ChunkSection section = new ChunkSection(pos.getSectionY() << 4);
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    BlockState state = this.getBlockState(pos.getMinX() + x, pos.getMinY() + y, pos.getMinZ() + z);
+
+                    if (!state.isAir()) {
+                        section.setBlockState(x, y, z, state);
+                    }
+                }
+            }
+        }
+
+        return section;
+    }
+
+    private static BlockState[] collectStates(Block... blocks) {
+        List<BlockState> states = new ArrayList<>();
+
+        for (Block block : blocks) {
+            states.addAll(block.getStateManager().getStates());
+        }
+
+        return states.toArray(new BlockState[0]);
+    }
+
+    static int hash(int x, int y, int z) {
+        int h = (x * 0x1F1F1F1F) ^ (y * 0x5BD1E995) ^ (z * 0x27D4EB2D);
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+
+        return h;
+    }
+}
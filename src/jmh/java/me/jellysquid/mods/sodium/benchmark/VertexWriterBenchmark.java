@@ -0,0 +1,137 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferBuilder;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import net.minecraft.Bootstrap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing the vertices of every exposed block face in a section through each chunk vertex format and with
+ * both the NIO and the unsafe writer, followed by the copy of the finished vertex data out of the scratch buffer.
+ *
+ * The vertex data written by each format and writer is checked for correctness by the tests of the extended formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VertexWriterBenchmark {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // The corners of each block face in counter-clockwise order, indexed by direction
+    private static final float[][] FACE_CORNERS = new float[][] {
+            { 0, 0, 0,  1, 0, 0,  1, 0, 1,  0, 0, 1 }, // DOWN
+            { 0, 1, 1,  1, 1, 1,  1, 1, 0,  0, 1, 0 }, // UP
+            { 1, 1, 0,  1, 0, 0,  0, 0, 0,  0, 1, 0 }, // NORTH
+            { 0, 1, 1,  0, 0, 1,  1, 0, 1,  1, 1, 1 }, // SOUTH
+            { 0, 1, 0,  0, 0, 0,  0, 0, 1,  0, 1, 1 }, // WEST
+            { 1, 1, 1,  1, 0, 1,  1, 0, 0,  1, 1, 0 }  // EAST
+    };
+
+    @Param
+    public SyntheticTerrain terrain;
+
+    @Param
+    public Format format;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private ChunkVertexType vertexType;
+
+    private VertexBufferBuilder builder;
+    private ByteBuffer scratch;
+
+    // The local position of each exposed face and its direction, packed as (x, y, z, direction)
+    private int[] faces;
+
+    @Setup
+    public void setup() {
+        Bootstrap.initialize();
+
+        ChunkSectionPos origin = this.terrain.getOriginSection();
+        SyntheticBlockView view = new SyntheticBlockView(this.terrain, origin);
+
+        int count = 0;
+        int[] faces = new int[16 * 16 * 16 * DIRECTIONS.length * 4];
+
+        for (BlockPos pos : BlockPos.iterate(origin.getMinX(), origin.getMinY(), origin.getMinZ(),
+                origin.getMaxX(), origin.getMaxY(), origin.getMaxZ())) {
+            if (view.getBlockState(pos).isAir()) {
+                continue;
+            }
+
+            for (Direction dir : DIRECTIONS) {
+                if (!view.getBlockState(pos.offset(dir)).isOpaque()) {
+                    faces[count++] = pos.getX() & 15;
+                    faces[count++] = pos.getY() & 15;
+                    faces[count++] = pos.getZ() & 15;
+                    faces[count++] = dir.ordinal();
+                }
+            }
+        }
+
+        this.faces = new int[count];
+        System.arraycopy(faces, 0, this.faces, 0, count);
+
+        this.vertexType = this.format.getVertexType();
+
+        int stride = this.vertexType.getBufferVertexFormat().getStride();
+        int size = Math.max(1, count * stride);
+
+        this.builder = new VertexBufferBuilder(this.vertexType.getBufferVertexFormat(), size);
+        this.scratch = ByteBuffer.allocateDirect(size);
+    }
+
+    @Benchmark
+    public void writeQuads(Blackhole blackhole) {
+        int[] faces = this.faces;
+
+        ModelVertexSink sink = this.vertexType.createBufferWriter(this.builder, this.direct);
+        sink.ensureCapacity(faces.length);
+
+        for (int i = 0; i < faces.length; i += 4) {
+            writeFace(sink, faces[i], faces[i + 1], faces[i + 2], DIRECTIONS[faces[i + 3]]);
+        }
+
+        sink.flush();
+
+        this.builder.copyInto(this.scratch);
+        blackhole.consume(this.scratch);
+
+        this.scratch.clear();
+    }
+
+    private static void writeFace(ModelVertexSink sink, float x, float y, float z, Direction dir) {
+        float[] corners = FACE_CORNERS[dir.ordinal()];
+
+        for (int i = 0; i < 4; i++) {
+            sink.writeQuad(x + corners[i * 3], y + corners[i * 3 + 1], z + corners[i * 3 + 2], 0xFFFFFFFF,
+                    (i >> 1), ((i + 1) >> 1) & 1, 0x00F000F0);
+        }
+    }
+
+    public enum Format {
+        EXTENDED,
+        COMPACT;
+
+        public ChunkVertexType getVertexType() {
+            return this == COMPACT ? DefaultModelVertexFormats.MODEL_VERTEX_COMPACT_XHFP : DefaultModelVertexFormats.MODEL_VERTEX_XHFP;
+        }
+    }
+}
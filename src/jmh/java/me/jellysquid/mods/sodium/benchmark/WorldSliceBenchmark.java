@@ -0,0 +1,59 @@
+package me.jellysquid.mods.sodium.benchmark;
+
+import me.jellysquid.mods.sodium.client.world.ChunkSectionSnapshot;
+import net.minecraft.Bootstrap;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of paletted block storage into the section snapshots which world slices copy their blocks
+ * from. This is what happens for the origin section and all of its neighbors when none of them are cached yet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorldSliceBenchmark {
+    @Param
+    public SyntheticTerrain terrain;
+
+    private ChunkSection[] sections;
+
+    @Setup
+    public void setup() {
+        Bootstrap.initialize();
+
+        ChunkSectionPos origin = this.terrain.getOriginSection();
+
+        this.sections = new ChunkSection[27];
+
+        int i = 0;
+
+        for (int x = -1; x <= 1; x++) {
+            for (int y = -1; y <= 1; y++) {
+                for (int z = -1; z <= 1; z++) {
+                    ChunkSectionPos pos = ChunkSectionPos.from(origin.getX() + x, origin.getY() + y, origin.getZ() + z);
+
+                    this.sections[i++] = this.terrain.createSection(pos);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void createSnapshots(Blackhole blackhole) {
+        for (ChunkSection section : this.sections) {
+            blackhole.consume(ChunkSectionSnapshot.create(section));
+        }
+    }
+}
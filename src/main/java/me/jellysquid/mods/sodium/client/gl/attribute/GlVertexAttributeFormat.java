@@ -1,6 +1,7 @@
 package me.jellysquid.mods.sodium.client.gl.attribute;
 
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL33;
 
 /**
  * An enumeration over the supported data types that can be used for vertex attributes.
@@ -8,9 +9,14 @@ import org.lwjgl.opengl.GL11;
 public class GlVertexAttributeFormat {
     public static final GlVertexAttributeFormat FLOAT = new GlVertexAttributeFormat(GL11.GL_FLOAT, 4);
     public static final GlVertexAttributeFormat UNSIGNED_SHORT = new GlVertexAttributeFormat(GL11.GL_UNSIGNED_SHORT, 2);
+    public static final GlVertexAttributeFormat SHORT = new GlVertexAttributeFormat(GL11.GL_SHORT, 2);
     public static final GlVertexAttributeFormat UNSIGNED_BYTE = new GlVertexAttributeFormat(GL11.GL_UNSIGNED_BYTE, 1);
     public static final GlVertexAttributeFormat BYTE = new GlVertexAttributeFormat(GL11.GL_BYTE, 1);
 
+    // Packs all four components into a single 32-bit word, so each component takes up a quarter of it. Attributes
+    // with this format must always have four components.
+    public static final GlVertexAttributeFormat INT_2_10_10_10_REV = new GlVertexAttributeFormat(GL33.GL_INT_2_10_10_10_REV, 1);
+
     private final int glId;
     private final int size;
 
@@ -286,12 +286,13 @@ public class SodiumGameOptionPages {
                 )
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
                         .setName("Use Compact Vertex Format")
-                        .setTooltip("If enabled, a more compact vertex format will be used for chunk meshes which limits the precision of vertex attributes. This format " +
-                                "will reduce graphics memory usage and bandwidth requirements by around 40%, but could cause z-fighting/flickering texture issues in " +
-                                "some edge cases.")
+                        .setTooltip("If enabled, a more compact vertex format will be used for chunk meshes which packs the block IDs, normals and tangents " +
+                                "used by shader packs more tightly. This format will reduce graphics memory usage and bandwidth requirements for chunks by " +
+                                "around a third. Shader packs which read more than the block ID from mc_Entity may render incorrectly with this format. " +
+                                "Requires OpenGL 3.3, and Merge Block Faces has no effect while this is enabled.")
                         .setControl(TickBoxControl::new)
                         .setImpact(OptionImpact.MEDIUM)
-                        .setBinding((opts, value) -> opts.advanced.useCompactVertexFormat = value, opts -> opts.advanced.useCompactVertexFormat)
+                        .setBinding((opts, value) -> opts.advanced.useCompactExtendedVertexFormat = value, opts -> opts.advanced.useCompactExtendedVertexFormat)
                         .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
                         .build()
                 )
@@ -335,6 +336,95 @@ public class SodiumGameOptionPages {
                 )
                 .build());
 
+        groups.add(OptionGroup.createBuilder()
+                .add(OptionImpl.createBuilder(int.class, sodiumOpts)
+                        .setName("Chunk Upload Time Budget")
+                        .setTooltip("Controls how much time can be spent uploading chunk updates to the graphics card each frame. Updates which don't fit " +
+                                "within the budget will be carried over to the next frame, with the nearest chunks being uploaded first. Lower values help to " +
+                                "prevent stuttering while loading terrain, but chunks will take longer to appear.")
+                        .setControl(option -> new SliderControl(option, 0, 20, 1, ControlValueFormatter.quantityOrDisabled("ms", "Unlimited")))
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.chunkUploadTimeBudget = value, opts -> opts.advanced.chunkUploadTimeBudget)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(int.class, sodiumOpts)
+                        .setName("Chunk Upload Size Budget")
+                        .setTooltip("Controls how much chunk mesh data can be uploaded to the graphics card each frame. Updates which don't fit within " +
+                                "the budget will be carried over to the next frame, with the nearest chunks being uploaded first.")
+                        .setControl(option -> new SliderControl(option, 0, 32, 1, ControlValueFormatter.quantityOrDisabled("MiB", "Unlimited")))
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.chunkUploadSizeBudget = value, opts -> opts.advanced.chunkUploadSizeBudget)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(int.class, sodiumOpts)
+                        .setName("Min Chunk Update Threads")
+                        .setTooltip("The minimum number of threads which will always be available for building chunk meshes. More threads are " +
+                                "activated automatically while many chunk updates are pending, and deactivated again when they are no longer needed " +
+                                "or are slowing down the game.")
+                        .setControl(option -> new SliderControl(option, 1, Runtime.getRuntime().availableProcessors(), 1, ControlValueFormatter.quantity("thread(s)")))
+                        .setImpact(OptionImpact.HIGH)
+                        .setBinding((opts, value) -> opts.advanced.chunkBuilderMinThreads = value, opts -> opts.advanced.chunkBuilderMinThreads)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(int.class, sodiumOpts)
+                        .setName("Max Chunk Update Threads")
+                        .setTooltip("The maximum number of threads which can be used for building chunk meshes. Setting this to Auto will allow one " +
+                                "thread to be used for every processor thread on your system.")
+                        .setControl(option -> new SliderControl(option, 0, Runtime.getRuntime().availableProcessors(), 1, ControlValueFormatter.quantityOrDisabled("thread(s)", "Auto")))
+                        .setImpact(OptionImpact.HIGH)
+                        .setBinding((opts, value) -> opts.advanced.chunkBuilderMaxThreads = value, opts -> opts.advanced.chunkBuilderMaxThreads)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName("Precompute Block Lighting")
+                        .setTooltip("If enabled, the lighting and occlusion properties of every block around a chunk will be computed at once before " +
+                                "the chunk is built, instead of each block being computed as it is needed. This is usually faster for dense terrain, " +
+                                "but could be slightly slower for mostly empty chunks.")
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.LOW)
+                        .setBinding((opts, value) -> opts.advanced.useEagerLightData = value, opts -> opts.advanced.useEagerLightData)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName("Merge Block Faces")
+                        .setTooltip("If enabled, adjacent faces of solid blocks which look the same will be merged into larger faces when chunks are " +
+                                "built. This can greatly reduce the amount of geometry for flat terrain and large builds, but makes building " +
+                                "chunks slightly slower. This has no effect while a shader pack or the compact vertex format is in use.")
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.useQuadMerging = value, opts -> opts.advanced.useQuadMerging)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .build());
+
+        groups.add(OptionGroup.createBuilder()
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName("Cache Chunk Meshes On Disk")
+                        .setTooltip("If enabled, the meshes of chunks will be saved to disk after they are built, and loaded again instead of being " +
+                                "rebuilt the next time the same chunk is seen with the same contents. This greatly speeds up re-joining a world or " +
+                                "returning to a dimension, but uses some disk space.")
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.useMeshDiskCache = value, opts -> opts.advanced.useMeshDiskCache)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(int.class, sodiumOpts)
+                        .setName("Chunk Mesh Cache Size")
+                        .setTooltip("Controls how much disk space can be used by the chunk mesh cache. When the cache is full, the meshes which " +
+                                "haven't been used for the longest time are deleted.")
+                        .setControl(option -> new SliderControl(option, 128, 4096, 128, ControlValueFormatter.quantity("MiB")))
+                        .setImpact(OptionImpact.LOW)
+                        .setBinding((opts, value) -> opts.advanced.meshDiskCacheSize = value, opts -> opts.advanced.meshDiskCacheSize)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .build());
+
         groups.add(OptionGroup.createBuilder()
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
                         .setName("Use Memory Intrinsics")
@@ -36,9 +36,21 @@ public class SodiumGameOptions {
         public boolean useParticleCulling = true;
         public boolean useFogOcclusion = true;
         public boolean useCompactVertexFormat = true;
+        public boolean useCompactExtendedVertexFormat = false;
         public boolean useChunkFaceCulling = true;
         public boolean useMemoryIntrinsics = true;
+        public boolean useEagerLightData = false;
+        public boolean useQuadMerging = false;
         public boolean disableDriverBlacklist = false;
+
+        public int chunkUploadTimeBudget = 4;
+        public int chunkUploadSizeBudget = 0;
+
+        public int chunkBuilderMinThreads = 1;
+        public int chunkBuilderMaxThreads = 0;
+
+        public boolean useMeshDiskCache = false;
+        public int meshDiskCacheSize = 512;
     }
 
     public static class QualitySettings {
@@ -0,0 +1,109 @@
+package me.jellysquid.mods.sodium.client.model;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.render.model.BasicBakedModel;
+import net.minecraft.util.math.Direction;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Resolves the quads of a multipart model for each block state. The parts of the model which apply to a block state
+ * are only matched once, and if none of those parts depend on the random source, their quads are combined up front
+ * into shared lists for each face so that no allocations are needed afterwards.
+ *
+ * This is safe to use from multiple threads, as the entries for each block state are immutable once created.
+ */
+public class MultipartQuadTable {
+    // The index of the quads which aren't assigned to any face
+    private static final int UNASSIGNED_INDEX = Direction.values().length;
+
+    private final List<Pair<Predicate<BlockState>, BakedModel>> components;
+    private final ConcurrentHashMap<BlockState, Entry> entries = new ConcurrentHashMap<>();
+
+    public MultipartQuadTable(List<Pair<Predicate<BlockState>, BakedModel>> components) {
+        this.components = components;
+    }
+
+    public List<BakedQuad> getQuads(BlockState state, Direction face, Random random) {
+        Entry entry = this.entries.get(state);
+
+        if (entry == null) {
+            entry = this.entries.computeIfAbsent(state, this::createEntry);
+        }
+
+        return entry.getQuads(state, face, random);
+    }
+
+    private Entry createEntry(BlockState state) {
+        List<BakedModel> models = new ArrayList<>(this.components.size());
+
+        for (Pair<Predicate<BlockState>, BakedModel> pair : this.components) {
+            if (pair.getLeft().test(state)) {
+                models.add(pair.getRight());
+            }
+        }
+
+        for (BakedModel model : models) {
+            // Subclasses are excluded as they could override the quads to depend on the random source
+            if (model.getClass() != BasicBakedModel.class) {
+                return new Entry(models.toArray(new BakedModel[0]), null);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<BakedQuad>[] quads = new List[UNASSIGNED_INDEX + 1];
+
+        for (int i = 0; i < quads.length; i++) {
+            Direction face = i == UNASSIGNED_INDEX ? null : Direction.byId(i);
+
+            List<BakedQuad> list = new ArrayList<>();
+
+            for (BakedModel model : models) {
+                list.addAll(model.getQuads(state, face, null));
+            }
+
+            quads[i] = list.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(list);
+        }
+
+        return new Entry(null, quads);
+    }
+
+    private static class Entry {
+        // The parts of the model which apply to the block state, or null if the quads have been combined
+        private final BakedModel[] models;
+
+        // The combined quads for each face, or null if they depend on the random source
+        private final List<BakedQuad>[] quads;
+
+        private Entry(BakedModel[] models, List<BakedQuad>[] quads) {
+            this.models = models;
+            this.quads = quads;
+        }
+
+        private List<BakedQuad> getQuads(BlockState state, Direction face, Random random) {
+            if (this.quads != null) {
+                return this.quads[face == null ? UNASSIGNED_INDEX : face.getId()];
+            }
+
+            List<BakedQuad> list = new ArrayList<>();
+
+            long seed = random.nextLong();
+
+            for (BakedModel model : this.models) {
+                random.setSeed(seed);
+
+                list.addAll(model.getQuads(state, face, random));
+            }
+
+            return list;
+        }
+    }
+}
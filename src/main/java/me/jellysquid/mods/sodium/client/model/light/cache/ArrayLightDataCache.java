@@ -1,6 +1,5 @@
 package me.jellysquid.mods.sodium.client.model.light.cache;
 
-import me.jellysquid.mods.sodium.client.model.light.data.LightDataAccess;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.BlockRenderView;
 
@@ -11,36 +10,20 @@ import java.util.Arrays;
  * neighbors. This is considerably faster than using a hash table to lookup values for a given block position and
  * can be re-used by {@link me.jellysquid.mods.sodium.client.world.WorldSlice} to avoid allocations.
  */
-public class ArrayLightDataCache extends LightDataAccess {
-    private static final int NEIGHBOR_BLOCK_RADIUS = 2;
-    private static final int BLOCK_LENGTH = 16 + (NEIGHBOR_BLOCK_RADIUS * 2);
-
+public class ArrayLightDataCache extends SectionLightDataCache {
     private final long[] light;
 
-    private int xOffset, yOffset, zOffset;
-
     public ArrayLightDataCache() {
         this.light = new long[BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_LENGTH];
     }
 
+    @Override
     public void init(BlockRenderView world, ChunkSectionPos origin) {
-        this.world = world;
-
-        this.xOffset = origin.getMinX() - NEIGHBOR_BLOCK_RADIUS;
-        this.yOffset = origin.getMinY() - NEIGHBOR_BLOCK_RADIUS;
-        this.zOffset = origin.getMinZ() - NEIGHBOR_BLOCK_RADIUS;
+        super.init(world, origin);
 
         Arrays.fill(this.light, 0L);
     }
 
-    private int index(int x, int y, int z) {
-        int x2 = x - this.xOffset;
-        int y2 = y - this.yOffset;
-        int z2 = z - this.zOffset;
-
-        return (z2 * BLOCK_LENGTH * BLOCK_LENGTH) + (y2 * BLOCK_LENGTH) + x2;
-    }
-
     @Override
     public long get(int x, int y, int z) {
         int l = this.index(x, y, z);
@@ -54,4 +37,4 @@ public class ArrayLightDataCache extends LightDataAccess {
         return this.light[l] = this.compute(x, y, z);
     }
 
-}
\ No newline at end of file
+}
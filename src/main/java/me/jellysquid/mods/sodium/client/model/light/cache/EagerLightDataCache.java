@@ -0,0 +1,151 @@
+package me.jellysquid.mods.sodium.client.model.light.cache;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import me.jellysquid.mods.sodium.client.model.light.data.LightDataAccess;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockRenderView;
+
+/**
+ * A light data cache which computes the light data of every block in a given chunk and its direct neighbors up front,
+ * instead of computing each block as it is first accessed.
+ *
+ * The occlusion properties of most block states don't depend on their position, so they are computed once for each
+ * block state and re-used for every block after that, leaving only the light map coordinates to be computed for each
+ * block. Block states with dynamic bounds are always computed in full. The fields of the light data are kept in
+ * separate arrays, which keeps the fill pass free of the packing logic and the arrays small.
+ */
+public class EagerLightDataCache extends SectionLightDataCache {
+    private static final int BLOCK_COUNT = BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_LENGTH;
+
+    // The flags stored for each block, which match the order of the flag bits in the packed light data
+    private static final int FLAG_OP = 0b01;
+    private static final int FLAG_FO = 0b10;
+
+    // The layout of the cached properties of each block state
+    private static final int STATE_AO_MASK = 0xFFFF;
+    private static final int STATE_OP = 1 << 16;
+    private static final int STATE_FO = 1 << 17;
+    private static final int STATE_EM = 1 << 18;
+    private static final int STATE_DYNAMIC = 1 << 19;
+    private static final int STATE_LUMINANCE_SHIFT = 20;
+
+    private final short[] ao = new short[BLOCK_COUNT];
+    private final int[] lightmap = new int[BLOCK_COUNT];
+    private final byte[] flags = new byte[BLOCK_COUNT];
+
+    // The properties of every block state which has been seen by this cache. Block states never change at runtime, so
+    // this is kept for the lifetime of the cache.
+    private final Reference2IntOpenHashMap<BlockState> stateProperties = new Reference2IntOpenHashMap<>();
+
+    private final BlockPos.Mutable pos = new BlockPos.Mutable();
+
+    public EagerLightDataCache() {
+        this.stateProperties.defaultReturnValue(-1);
+    }
+
+    @Override
+    public void init(BlockRenderView world, ChunkSectionPos origin) {
+        super.init(world, origin);
+
+        WorldSlice slice = world instanceof WorldSlice ? (WorldSlice) world : null;
+        BlockPos.Mutable pos = this.pos;
+
+        short[] ao = this.ao;
+        int[] lightmap = this.lightmap;
+        byte[] flags = this.flags;
+
+        BlockState prevState = null;
+        int props = 0;
+
+        int i = 0;
+
+        for (int z = this.zOffset; z < this.zOffset + BLOCK_LENGTH; z++) {
+            for (int y = this.yOffset; y < this.yOffset + BLOCK_LENGTH; y++) {
+                for (int x = this.xOffset; x < this.xOffset + BLOCK_LENGTH; x++, i++) {
+                    pos.set(x, y, z);
+
+                    BlockState state = slice != null ? slice.getBlockState(x, y, z) : world.getBlockState(pos);
+
+                    // Neighboring blocks are very often the same, so this avoids most of the hash table lookups
+                    if (state != prevState) {
+                        props = this.getStateProperties(state, world, pos);
+                        prevState = state;
+                    }
+
+                    if ((props & STATE_DYNAMIC) != 0) {
+                        long word = this.compute(x, y, z);
+
+                        ao[i] = (short) (word >>> 32);
+                        lightmap[i] = unpackLM(word);
+                        flags[i] = (byte) ((word >>> 56) & 0b11);
+
+                        continue;
+                    }
+
+                    boolean fo = (props & STATE_FO) != 0;
+                    boolean em = (props & STATE_EM) != 0;
+
+                    int lm;
+
+                    // See LightDataAccess#compute for why these cases are handled specially
+                    if (fo && !em) {
+                        lm = 0;
+                    } else if (slice != null) {
+                        lm = em ? 15728880 : slice.getLightmapCoordinates(x, y, z, props >>> STATE_LUMINANCE_SHIFT);
+                    } else {
+                        lm = WorldRenderer.getLightmapCoordinates(world, state, pos);
+                    }
+
+                    ao[i] = (short) (props & STATE_AO_MASK);
+                    lightmap[i] = lm;
+                    flags[i] = (byte) (((props & STATE_OP) != 0 ? FLAG_OP : 0) | (fo ? FLAG_FO : 0));
+                }
+            }
+        }
+    }
+
+    private int getStateProperties(BlockState state, BlockRenderView world, BlockPos pos) {
+        int props = this.stateProperties.getInt(state);
+
+        if (props == -1) {
+            this.stateProperties.put(state, props = computeStateProperties(state, world, pos));
+        }
+
+        return props;
+    }
+
+    /**
+     * Computes the properties of a block state which don't depend on its position, using the given position as an
+     * example. This mirrors {@link LightDataAccess#compute(int, int, int)}.
+     */
+    private static int computeStateProperties(BlockState state, BlockRenderView world, BlockPos pos) {
+        if (state.getBlock().hasDynamicBounds()) {
+            return STATE_DYNAMIC;
+        }
+
+        int luminance = state.getLuminance();
+        float ao = luminance == 0 ? state.getAmbientOcclusionLightLevel(world, pos) : 1.0f;
+
+        boolean op = state.getFluidState() != EMPTY_FLUID_STATE || state.getOpacity(world, pos) == 0;
+        boolean fo = state.isOpaqueFullCube(world, pos);
+        boolean em = state.hasEmissiveLighting(world, pos);
+
+        return ((int) (ao * 4096.0f) & STATE_AO_MASK) |
+                (op ? STATE_OP : 0) |
+                (fo ? STATE_FO : 0) |
+                (em ? STATE_EM : 0) |
+                (luminance << STATE_LUMINANCE_SHIFT);
+    }
+
+    @Override
+    public long get(int x, int y, int z) {
+        int i = this.index(x, y, z);
+
+        return ((long) (this.ao[i] & 0xFFFF) << 32) | ((long) this.lightmap[i] & 0xFFFFFFFFL) |
+                ((long) this.flags[i] << 56) | (1L << 60);
+    }
+}
@@ -0,0 +1,35 @@
+package me.jellysquid.mods.sodium.client.model.light.cache;
+
+import me.jellysquid.mods.sodium.client.model.light.data.LightDataAccess;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockRenderView;
+
+/**
+ * A light data cache which covers the blocks in a given chunk section and its direct neighbors, and which can be
+ * re-used for many sections by the same chunk build thread.
+ */
+public abstract class SectionLightDataCache extends LightDataAccess {
+    protected static final int NEIGHBOR_BLOCK_RADIUS = 2;
+    protected static final int BLOCK_LENGTH = 16 + (NEIGHBOR_BLOCK_RADIUS * 2);
+
+    protected int xOffset, yOffset, zOffset;
+
+    /**
+     * Prepares this cache for a new section, dropping all data of the previous section.
+     */
+    public void init(BlockRenderView world, ChunkSectionPos origin) {
+        this.world = world;
+
+        this.xOffset = origin.getMinX() - NEIGHBOR_BLOCK_RADIUS;
+        this.yOffset = origin.getMinY() - NEIGHBOR_BLOCK_RADIUS;
+        this.zOffset = origin.getMinZ() - NEIGHBOR_BLOCK_RADIUS;
+    }
+
+    protected int index(int x, int y, int z) {
+        int x2 = x - this.xOffset;
+        int y2 = y - this.yOffset;
+        int z2 = z - this.zOffset;
+
+        return (z2 * BLOCK_LENGTH * BLOCK_LENGTH) + (y2 * BLOCK_LENGTH) + x2;
+    }
+}
@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.model.light.data;
 
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.render.WorldRenderer;
 import net.minecraft.fluid.FluidState;
@@ -77,7 +78,16 @@ public abstract class LightDataAccess {
 
         // OPTIMIZE: Do not calculate lightmap data if the block is full and opaque.
         // FIX: Calculate lightmap data for emissive blocks (currently only magma), even though they are full and opaque.
-        int lm = (fo && !em) ? 0 : WorldRenderer.getLightmapCoordinates(world, state, pos);
+        int lm;
+
+        if (fo && !em) {
+            lm = 0;
+        } else if (world instanceof WorldSlice) {
+            // OPTIMIZE: World slices can read both light levels of a block with a single lookup
+            lm = ((WorldSlice) world).getLightmapCoordinates(state, pos);
+        } else {
+            lm = WorldRenderer.getLightmapCoordinates(world, state, pos);
+        }
 
         return packAO(ao) | packLM(lm) | packOP(op) | packFO(fo) | (1L << 60);
     }
@@ -77,6 +77,18 @@ public class VertexBufferBuilder implements VertexBufferView {
         return this.writerOffset;
     }
 
+    /**
+     * Discards everything past the given number of bytes, which can be used after the written data has been rewritten
+     * in place to a smaller size.
+     */
+    public void truncate(int size) {
+        if (size < 0 || size > this.writerOffset) {
+            throw new IllegalArgumentException("Size must be within the written data (size: " + size + ", written: " + this.writerOffset + ")");
+        }
+
+        this.writerOffset = size;
+    }
+
     /**
      * Ends the stream of written data and makes a copy of it to be passed around.
      */
@@ -15,6 +15,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.backends.gl30.GL30ChunkRend
 import me.jellysquid.mods.sodium.client.render.chunk.backends.gl43.GL43ChunkRenderBackend;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.format.xhfp.CompactXHFPModelVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import me.jellysquid.mods.sodium.client.render.pipeline.context.GlobalRenderContext;
@@ -27,6 +28,7 @@ import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.client.render.*;
 import net.minecraft.client.render.block.entity.BlockEntityRenderDispatcher;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
 import net.minecraft.client.render.model.ModelLoader;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.client.world.ClientWorld;
@@ -34,6 +36,7 @@ import net.minecraft.entity.Entity;
 import net.minecraft.util.math.*;
 import net.minecraft.util.profiler.Profiler;
 
+import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 
@@ -181,7 +184,7 @@ public class SodiumWorldRenderer implements ChunkStatusListener {
 
         Vec3d cameraPos = camera.getPos();
 
-        this.chunkRenderManager.setCameraPosition(cameraPos.x, cameraPos.y, cameraPos.z);
+        this.chunkRenderManager.setCameraState(cameraPos.x, cameraPos.y, cameraPos.z, (FrustumExtended) frustum);
 
         float pitch = camera.getPitch();
         float yaw = camera.getYaw();
@@ -191,6 +194,7 @@ public class SodiumWorldRenderer implements ChunkStatusListener {
 
         if (dirty) {
             this.chunkRenderManager.markDirty();
+            this.chunkRenderManager.reprioritizePendingBuilds();
         }
 
         this.lastCameraX = cameraPos.x;
@@ -259,14 +263,11 @@ public class SodiumWorldRenderer implements ChunkStatusListener {
 
         final ChunkVertexType vertexFormat;
 
-        /*if (opts.advanced.useCompactVertexFormat) {
-            vertexFormat = DefaultModelVertexFormats.MODEL_VERTEX_HFP;
+        if (opts.advanced.useCompactExtendedVertexFormat && CompactXHFPModelVertexType.isSupported()) {
+            vertexFormat = DefaultModelVertexFormats.MODEL_VERTEX_COMPACT_XHFP;
         } else {
-            vertexFormat = DefaultModelVertexFormats.MODEL_VERTEX_SFP;
-        }*/
-
-        // override it all
-        vertexFormat = DefaultModelVertexFormats.MODEL_VERTEX_XHFP;
+            vertexFormat = DefaultModelVertexFormats.MODEL_VERTEX_XHFP;
+        }
 
         this.chunkRenderBackend = createChunkRenderBackend(opts.advanced.chunkRendererBackend, vertexFormat);
         this.chunkRenderBackend.createShaders();
@@ -360,6 +361,10 @@ public class SodiumWorldRenderer implements ChunkStatusListener {
         this.chunkRenderManager.onChunkRenderUpdates(x, y, z, meshAfter);
     }
 
+    public void onChunkOcclusionUpdated(int x, int y, int z, ChunkOcclusionData occlusionData) {
+        this.chunkRenderManager.onChunkOcclusionUpdated(x, y, z, occlusionData);
+    }
+
     /**
      * Returns whether or not the entity intersects with any visible chunks in the graph.
      * @return True if the entity is visible, otherwise false
@@ -418,6 +423,28 @@ public class SodiumWorldRenderer implements ChunkStatusListener {
         this.scheduleRebuildForChunks(minX >> 4, minY >> 4, minZ >> 4, maxX >> 4, maxY >> 4, maxZ >> 4, important);
     }
 
+    /**
+     * Schedules chunk rebuilds for all chunks containing the given block or any of its neighbors after the block has
+     * changed. Since only a single block changed, these rebuilds can patch the existing meshes of each chunk.
+     */
+    public void scheduleRebuildForBlock(BlockPos pos, boolean important) {
+        int minX = (pos.getX() - 1) >> 4;
+        int minY = (pos.getY() - 1) >> 4;
+        int minZ = (pos.getZ() - 1) >> 4;
+
+        int maxX = (pos.getX() + 1) >> 4;
+        int maxY = (pos.getY() + 1) >> 4;
+        int maxZ = (pos.getZ() + 1) >> 4;
+
+        for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+            for (int chunkY = minY; chunkY <= maxY; chunkY++) {
+                for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                    this.chunkRenderManager.scheduleRebuild(chunkX, chunkY, chunkZ, important, pos);
+                }
+            }
+        }
+    }
+
     /**
      * Schedules chunk rebuilds for all chunks in the specified chunk region.
      */
@@ -441,4 +468,11 @@ public class SodiumWorldRenderer implements ChunkStatusListener {
     public ChunkRenderBackend<?> getChunkRenderer() {
         return this.chunkRenderBackend;
     }
+
+    /**
+     * @return The debug strings describing the state of the chunk build and upload queues
+     */
+    public List<String> getChunkBuilderDebugStrings() {
+        return this.chunkRenderManager.getDebugStrings();
+    }
 }
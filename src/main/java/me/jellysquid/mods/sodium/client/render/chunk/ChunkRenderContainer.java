@@ -1,11 +1,13 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import me.jellysquid.mods.sodium.client.render.SodiumWorldRenderer;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.texture.SpriteUtil;
 import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
 import net.minecraft.client.texture.Sprite;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkSectionPos;
@@ -18,6 +20,10 @@ import java.util.concurrent.CompletableFuture;
  * data about the render in the chunk visibility graph.
  */
 public class ChunkRenderContainer<T extends ChunkGraphicsState> {
+    // The maximum number of changed blocks which will be patched into the existing meshes instead of rebuilding the
+    // whole section
+    private static final int MAX_PATCHED_BLOCKS = 8;
+
     private final SodiumWorldRenderer worldRenderer;
     private final int chunkX, chunkY, chunkZ;
 
@@ -25,12 +31,31 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
     private final ChunkRenderColumn<T> column;
 
     private ChunkRenderData data = ChunkRenderData.ABSENT;
-    private CompletableFuture<Void> rebuildTask = null;
+    private CompletableFuture<?> rebuildTask = null;
+
+    // Incremented every time a build task or an occlusion update is created for this render. Results from any task
+    // other than the most recently created one are stale and will be discarded.
+    private int buildGeneration;
+
+    // The time at which the last build task was created for this render, used to coalesce frequent rebuilds
+    private long lastBuildTime;
+
+    // The generation of the most recently created task which rebuilds the meshes of this render, and the generation
+    // of the task whose meshes are currently applied. The meshes are out of date with the recorded block changes
+    // while these differ.
+    private int meshGeneration;
+    private int appliedGeneration;
+
+    // The positions of the blocks which have changed since the last rebuild, or null if the whole section must be
+    // rebuilt
+    private LongArrayList changedBlocks;
 
     private boolean needsRebuild;
     private boolean needsImportantRebuild;
+    private boolean needsOcclusionUpdate;
 
     private boolean tickable;
+    private boolean disposed;
     private int id;
 
     public ChunkRenderContainer(ChunkRenderBackend<T> backend, SodiumWorldRenderer worldRenderer, int chunkX, int chunkY, int chunkZ, ChunkRenderColumn<T> column) {
@@ -59,6 +84,59 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
         }
     }
 
+    /**
+     * Begins a new build for this render, cancelling any pending tasks and making their results stale.
+     * @return The generation of the new build, which should be attached to the build task's result
+     */
+    public int beginRebuild() {
+        this.cancelRebuildTask();
+        this.lastBuildTime = System.nanoTime();
+        this.changedBlocks = null;
+
+        // A full rebuild always produces new occlusion data
+        this.needsOcclusionUpdate = false;
+
+        return this.meshGeneration = ++this.buildGeneration;
+    }
+
+    /**
+     * Returns the positions of the blocks which need to be patched into this render's current meshes for the pending
+     * rebuild. This must be called before {@link ChunkRenderContainer#beginRebuild()}.
+     * @return The changed block positions, or null if the whole section must be rebuilt
+     */
+    public long[] getChangedBlocks() {
+        // The changes of a build which is still in flight (or which never produced a result) aren't part of the current
+        // meshes, so they can't be patched
+        if (this.changedBlocks == null || this.meshGeneration != this.appliedGeneration || !this.data.retainsGeometry()) {
+            return null;
+        }
+
+        return this.changedBlocks.toLongArray();
+    }
+
+    /**
+     * Attaches the future of the build task which is currently pending for this render, so that it can be cancelled
+     * once it's superseded.
+     */
+    public void setRebuildTask(CompletableFuture<?> task) {
+        this.rebuildTask = task;
+    }
+
+    /**
+     * @return The generation of the most recently created build task for this render
+     */
+    public int getBuildGeneration() {
+        return this.buildGeneration;
+    }
+
+    /**
+     * @return True if a build task was created for this render less than {@param window} nanoseconds before
+     * {@param time}, in which case further rebuilds should be delayed so that they can be coalesced
+     */
+    public boolean isWithinCoalescingWindow(long time, long window) {
+        return this.buildGeneration != 0 && time - this.lastBuildTime < window;
+    }
+
     public ChunkRenderData getData() {
         return this.data;
     }
@@ -86,6 +164,15 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
         this.cancelRebuildTask();
         this.setData(ChunkRenderData.ABSENT);
         this.deleteGraphicsState();
+
+        this.disposed = true;
+    }
+
+    /**
+     * @return True if this render has been deleted and any pending results for it should be discarded
+     */
+    public boolean isDisposed() {
+        return this.disposed;
     }
 
     private void deleteGraphicsState() {
@@ -101,6 +188,14 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
         }
     }
 
+    /**
+     * Updates the occlusion data of this render in the visibility graph without changing its meshes. This is used to
+     * keep the graph up-to-date for renders which are waiting to be rebuilt.
+     */
+    public void setOcclusionData(ChunkOcclusionData occlusionData) {
+        this.worldRenderer.onChunkOcclusionUpdated(this.chunkX, this.chunkY, this.chunkZ, occlusionData);
+    }
+
     public void setData(ChunkRenderData info) {
         if (info == null) {
             throw new NullPointerException("Mesh information must not be null");
@@ -108,6 +203,7 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
 
         this.worldRenderer.onChunkRenderUpdated(this.chunkX, this.chunkY, this.chunkZ, this.data, info);
         this.data = info;
+        this.appliedGeneration = this.meshGeneration;
 
         this.tickable = !info.getAnimatedSprites().isEmpty();
     }
@@ -118,6 +214,28 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
      * @param important True if the update is blocking, otherwise false
      */
     public boolean scheduleRebuild(boolean important) {
+        return this.scheduleRebuild(important, null);
+    }
+
+    /**
+     * Marks this render as needing an update because of a change to a single block. If only a few blocks change before
+     * the next rebuild, the rebuild can patch the existing meshes instead of rebuilding the whole section.
+     * @param important True if the update is blocking, otherwise false
+     * @param changedBlock The position of the block which changed, or null if the whole section must be rebuilt
+     */
+    public boolean scheduleRebuild(boolean important, BlockPos changedBlock) {
+        if (!this.needsRebuild) {
+            this.changedBlocks = changedBlock != null ? new LongArrayList(MAX_PATCHED_BLOCKS) : null;
+        }
+
+        if (this.changedBlocks != null) {
+            if (changedBlock == null || this.changedBlocks.size() >= MAX_PATCHED_BLOCKS) {
+                this.changedBlocks = null;
+            } else {
+                this.changedBlocks.add(changedBlock.asLong());
+            }
+        }
+
         boolean changed = !this.needsRebuild || (!this.needsImportantRebuild && important);
 
         this.needsImportantRebuild = important;
@@ -126,6 +244,41 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
         return changed;
     }
 
+    /**
+     * Marks this render as needing its occlusion data to be re-computed without rebuilding its meshes.
+     * @return True if the render was not already marked as needing an occlusion update
+     */
+    public boolean scheduleOcclusionUpdate() {
+        boolean changed = !this.needsOcclusionUpdate;
+        this.needsOcclusionUpdate = true;
+
+        return changed;
+    }
+
+    /**
+     * @return True if the render's occlusion data is out of date with the world state
+     */
+    public boolean needsOcclusionUpdate() {
+        return this.needsOcclusionUpdate;
+    }
+
+    /**
+     * Begins an update of only the occlusion data of this render, clearing the flag set by
+     * {@link ChunkRenderContainer#scheduleOcclusionUpdate()}. Any pending build task is cancelled and its result made
+     * stale, as its occlusion data would be older than the update's. The render stays marked as needing a rebuild.
+     * @return The generation of the update, which should be attached to the update task's result
+     */
+    public int beginOcclusionUpdate() {
+        this.needsOcclusionUpdate = false;
+
+        if (this.rebuildTask != null) {
+            this.rebuildTask.cancel(false);
+            this.rebuildTask = null;
+        }
+
+        return ++this.buildGeneration;
+    }
+
     /**
      * @return True if the chunk render contains no data, otherwise false
      */
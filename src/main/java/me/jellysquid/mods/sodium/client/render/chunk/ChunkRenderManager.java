@@ -1,5 +1,7 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
+import it.unimi.dsi.fastutil.Arrays;
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
 import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
@@ -24,13 +26,16 @@ import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
 import me.jellysquid.mods.sodium.client.world.ChunkStatusListener;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.common.util.DirectionUtil;
 import me.jellysquid.mods.sodium.common.util.IdTable;
 import me.jellysquid.mods.sodium.common.util.collections.FutureDequeDrain;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.Vec3d;
@@ -39,7 +44,9 @@ import net.minecraft.world.chunk.ChunkSection;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkStatusListener {
     /**
@@ -61,6 +68,13 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
      */
     private static final float FOG_PLANE_OFFSET = 12.0f;
 
+    /**
+     * The minimum amount of time between two rebuilds of the same chunk, unless the rebuild was explicitly requested as
+     * important (i.e. when the player places or breaks a block.) Rebuilds requested within this window are delayed so
+     * that rapidly changing chunks (such as those containing redstone clocks) are only meshed for their newest state.
+     */
+    private static final long REBUILD_COALESCING_WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
     private final ChunkBuilder<T> builder;
     private final ChunkRenderBackend<T> backend;
 
@@ -68,7 +82,11 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
     private final IdTable<ChunkRenderContainer<T>> renders = new IdTable<>(16384);
 
     private final ObjectArrayFIFOQueue<ChunkRenderContainer<T>> importantRebuildQueue = new ObjectArrayFIFOQueue<>();
-    private final ObjectArrayFIFOQueue<ChunkRenderContainer<T>> rebuildQueue = new ObjectArrayFIFOQueue<>();
+    private final ObjectArrayList<ChunkRenderContainer<T>> rebuildQueue = new ObjectArrayList<>();
+    private double[] rebuildPriorities = DoubleArrays.EMPTY_ARRAY;
+    private final ObjectList<ChunkRenderContainer<T>> coalescedRebuilds = new ObjectArrayList<>();
+    private final ObjectList<ChunkRenderContainer<T>> rebuildRun = new ObjectArrayList<>();
+    private final ObjectArrayFIFOQueue<ChunkRenderContainer<T>> occlusionUpdateQueue = new ObjectArrayFIFOQueue<>();
 
     @SuppressWarnings("unchecked")
     private final ChunkRenderList<T>[] chunkRenderLists = new ChunkRenderList[BlockRenderPass.COUNT];
@@ -153,7 +171,7 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
             if (render.needsImportantRebuild()) {
                 this.importantRebuildQueue.enqueue(render);
             } else {
-                this.rebuildQueue.enqueue(render);
+                this.rebuildQueue.add(render);
             }
         }
 
@@ -379,6 +397,12 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
             render.setData(ChunkRenderData.EMPTY);
         } else {
             render.scheduleRebuild(false);
+
+            // Compute the occlusion data of the section ahead of its mesh if the graph search doesn't reach it, so that
+            // it can still cull any sections behind it before they are ever built
+            if (render.scheduleOcclusionUpdate()) {
+                this.occlusionUpdateQueue.enqueue(render);
+            }
         }
 
         render.setId(this.renders.add(render));
@@ -414,6 +438,11 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
         while (!this.importantRebuildQueue.isEmpty()) {
             ChunkRenderContainer<T> render = this.importantRebuildQueue.dequeue();
 
+            // The render may have been enqueued more than once, so skip it if it has already been rebuilt
+            if (!render.needsRebuild()) {
+                continue;
+            }
+
             // Do not allow distant chunks to block rendering
             if (!this.isChunkPrioritized(render)) {
                 this.builder.deferRebuild(render);
@@ -425,15 +454,70 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
             submitted++;
         }
 
-        while (submitted < budget && !this.rebuildQueue.isEmpty()) {
-            ChunkRenderContainer<T> render = this.rebuildQueue.dequeue();
+        long time = System.nanoTime();
+
+        // The queues of the workers are too short to reorder more than a few tasks, so the budget is spent on the chunks
+        // closest to the player's view first rather than in the order the graph search found them
+        this.sortRebuildQueue();
+
+        int next = 0;
+
+        while (submitted < budget && next < this.rebuildQueue.size()) {
+            ChunkRenderContainer<T> render = this.rebuildQueue.get(next++);
+
+            if (!render.needsRebuild()) {
+                continue;
+            }
+
+            // Chunks which were rebuilt very recently are held back so that further changes can be merged into the
+            // same rebuild
+            if (render.isWithinCoalescingWindow(time, REBUILD_COALESCING_WINDOW)) {
+                this.coalescedRebuilds.add(render);
+                continue;
+            }
+
+            // Rebuild any other dirty sections directly above or below this one in the same task, so that they can
+            // share a single world slice
+            this.collectRebuildRun(render, time);
+
+            this.builder.deferRebuilds(this.rebuildRun);
+            submitted += this.rebuildRun.size();
+
+            this.rebuildRun.clear();
+        }
+
+        this.rebuildQueue.removeElements(0, next);
+        this.rebuildQueue.addAll(this.coalescedRebuilds);
+
+        this.coalescedRebuilds.clear();
+
+        // Occlusion updates only get the budget which is left after the visible sections have been scheduled
+        int occlusionUpdates = this.occlusionUpdateQueue.size();
+
+        while (submitted < budget && occlusionUpdates-- > 0) {
+            ChunkRenderContainer<T> render = this.occlusionUpdateQueue.dequeue();
+
+            // The render may have been unloaded or fully rebuilt since the update was requested
+            if (render.isDisposed() || !render.needsOcclusionUpdate()) {
+                continue;
+            }
+
+            // Sections which the graph search reaches are fully rebuilt instead, which computes their occlusion data
+            // as well, so they are kept in the queue in case they are hidden before that happens
+            if (this.culler.isSectionVisible(render.getChunkX(), render.getChunkY(), render.getChunkZ())) {
+                this.occlusionUpdateQueue.enqueue(render);
+                continue;
+            }
 
-            this.builder.deferRebuild(render);
+            this.builder.deferOcclusionUpdate(render);
             submitted++;
         }
 
         this.dirty |= submitted > 0;
 
+        // Let the builder adapt its number of workers to the rebuilds which couldn't be scheduled this frame
+        this.builder.updateActiveWorkers(this.rebuildQueue.size());
+
         // Try to complete some other work on the main thread while we wait for rebuilds to complete
         this.dirty |= this.builder.performPendingUploads();
 
@@ -442,6 +526,66 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
         }
     }
 
+    /**
+     * Sorts the pending rebuilds by the priority their tasks will be given by the chunk builder, so that the most
+     * important ones are scheduled first.
+     */
+    private void sortRebuildQueue() {
+        ObjectArrayList<ChunkRenderContainer<T>> queue = this.rebuildQueue;
+        int count = queue.size();
+
+        if (count < 2) {
+            return;
+        }
+
+        double[] priorities = this.rebuildPriorities = DoubleArrays.ensureCapacity(this.rebuildPriorities, count);
+
+        for (int i = 0; i < count; i++) {
+            priorities[i] = this.builder.getTaskPriority(queue.get(i));
+        }
+
+        Arrays.quickSort(0, count, (a, b) -> Double.compare(priorities[a], priorities[b]), (a, b) -> {
+            ChunkRenderContainer<T> render = queue.get(a);
+            queue.set(a, queue.get(b));
+            queue.set(b, render);
+
+            double priority = priorities[a];
+            priorities[a] = priorities[b];
+            priorities[b] = priority;
+        });
+    }
+
+    /**
+     * Collects the longest vertical run of visible renders around the given render which are all waiting for a regular
+     * rebuild, up to the number of sections which can share a world slice.
+     */
+    private void collectRebuildRun(ChunkRenderContainer<T> render, long time) {
+        int x = render.getChunkX();
+        int z = render.getChunkZ();
+
+        int minY = render.getChunkY();
+        int maxY = render.getChunkY();
+
+        while (maxY - minY + 1 < WorldSlice.MAX_ORIGIN_SECTIONS && this.canBatchRebuild(x, minY - 1, z, time)) {
+            minY--;
+        }
+
+        while (maxY - minY + 1 < WorldSlice.MAX_ORIGIN_SECTIONS && this.canBatchRebuild(x, maxY + 1, z, time)) {
+            maxY++;
+        }
+
+        for (int y = minY; y <= maxY; y++) {
+            this.rebuildRun.add(y == render.getChunkY() ? render : this.getRender(x, y, z));
+        }
+    }
+
+    private boolean canBatchRebuild(int x, int y, int z, long time) {
+        ChunkRenderContainer<T> render = this.getRender(x, y, z);
+
+        return render != null && render.needsRebuild() && !render.needsImportantRebuild() && render.canRebuild() &&
+                !render.isWithinCoalescingWindow(time, REBUILD_COALESCING_WINDOW) && this.culler.isSectionVisible(x, y, z);
+    }
+
     public void markDirty() {
         this.dirty = true;
     }
@@ -461,15 +605,23 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
     }
 
     public boolean isBuildComplete() {
-        return this.builder.isBuildQueueEmpty();
+        return this.builder.isBuildQueueEmpty() && this.builder.isUploadQueueEmpty();
+    }
+
+    public void setCameraState(double x, double y, double z, FrustumExtended frustum) {
+        this.builder.setCameraState(x, y, z, frustum);
     }
 
-    public void setCameraPosition(double x, double y, double z) {
-        this.builder.setCameraPosition(x, y, z);
+    /**
+     * Re-ranks any build tasks which are still waiting for a worker using the latest camera state.
+     */
+    public void reprioritizePendingBuilds() {
+        this.builder.reprioritizePendingTasks();
     }
 
     public void destroy() {
         this.reset();
+        this.occlusionUpdateQueue.clear();
 
         for (ChunkRenderColumn<T> column : this.columns.values()) {
             this.unloadSections(column);
@@ -485,22 +637,40 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
     }
 
     public void scheduleRebuild(int x, int y, int z, boolean important) {
+        this.scheduleRebuild(x, y, z, important, null);
+    }
+
+    /**
+     * Schedules a rebuild of the chunk section at the given position.
+     * @param changedBlock The position of the single block which changed, or null if any part of the section may have
+     *                     changed. Rebuilds caused by a few changed blocks can be performed by patching the section's
+     *                     existing meshes.
+     */
+    public void scheduleRebuild(int x, int y, int z, boolean important, BlockPos changedBlock) {
         ChunkRenderContainer<T> render = this.getRender(x, y, z);
 
         if (render != null) {
-            // Nearby chunks are always rendered immediately
-            important = important || this.isChunkPrioritized(render);
-
-            // Only enqueue chunks for updates if they aren't already enqueued for an update
-            //
-            // We should avoid rebuilding chunks that aren't visible by using data from the occlusion culler, however
-            // that is not currently feasible because occlusion culling data is only ever updated when chunks are
-            // rebuilt. Computation of occlusion data needs to be isolated from chunk rebuilds for that to be feasible.
-            //
-            // TODO: Avoid rebuilding chunks that aren't visible to the player
-            if (render.scheduleRebuild(important)) {
-                (render.needsImportantRebuild() ? this.importantRebuildQueue : this.rebuildQueue)
-                        .enqueue(render);
+            // Nearby chunks are rendered immediately, unless they were rebuilt so recently that the update should be
+            // coalesced with any others following it
+            important = important || (this.isChunkPrioritized(render) &&
+                    !render.isWithinCoalescingWindow(System.nanoTime(), REBUILD_COALESCING_WINDOW));
+
+            // Chunks which aren't visible to the player only have their occlusion data updated, which keeps the graph
+            // correct without paying for a mesh. They remain marked for a rebuild, so they will be meshed as soon as
+            // the graph search reaches them again.
+            if (!important && !render.needsImportantRebuild() && !this.culler.isSectionVisible(x, y, z)) {
+                render.scheduleRebuild(false, changedBlock);
+
+                if (render.scheduleOcclusionUpdate()) {
+                    this.occlusionUpdateQueue.enqueue(render);
+                }
+            } else if (render.scheduleRebuild(important, changedBlock)) {
+                // Only enqueue chunks for updates if they aren't already enqueued for an update
+                if (render.needsImportantRebuild()) {
+                    this.importantRebuildQueue.enqueue(render);
+                } else {
+                    this.rebuildQueue.add(render);
+                }
             }
 
             this.dirty = true;
@@ -515,7 +685,16 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
         return this.visibleChunkCount;
     }
 
+    public List<String> getDebugStrings() {
+        return this.builder.getDebugStrings();
+    }
+
     public void onChunkRenderUpdates(int x, int y, int z, ChunkRenderData data) {
-        this.culler.onSectionStateChanged(x, y, z, data.getOcclusionData());
+        this.onChunkOcclusionUpdated(x, y, z, data.getOcclusionData());
+    }
+
+    public void onChunkOcclusionUpdated(int x, int y, int z, ChunkOcclusionData occlusionData) {
+        this.culler.onSectionStateChanged(x, y, z, occlusionData);
+        this.dirty = true;
     }
 }
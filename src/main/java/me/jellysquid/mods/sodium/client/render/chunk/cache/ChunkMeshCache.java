@@ -0,0 +1,531 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cache;
+
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
+import me.jellysquid.mods.sodium.client.gl.buffer.VertexData;
+import me.jellysquid.mods.sodium.client.gl.util.BufferSlice;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.client.texture.SpriteAtlasTexture;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Stores the meshes of chunk sections on disk so that they don't need to be built again the next time the same
+ * section is loaded, such as after re-joining a server or returning to a dimension. Entries are identified by a
+ * {@link ChunkMeshKey}, so a stored mesh is only ever used for a section with exactly the same contents.
+ *
+ * Cached files are memory-mapped when read, which allows the vertex data to be handed to the graphics driver without
+ * being copied into a separate buffer first. The total size of the cache is capped, and the least recently used
+ * entries are deleted whenever the cap is exceeded. Entries are never updated in place, since the same key always
+ * refers to the same meshes.
+ *
+ * All methods are safe to call from any thread. Entries are read and written by the build tasks themselves, so the
+ * main thread never touches the disk.
+ */
+public class ChunkMeshCache {
+    private static final Logger LOGGER = LogManager.getLogger("ChunkMeshCache");
+
+    /**
+     * The version of the file format. This must be changed whenever the file format or anything about how meshes
+     * are built changes, as it is part of the environment hash of every key.
+     */
+    static final int VERSION = 2;
+
+    private static final int MAGIC = 0x534D4348; // "SMCH"
+
+    private static final String FILE_EXTENSION = ".mesh";
+
+    private final Path directory;
+    private final long maxSize;
+    private final GlVertexFormat<?> vertexFormat;
+
+    // The size of each entry on disk, ordered from the least recently used entry to the most recently used one
+    private final LinkedHashMap<ChunkMeshKey, Long> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long totalSize;
+
+    private long hits, misses, stores;
+
+    /**
+     * Opens the cache in the given directory, creating it if it does not exist. Any entries already in the directory
+     * are indexed, and the oldest entries are evicted if they exceed the size limit.
+     * @param directory The directory to store cached meshes in
+     * @param maxSize The maximum number of bytes the cache can use on disk
+     * @param vertexFormat The vertex format of the meshes in this cache
+     */
+    public ChunkMeshCache(Path directory, long maxSize, GlVertexFormat<?> vertexFormat) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.vertexFormat = vertexFormat;
+
+        try {
+            Files.createDirectories(directory);
+
+            this.scanEntries();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to scan the mesh cache in {}", directory, e);
+        }
+
+        this.deleteFiles(this.evict());
+
+        LOGGER.info("Opened mesh cache with {} entries ({} MiB)", this.entries.size(), this.totalSize / 1024L / 1024L);
+    }
+
+    private void scanEntries() throws IOException {
+        List<Path> files = new ArrayList<>();
+        List<Path> invalid = new ArrayList<>();
+
+        try (Stream<Path> stream = Files.walk(this.directory, 2)) {
+            stream.filter(Files::isRegularFile).forEach(path -> {
+                if (getKey(path) != null) {
+                    files.add(path);
+                } else {
+                    // Temporary files left behind by a crash and anything else we don't recognize
+                    invalid.add(path);
+                }
+            });
+        }
+
+        List<Map.Entry<Path, BasicFileAttributes>> attributes = new ArrayList<>(files.size());
+
+        for (Path path : files) {
+            attributes.add(new AbstractMap.SimpleImmutableEntry<>(path, Files.readAttributes(path, BasicFileAttributes.class)));
+        }
+
+        // The modification time of an entry is updated whenever it is used, so it tells us the order of last use
+        attributes.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+
+        synchronized (this.entries) {
+            for (Map.Entry<Path, BasicFileAttributes> entry : attributes) {
+                long size = entry.getValue().size();
+
+                this.entries.put(getKey(entry.getKey()), size);
+                this.totalSize += size;
+            }
+        }
+
+        this.deleteFiles(invalid);
+    }
+
+    /**
+     * Maps the entry for the given key into memory and creates the render data for it. The sprites used by the meshes
+     * are looked up in the block atlas, which like the rest of the block models must not be reloaded while build tasks
+     * are running.
+     * @param key The key of the section
+     * @param origin The position of the section, used to translate the stored bounds into world space
+     * @return The cached entry, or null if no valid entry exists for the key
+     */
+    public Entry load(ChunkMeshKey key, ChunkSectionPos origin) {
+        synchronized (this.entries) {
+            if (this.entries.get(key) == null) {
+                this.misses++;
+
+                return null;
+            }
+        }
+
+        Path path = this.getPath(key);
+
+        try {
+            MappedByteBuffer buffer;
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+
+            ChunkRenderData data = this.read(buffer, origin);
+
+            // Keep the order of last use across sessions
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+
+            synchronized (this.entries) {
+                this.hits++;
+            }
+
+            return new Entry(data, buffer);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to read cached mesh {}, it will be removed", path, e);
+
+            this.remove(key);
+
+            synchronized (this.entries) {
+                this.misses++;
+            }
+
+            return null;
+        }
+    }
+
+    private ChunkRenderData read(ByteBuffer buffer, ChunkSectionPos origin) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Invalid header");
+        }
+
+        ChunkRenderData.Builder renderData = new ChunkRenderData.Builder();
+        renderData.setOcclusionData(readOcclusionData(buffer.getLong()));
+        renderData.setBounds(new ChunkRenderBounds(
+                origin.getMinX() + buffer.getFloat(), origin.getMinY() + buffer.getFloat(), origin.getMinZ() + buffer.getFloat(),
+                origin.getMinX() + buffer.getFloat(), origin.getMinY() + buffer.getFloat(), origin.getMinZ() + buffer.getFloat()));
+
+        Function<Identifier, Sprite> atlas = MinecraftClient.getInstance().getSpriteAtlas(SpriteAtlasTexture.BLOCK_ATLAS_TEX);
+        int spriteCount = buffer.getShort();
+
+        for (int i = 0; i < spriteCount; i++) {
+            byte[] bytes = new byte[buffer.getShort()];
+            buffer.get(bytes);
+
+            renderData.addSprite(atlas.apply(new Identifier(new String(bytes, StandardCharsets.UTF_8))));
+        }
+
+        int meshCount = buffer.get();
+
+        BlockRenderPass[] passes = new BlockRenderPass[meshCount];
+        ChunkMeshData[] meshes = new ChunkMeshData[meshCount];
+        int[] lengths = new int[meshCount];
+
+        for (int i = 0; i < meshCount; i++) {
+            ChunkMeshData mesh = new ChunkMeshData();
+
+            passes[i] = BlockRenderPass.VALUES[buffer.get()];
+            int sliceCount = buffer.get();
+
+            for (int j = 0; j < sliceCount; j++) {
+                ModelQuadFacing facing = ModelQuadFacing.VALUES[buffer.get()];
+                mesh.setModelSlice(facing, new BufferSlice(buffer.getInt(), buffer.getInt()));
+            }
+
+            meshes[i] = mesh;
+            lengths[i] = buffer.getInt();
+        }
+
+        // The vertex data of every mesh follows the header, and each mesh simply takes a view of the mapped file
+        int offset = buffer.position();
+
+        for (int i = 0; i < meshCount; i++) {
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset);
+            view.limit(offset + lengths[i]);
+
+            meshes[i].setVertexData(new VertexData(view.slice(), this.vertexFormat));
+            renderData.setMesh(passes[i], meshes[i]);
+
+            offset += lengths[i];
+        }
+
+        return renderData.build();
+    }
+
+    /**
+     * Writes the meshes of a newly built section to the cache. Sections with block entities are never cached, since
+     * block entities can't be restored from disk. This must be called before the meshes are uploaded.
+     * @param key The key of the section
+     * @param data The render data of the section
+     * @param origin The position of the section
+     */
+    public void store(ChunkMeshKey key, ChunkRenderData data, ChunkSectionPos origin) {
+        if (!data.getBlockEntities().isEmpty() || !data.getGlobalBlockEntities().isEmpty()) {
+            return;
+        }
+
+        synchronized (this.entries) {
+            if (this.entries.containsKey(key)) {
+                return;
+            }
+        }
+
+        Path path = this.getPath(key);
+        Path tempPath = path.resolveSibling(path.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+
+        long size;
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            ByteBuffer[] buffers = this.write(data, origin);
+
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                size = 0;
+
+                for (ByteBuffer buffer : buffers) {
+                    size += buffer.remaining();
+                }
+
+                long written = 0;
+
+                while (written < size) {
+                    written += channel.write(buffers);
+                }
+            }
+
+            // Entries are only ever visible once they have been completely written
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write cached mesh {}", path, e);
+
+            this.deleteFiles(Collections.singletonList(tempPath));
+
+            return;
+        }
+
+        List<Path> evicted;
+
+        synchronized (this.entries) {
+            Long prev = this.entries.put(key, size);
+
+            if (prev != null) {
+                this.totalSize -= prev;
+            }
+
+            this.totalSize += size;
+            this.stores++;
+
+            evicted = this.evict();
+        }
+
+        this.deleteFiles(evicted);
+    }
+
+    private ByteBuffer[] write(ChunkRenderData data, ChunkSectionPos origin) {
+        List<BlockRenderPass> passes = new ArrayList<>();
+        List<ByteBuffer> vertexData = new ArrayList<>();
+
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            ChunkMeshData mesh = data.getMesh(pass);
+
+            if (mesh.hasVertexData()) {
+                passes.add(pass);
+                vertexData.add(mesh.getVertexData().buffer);
+            }
+        }
+
+        List<byte[]> sprites = new ArrayList<>();
+
+        for (Sprite sprite : data.getAnimatedSprites()) {
+            sprites.add(sprite.getId().toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        int headerSize = 4 + 4 + 8 + (6 * 4) + 2 + 1;
+
+        for (byte[] sprite : sprites) {
+            headerSize += 2 + sprite.length;
+        }
+
+        for (BlockRenderPass pass : passes) {
+            headerSize += 1 + 1 + (ModelQuadFacing.COUNT * 9) + 4;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(writeOcclusionData(data.getOcclusionData()));
+
+        ChunkRenderBounds bounds = data.getBounds();
+        header.putFloat(bounds.x1 - origin.getMinX());
+        header.putFloat(bounds.y1 - origin.getMinY());
+        header.putFloat(bounds.z1 - origin.getMinZ());
+        header.putFloat(bounds.x2 - origin.getMinX());
+        header.putFloat(bounds.y2 - origin.getMinY());
+        header.putFloat(bounds.z2 - origin.getMinZ());
+
+        header.putShort((short) sprites.size());
+
+        for (byte[] sprite : sprites) {
+            header.putShort((short) sprite.length);
+            header.put(sprite);
+        }
+
+        header.put((byte) passes.size());
+
+        for (int i = 0; i < passes.size(); i++) {
+            ChunkMeshData mesh = data.getMesh(passes.get(i));
+
+            header.put((byte) passes.get(i).ordinal());
+
+            int sliceCountPosition = header.position();
+            int sliceCount = 0;
+
+            header.put((byte) 0);
+
+            for (Map.Entry<ModelQuadFacing, BufferSlice> entry : mesh.getSlices()) {
+                header.put((byte) entry.getKey().ordinal());
+                header.putInt(entry.getValue().start);
+                header.putInt(entry.getValue().len);
+
+                sliceCount++;
+            }
+
+            header.put(sliceCountPosition, (byte) sliceCount);
+            header.putInt(vertexData.get(i).capacity());
+        }
+
+        header.flip();
+
+        ByteBuffer[] buffers = new ByteBuffer[1 + vertexData.size()];
+        buffers[0] = header;
+
+        for (int i = 0; i < vertexData.size(); i++) {
+            ByteBuffer buffer = vertexData.get(i).duplicate();
+            buffer.clear();
+
+            buffers[1 + i] = buffer;
+        }
+
+        return buffers;
+    }
+
+    private static long writeOcclusionData(ChunkOcclusionData data) {
+        long bits = 0L;
+
+        for (Direction from : Direction.values()) {
+            for (Direction to : Direction.values()) {
+                if (data.isVisibleThrough(from, to)) {
+                    bits |= 1L << (from.ordinal() * 6 + to.ordinal());
+                }
+            }
+        }
+
+        return bits;
+    }
+
+    private static ChunkOcclusionData readOcclusionData(long bits) {
+        ChunkOcclusionData data = new ChunkOcclusionData();
+
+        for (Direction from : Direction.values()) {
+            for (Direction to : Direction.values()) {
+                data.setVisibleThrough(from, to, (bits & (1L << (from.ordinal() * 6 + to.ordinal()))) != 0L);
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits within its size limit.
+     * @return The files of the removed entries, which should be deleted after the lock is released
+     */
+    private List<Path> evict() {
+        List<Path> evicted = new ArrayList<>();
+
+        synchronized (this.entries) {
+            Iterator<Map.Entry<ChunkMeshKey, Long>> it = this.entries.entrySet().iterator();
+
+            while (this.totalSize > this.maxSize && it.hasNext()) {
+                Map.Entry<ChunkMeshKey, Long> entry = it.next();
+                it.remove();
+
+                this.totalSize -= entry.getValue();
+
+                evicted.add(this.getPath(entry.getKey()));
+            }
+        }
+
+        return evicted;
+    }
+
+    private void remove(ChunkMeshKey key) {
+        synchronized (this.entries) {
+            Long size = this.entries.remove(key);
+
+            if (size != null) {
+                this.totalSize -= size;
+            }
+        }
+
+        this.deleteFiles(Collections.singletonList(this.getPath(key)));
+    }
+
+    private void deleteFiles(List<Path> paths) {
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // This can happen on some platforms if the file is still mapped, and it will be retried on the next scan
+                LOGGER.debug("Failed to delete cached mesh {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Entries are spread over sub-directories by the first two characters of their key, since some file systems
+     * don't handle very large directories well.
+     */
+    private Path getPath(ChunkMeshKey key) {
+        String name = key.toString();
+
+        return this.directory.resolve(name.substring(0, 2))
+                .resolve(name + FILE_EXTENSION);
+    }
+
+    private static ChunkMeshKey getKey(Path path) {
+        String name = path.getFileName().toString();
+
+        if (!name.endsWith(FILE_EXTENSION)) {
+            return null;
+        }
+
+        return ChunkMeshKey.parse(name.substring(0, name.length() - FILE_EXTENSION.length()));
+    }
+
+    public String getDebugString() {
+        synchronized (this.entries) {
+            return String.format("Mesh Cache: %d hits, %d misses, %d stored (%d entries, %d MiB)", this.hits, this.misses,
+                    this.stores, this.entries.size(), this.totalSize / 1024L / 1024L);
+        }
+    }
+
+    /**
+     * The render data of a cached section along with the mapped file which backs its vertex data.
+     */
+    public static class Entry {
+        private final ChunkRenderData data;
+        private final MappedByteBuffer buffer;
+
+        private Entry(ChunkRenderData data, MappedByteBuffer buffer) {
+            this.data = data;
+            this.buffer = buffer;
+        }
+
+        public ChunkRenderData getData() {
+            return this.data;
+        }
+
+        /**
+         * Loads the contents of the mapped file into physical memory, so that the main thread doesn't stall on page
+         * faults when the vertex data is uploaded. This should be called off the main thread.
+         */
+        public void prefetch() {
+            this.buffer.load();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cache;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A simple streaming hash function which produces 128-bit digests. This is not a cryptographic hash, but with two
+ * independently mixed 64-bit lanes the chance of two different sections colliding is small enough to be ignored.
+ */
+class ChunkMeshHasher {
+    private static final long PRIME_1 = 0x9E3779B97F4A7C15L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+
+    private long h1, h2;
+
+    ChunkMeshHasher(long seed) {
+        this.h1 = seed ^ PRIME_1;
+        this.h2 = Long.rotateLeft(seed, 32) ^ PRIME_2;
+    }
+
+    void putLong(long value) {
+        this.h1 = Long.rotateLeft(this.h1 ^ (value * PRIME_3), 27) * PRIME_1 + PRIME_4;
+        this.h2 = (Long.rotateLeft(this.h2 + (value * PRIME_4), 31) * PRIME_2) ^ this.h1;
+    }
+
+    void putInt(int value) {
+        this.putLong(value & 0xFFFFFFFFL);
+    }
+
+    void putLongs(long[] values) {
+        this.putInt(values.length);
+
+        for (long value : values) {
+            this.putLong(value);
+        }
+    }
+
+    void putBytes(byte[] bytes) {
+        this.putInt(bytes.length);
+
+        int i = 0;
+
+        for (; i + 8 <= bytes.length; i += 8) {
+            long value = 0L;
+
+            for (int j = 0; j < 8; j++) {
+                value |= (bytes[i + j] & 0xFFL) << (j * 8);
+            }
+
+            this.putLong(value);
+        }
+
+        for (; i < bytes.length; i++) {
+            this.putLong(bytes[i]);
+        }
+    }
+
+    void putString(String str) {
+        this.putBytes(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    long getHigh() {
+        return mix(this.h1 ^ Long.rotateLeft(this.h2, 17));
+    }
+
+    long getLow() {
+        return mix(this.h2 ^ Long.rotateLeft(this.h1, 41));
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+
+        return k;
+    }
+}
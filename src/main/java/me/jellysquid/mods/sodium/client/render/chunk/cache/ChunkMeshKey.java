@@ -0,0 +1,260 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cache;
+
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.xhfp.XHFPQuadMerger;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import me.jellysquid.mods.sodium.client.world.ClientWorldExtended;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.coderbot.iris.Iris;
+import net.coderbot.iris.shaderpack.IdMap;
+import net.coderbot.iris.shaderpack.ShaderPack;
+import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.ModContainer;
+import net.fabricmc.loader.api.metadata.ModMetadata;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.biome.source.BiomeArray;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Identifies the contents of a chunk section and everything else which affects the meshes built for it. Two sections
+ * with the same key will always produce the same meshes, so the key can be used to look up previously built meshes.
+ *
+ * The key covers the blocks and light levels of the section and the area around it which is copied into its world
+ * slice, the biomes of the surrounding chunks, and the position of the section (since random model offsets and biome
+ * sampling depend on it.)
+ * Everything which is the same for every section in a session, such as the game and mod versions, the enabled resource
+ * packs and the vertex format, is folded into an environment hash which seeds the key.
+ */
+public class ChunkMeshKey {
+    // The prefix of the names of resource packs which are loaded from the resource pack directory
+    private static final String FILE_PACK_PREFIX = "file/";
+
+    private final long high, low;
+
+    private ChunkMeshKey(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Computes the key for the current origin section of a world slice from the data which was copied into it. Only
+     * the blocks and light levels within the neighbor radius of the section are included, since nothing further away
+     * is ever sampled while building its meshes. This is safe to call from the thread which is using the slice.
+     * @param slice The world slice, with its origin set to the section
+     * @param environment The environment hash created by {@link ChunkMeshKey#createEnvironmentHash}
+     */
+    public static ChunkMeshKey create(WorldSlice slice, long environment) {
+        ChunkSectionPos pos = slice.getOrigin();
+
+        ChunkMeshHasher hasher = new ChunkMeshHasher(environment);
+        hasher.putInt(pos.getX());
+        hasher.putInt(pos.getY());
+        hasher.putInt(pos.getZ());
+
+        int radius = WorldSlice.NEIGHBOR_BLOCK_RADIUS;
+
+        BlockState prevState = null;
+        int prevId = 0;
+
+        for (int y = pos.getMinY() - radius; y <= pos.getMaxY() + radius; y++) {
+            for (int z = pos.getMinZ() - radius; z <= pos.getMaxZ() + radius; z++) {
+                for (int x = pos.getMinX() - radius; x <= pos.getMaxX() + radius; x++) {
+                    BlockState state = slice.getBlockState(x, y, z);
+
+                    // Most blocks are the same as the one before them, so avoid looking up their IDs again
+                    if (state != prevState) {
+                        prevId = Block.getRawIdFromState(state);
+                        prevState = state;
+                    }
+
+                    hasher.putLong(((long) prevId << 8) | slice.getPackedLightLevels(x, y, z));
+                }
+            }
+        }
+
+        for (int x = pos.getX() - 1; x <= pos.getX() + 1; x++) {
+            for (int z = pos.getZ() - 1; z <= pos.getZ() + 1; z++) {
+                hashBiomes(hasher, slice.getBiomeArray(x, z));
+            }
+        }
+
+        return new ChunkMeshKey(hasher.getHigh(), hasher.getLow());
+    }
+
+    private static void hashBiomes(ChunkMeshHasher hasher, BiomeArray biomes) {
+        if (biomes == null) {
+            hasher.putInt(0);
+        } else {
+            int[] ids = biomes.toIntArray();
+
+            hasher.putInt(ids.length);
+
+            for (int id : ids) {
+                hasher.putInt(id);
+            }
+        }
+    }
+
+    /**
+     * Computes a hash of everything besides the world contents which affects the meshes of sections, such as the
+     * game and mod versions, the enabled resource packs, the vertex format, and the rendering options. This must be
+     * called on the main thread.
+     */
+    public static long createEnvironmentHash(ClientWorld world, ChunkVertexType vertexType) {
+        MinecraftClient client = MinecraftClient.getInstance();
+
+        ChunkMeshHasher hasher = new ChunkMeshHasher(ChunkMeshCache.VERSION);
+        hasher.putString(SharedConstants.getGameVersion().getName());
+        hashMods(hasher);
+
+        hasher.putString(vertexType.getClass().getName());
+        hasher.putInt(vertexType.getBufferVertexFormat().getStride());
+        hasher.putInt(BlockRenderPass.COUNT);
+        hasher.putInt(Block.STATE_IDS.size());
+
+        hasher.putString(world.getRegistryKey().getValue().toString());
+        hasher.putLong(((ClientWorldExtended) world).getBiomeSeed());
+
+        hasher.putInt(MinecraftClient.isAmbientOcclusionEnabled() ? 1 : 0);
+        hasher.putInt(client.options.graphicsMode.ordinal());
+        hasher.putInt(client.options.biomeBlendRadius);
+        hasher.putInt(SodiumClientMod.options().quality.smoothLighting.ordinal());
+        hasher.putInt(XHFPQuadMerger.isEnabled(vertexType) ? 1 : 0);
+
+        for (String pack : client.getResourcePackManager().getEnabledNames()) {
+            hasher.putString(pack);
+
+            if (pack.startsWith(FILE_PACK_PREFIX)) {
+                hashPackFiles(hasher, new File(client.getResourcePackDir(), pack.substring(FILE_PACK_PREFIX.length())).toPath());
+            }
+        }
+
+        IdMap idMap = Iris.getCurrentPack().map(ShaderPack::getIdMap).orElse(null);
+
+        if (idMap != null) {
+            // The iteration order of the map isn't stable between sessions, so combine the entries in an order-independent way
+            long sum = 0L;
+
+            for (Map.Entry<BlockState, Integer> entry : idMap.getBlockProperties().entrySet()) {
+                sum += ((long) Block.getRawIdFromState(entry.getKey()) << 32) ^ entry.getValue();
+            }
+
+            hasher.putLong(sum);
+        }
+
+        return hasher.getHigh();
+    }
+
+    /**
+     * Hashes the ID and version of every loaded mod. The assets of all mods are served by a single resource pack, whose
+     * name stays the same when they are updated.
+     */
+    private static void hashMods(ChunkMeshHasher hasher) {
+        List<String> mods = new ArrayList<>();
+
+        for (ModContainer container : FabricLoader.getInstance().getAllMods()) {
+            ModMetadata meta = container.getMetadata();
+
+            mods.add(meta.getId() + "@" + meta.getVersion().getFriendlyString());
+        }
+
+        // The order in which mods are loaded isn't guaranteed to be the same between sessions
+        Collections.sort(mods);
+
+        hasher.putInt(mods.size());
+
+        for (String mod : mods) {
+            hasher.putString(mod);
+        }
+    }
+
+    /**
+     * Hashes the number, total size and latest modification time of the files of a resource pack, so that a pack which
+     * is edited or replaced under the same name doesn't reuse the meshes built with its old contents.
+     * @param path The archive or directory of the pack
+     */
+    private static void hashPackFiles(ChunkMeshHasher hasher, Path path) {
+        int count = 0;
+        long size = 0L;
+        long lastModified = 0L;
+
+        try (Stream<Path> files = Files.walk(path)) {
+            Iterator<Path> it = files.iterator();
+
+            while (it.hasNext()) {
+                BasicFileAttributes attributes = Files.readAttributes(it.next(), BasicFileAttributes.class);
+
+                if (attributes.isRegularFile()) {
+                    count++;
+                    size += attributes.size();
+                    lastModified = Math.max(lastModified, attributes.lastModifiedTime().toMillis());
+                }
+            }
+        } catch (IOException e) {
+            // The contents of the pack are unknown, so never reuse any meshes built with it
+            lastModified = System.nanoTime();
+        }
+
+        hasher.putInt(count);
+        hasher.putLong(size);
+        hasher.putLong(lastModified);
+    }
+
+    /**
+     * Parses a key from the string returned by {@link ChunkMeshKey#toString()}, or returns null if it isn't valid.
+     */
+    public static ChunkMeshKey parse(String str) {
+        if (str.length() != 32) {
+            return null;
+        }
+
+        try {
+            return new ChunkMeshKey(Long.parseUnsignedLong(str.substring(0, 16), 16),
+                    Long.parseUnsignedLong(str.substring(16), 16));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || this.getClass() != o.getClass()) {
+            return false;
+        }
+
+        ChunkMeshKey that = (ChunkMeshKey) o;
+
+        return this.high == that.high && this.low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.high ^ this.low);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", this.high, this.low);
+    }
+}
@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import me.jellysquid.mods.sodium.client.gl.buffer.VertexData;
 import me.jellysquid.mods.sodium.client.gl.util.BufferSlice;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
@@ -12,6 +13,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkModelOffset;
 import me.jellysquid.mods.sodium.client.render.chunk.format.MaterialIdHolder;
+import me.jellysquid.mods.sodium.client.render.chunk.format.xhfp.XHFPQuadMerger;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import me.jellysquid.mods.sodium.client.util.UnsafeUtil;
@@ -36,18 +38,38 @@ public class ChunkBuildBuffers {
     private final VertexBufferBuilder[][] buffersByLayer;
     private final ChunkVertexType vertexType;
 
+    // The vertex ranges written by each block into each buffer, stored as triples of (block index, offset, length)
+    private final IntArrayList[][] blockRangesByLayer;
+    private boolean trackBlockRanges;
+
     private final BlockRenderPassManager renderPassManager;
     private final ChunkModelOffset offset;
     private final MaterialIdHolder idHolder;
 
+    // Merges the faces of solid blocks after a section has been built, or null if merging is disabled
+    private final XHFPQuadMerger quadMerger;
+
+    // The vertex ranges written by fluids into each translucent buffer, stored as pairs of (offset, length)
+    private final IntArrayList[] fluidRanges;
+    private final int[] fluidStarts;
+
     public ChunkBuildBuffers(ChunkVertexType vertexType, BlockRenderPassManager renderPassManager) {
         this.vertexType = vertexType;
         this.renderPassManager = renderPassManager;
 
         this.delegates = new ChunkModelBuffers[BlockRenderPass.COUNT];
         this.buffersByLayer = new VertexBufferBuilder[BlockRenderPass.COUNT][ModelQuadFacing.COUNT];
+        this.blockRangesByLayer = new IntArrayList[BlockRenderPass.COUNT][ModelQuadFacing.COUNT];
 
         this.offset = new ChunkModelOffset();
+        this.quadMerger = XHFPQuadMerger.isEnabled(vertexType) ? new XHFPQuadMerger() : null;
+
+        this.fluidRanges = new IntArrayList[ModelQuadFacing.COUNT];
+        this.fluidStarts = new int[ModelQuadFacing.COUNT];
+
+        for (int i = 0; i < this.fluidRanges.length; i++) {
+            this.fluidRanges[i] = new IntArrayList();
+        }
 
         IdMap map = Iris.getCurrentPack().map(ShaderPack::getIdMap).orElse(null);
 
@@ -64,11 +86,36 @@ public class ChunkBuildBuffers {
 
             for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
                 buffers[facing.ordinal()] = new VertexBufferBuilder(vertexType.getBufferVertexFormat(), layer.getExpectedBufferSize() / ModelQuadFacing.COUNT);
+                this.blockRangesByLayer[passId][facing.ordinal()] = new IntArrayList();
             }
         }
     }
 
     public void init(ChunkRenderData.Builder renderData) {
+        this.init(renderData, false);
+    }
+
+    /**
+     * Prepares the buffers for building a new set of meshes.
+     * @param renderData The render data which the meshes will belong to
+     * @param trackBlockRanges True if the vertex ranges of each block should be recorded with
+     *                         {@link ChunkBuildBuffers#endBlock(int)}, allowing the meshes to be patched later
+     */
+    public void init(ChunkRenderData.Builder renderData, boolean trackBlockRanges) {
+        this.trackBlockRanges = trackBlockRanges;
+
+        for (IntArrayList[] ranges : this.blockRangesByLayer) {
+            for (IntArrayList list : ranges) {
+                if (list != null) {
+                    list.clear();
+                }
+            }
+        }
+
+        for (IntArrayList list : this.fluidRanges) {
+            list.clear();
+        }
+
         for (int i = 0; i < this.buffersByLayer.length; i++) {
             ChunkModelVertexTransformer[] writers = new ChunkModelVertexTransformer[ModelQuadFacing.COUNT];
 
@@ -88,12 +135,114 @@ public class ChunkBuildBuffers {
         return this.delegates[this.renderPassManager.getRenderPassId(layer)];
     }
 
+    /**
+     * Records the vertex ranges which were written by the given block since the previous call. This must be called
+     * after each block is rendered when block ranges are being tracked, otherwise it does nothing.
+     * @param blockIdx The local index of the block in its chunk section
+     */
+    public void endBlock(int blockIdx) {
+        if (!this.trackBlockRanges) {
+            return;
+        }
+
+        for (int passId = 0; passId < this.buffersByLayer.length; passId++) {
+            VertexBufferBuilder[] builders = this.buffersByLayer[passId];
+
+            for (int facingId = 0; facingId < builders.length; facingId++) {
+                VertexBufferBuilder builder = builders[facingId];
+
+                if (builder == null) {
+                    continue;
+                }
+
+                IntArrayList ranges = this.blockRangesByLayer[passId][facingId];
+
+                int start = ranges.isEmpty() ? 0 : ranges.getInt(ranges.size() - 2) + ranges.getInt(ranges.size() - 1);
+                int end = builder.getSize();
+
+                if (end > start) {
+                    ranges.add(blockIdx);
+                    ranges.add(start);
+                    ranges.add(end - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the start of the geometry of a fluid. This must be called before each fluid is rendered, followed by
+     * {@link ChunkBuildBuffers#endFluid()} once it has been rendered.
+     */
+    public void beginFluid() {
+        VertexBufferBuilder[] builders = this.buffersByLayer[BlockRenderPass.TRANSLUCENT.ordinal()];
+
+        for (int facingId = 0; facingId < builders.length; facingId++) {
+            VertexBufferBuilder builder = builders[facingId];
+
+            this.fluidStarts[facingId] = builder != null ? builder.getSize() : 0;
+        }
+    }
+
+    /**
+     * Records the vertex ranges which were written into the translucent buffers since the previous call to
+     * {@link ChunkBuildBuffers#beginFluid()}, so that only the quads of fluids are merged in translucent meshes.
+     */
+    public void endFluid() {
+        VertexBufferBuilder[] builders = this.buffersByLayer[BlockRenderPass.TRANSLUCENT.ordinal()];
+
+        for (int facingId = 0; facingId < builders.length; facingId++) {
+            VertexBufferBuilder builder = builders[facingId];
+
+            if (builder == null) {
+                continue;
+            }
+
+            int start = this.fluidStarts[facingId];
+            int end = builder.getSize();
+
+            if (end > start) {
+                this.fluidRanges[facingId].add(start);
+                this.fluidRanges[facingId].add(end - start);
+            }
+        }
+    }
+
     /**
      * Creates immutable baked chunk meshes from all non-empty scratch buffers and resets the state of all mesh
      * builders. This is used after all blocks have been rendered to pass the finished meshes over to the graphics card.
      */
     public ChunkMeshData createMesh(BlockRenderPass pass) {
+        return this.createPatchedMesh(pass, null, null);
+    }
+
+    /**
+     * Creates a mesh by splicing the contents of the scratch buffers into a previously built mesh, and resets the state
+     * of all mesh builders. The geometry of any blocks which were re-rendered is removed from the previous mesh and
+     * replaced with the newly rendered geometry, while the geometry of all other blocks is copied as-is.
+     *
+     * @param pass The render pass to create the mesh for
+     * @param previous The previous mesh for this pass, which must retain its geometry, or null if there is none
+     * @param replacedBlocks A bit mask of the local block indices whose geometry in the previous mesh is replaced
+     */
+    public ChunkMeshData createPatchedMesh(BlockRenderPass pass, ChunkMeshData previous, long[] replacedBlocks) {
         VertexBufferBuilder[] builders = this.buffersByLayer[pass.ordinal()];
+        IntArrayList[] blockRanges = this.blockRangesByLayer[pass.ordinal()];
+
+        // Merged quads span many blocks, so they can't be used when the geometry of each block must be kept apart
+        if (this.quadMerger != null && previous == null && !this.trackBlockRanges) {
+            if (pass == BlockRenderPass.SOLID) {
+                // The solid pass is merged first and for every section, so each section is only counted once
+                XHFPQuadMerger.recordSection();
+
+                this.mergeQuads(builders, null);
+            } else if (pass == BlockRenderPass.TRANSLUCENT) {
+                this.mergeQuads(builders, this.fluidRanges);
+            }
+        }
+
+        ByteBuffer previousData = previous != null ? previous.getRetainedVertexData() : null;
+
+        int[] keptSizes = new int[builders.length];
 
         ChunkMeshData meshData = new ChunkMeshData();
         int bufferLen = 0;
@@ -101,12 +250,20 @@ public class ChunkBuildBuffers {
         for (int facingId = 0; facingId < builders.length; facingId++) {
             VertexBufferBuilder builder = builders[facingId];
 
-            if (builder == null || builder.isEmpty()) {
+            if (builder == null) {
                 continue;
             }
 
+            if (previousData != null) {
+                keptSizes[facingId] = getKeptSize(previous.getBlockRanges(ModelQuadFacing.VALUES[facingId]), replacedBlocks);
+            }
+
             int start = bufferLen;
-            int size = builder.getSize();
+            int size = keptSizes[facingId] + builder.getSize();
+
+            if (size <= 0) {
+                continue;
+            }
 
             meshData.setModelSlice(ModelQuadFacing.VALUES[facingId], new BufferSlice(start, size));
 
@@ -120,10 +277,33 @@ public class ChunkBuildBuffers {
         ByteBuffer buffer = GlAllocationUtils.allocateByteBuffer(bufferLen);
 
         for (Map.Entry<ModelQuadFacing, BufferSlice> entry : meshData.getSlices()) {
+            ModelQuadFacing facing = entry.getKey();
+
             BufferSlice slice = entry.getValue();
             buffer.position(slice.start);
 
-            VertexBufferBuilder builder = this.buffersByLayer[pass.ordinal()][entry.getKey().ordinal()];
+            IntArrayList ranges = this.trackBlockRanges ? new IntArrayList() : null;
+
+            if (keptSizes[facing.ordinal()] > 0) {
+                copyKeptRanges(previousData, previous.getSlice(facing), previous.getBlockRanges(facing), replacedBlocks,
+                        buffer, slice.start, ranges);
+            }
+
+            if (ranges != null) {
+                int offset = keptSizes[facing.ordinal()];
+
+                IntArrayList newRanges = blockRanges[facing.ordinal()];
+
+                for (int i = 0; i < newRanges.size(); i += 3) {
+                    ranges.add(newRanges.getInt(i));
+                    ranges.add(newRanges.getInt(i + 1) + offset);
+                    ranges.add(newRanges.getInt(i + 2));
+                }
+
+                meshData.setBlockRanges(facing, ranges.toIntArray());
+            }
+
+            VertexBufferBuilder builder = builders[facing.ordinal()];
             builder.copyInto(buffer);
         }
 
@@ -134,6 +314,91 @@ public class ChunkBuildBuffers {
         return meshData;
     }
 
+    /**
+     * Merges the quads of each facing in the given builders.
+     *
+     * @param ranges The ranges of the quads which may be merged in each builder, or null if all quads may be merged.
+     *               This is used for translucent meshes, where only the large flat surfaces of still water should be
+     *               merged and the faces of other translucent blocks (such as stained glass) must be kept as-is
+     */
+    private void mergeQuads(VertexBufferBuilder[] builders, IntArrayList[] ranges) {
+        int inputSize = 0;
+        int outputSize = 0;
+
+        for (int facingId = 0; facingId < builders.length; facingId++) {
+            VertexBufferBuilder builder = builders[facingId];
+
+            if (builder == null) {
+                continue;
+            }
+
+            IntArrayList facingRanges = ranges != null ? ranges[facingId] : null;
+
+            if (facingRanges != null && facingRanges.isEmpty()) {
+                continue;
+            }
+
+            inputSize += builder.getSize();
+
+            this.quadMerger.merge(builder, ModelQuadFacing.VALUES[facingId], facingRanges);
+
+            outputSize += builder.getSize();
+        }
+
+        if (inputSize > 0) {
+            int stride = this.vertexType.getBufferVertexFormat().getStride();
+
+            XHFPQuadMerger.recordMesh(inputSize / stride, outputSize / stride);
+        }
+    }
+
+    private static int getKeptSize(int[] ranges, long[] replacedBlocks) {
+        if (ranges == null) {
+            return 0;
+        }
+
+        int size = 0;
+
+        for (int i = 0; i < ranges.length; i += 3) {
+            if (!isBlockReplaced(replacedBlocks, ranges[i])) {
+                size += ranges[i + 2];
+            }
+        }
+
+        return size;
+    }
+
+    private static void copyKeptRanges(ByteBuffer src, BufferSlice srcSlice, int[] srcRanges, long[] replacedBlocks,
+                                       ByteBuffer dst, int dstStart, IntArrayList dstRanges) {
+        ByteBuffer view = src.duplicate();
+
+        for (int i = 0; i < srcRanges.length; i += 3) {
+            int blockIdx = srcRanges[i];
+
+            if (isBlockReplaced(replacedBlocks, blockIdx)) {
+                continue;
+            }
+
+            int start = srcSlice.start + srcRanges[i + 1];
+            int len = srcRanges[i + 2];
+
+            if (dstRanges != null) {
+                dstRanges.add(blockIdx);
+                dstRanges.add(dst.position() - dstStart);
+                dstRanges.add(len);
+            }
+
+            view.limit(start + len);
+            view.position(start);
+
+            dst.put(view);
+        }
+    }
+
+    private static boolean isBlockReplaced(long[] replacedBlocks, int blockIdx) {
+        return replacedBlocks != null && (replacedBlocks[blockIdx >> 6] & (1L << (blockIdx & 63))) != 0L;
+    }
+
     public void setRenderOffset(int x, int y, int z) {
         this.offset.set(x, y, z);
     }
@@ -0,0 +1,157 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A binary min-heap of pending build tasks, ordered by the priority which was computed for each task when it was
+ * enqueued or last re-ranked. Tasks with the lowest priority value are handed to workers first.
+ *
+ * The number of tasks in this queue is bounded by the scheduling budget of the chunk builder, so re-ranking the entire
+ * queue whenever the camera moves is cheap and simpler than trying to maintain incremental updates.
+ *
+ * This class is thread-safe. All operations are guarded by the queue's monitor.
+ */
+public class ChunkBuildQueue<E extends ChunkBuildQueue.Entry> {
+    private E[] heap;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public ChunkBuildQueue(int capacity) {
+        this.heap = (E[]) new Entry[Math.max(1, capacity)];
+    }
+
+    /**
+     * Adds the task to the queue using its currently assigned priority.
+     */
+    public synchronized void add(E task) {
+        if (this.size >= this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.heap.length * 2);
+        }
+
+        this.heap[this.size] = task;
+        this.siftUp(this.size++);
+    }
+
+    /**
+     * Removes and returns the task with the lowest priority value, or null if the queue is empty.
+     */
+    public synchronized E poll() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        E[] heap = this.heap;
+        E task = heap[0];
+
+        heap[0] = heap[--this.size];
+        heap[this.size] = null;
+
+        if (this.size > 0) {
+            this.siftDown(0);
+        }
+
+        return task;
+    }
+
+    /**
+     * Re-computes the priority of every pending task using the given function and restores the heap ordering. This
+     * should be called whenever the inputs to the priority function (such as the camera) change.
+     */
+    public synchronized void reprioritize(ToDoubleFunction<E> func) {
+        for (int i = 0; i < this.size; i++) {
+            E task = this.heap[i];
+            task.priority = func.applyAsDouble(task);
+        }
+
+        for (int i = (this.size >>> 1) - 1; i >= 0; i--) {
+            this.siftDown(i);
+        }
+    }
+
+    /**
+     * Removes all tasks from the queue, passing each of them to the consumer.
+     */
+    public synchronized void drain(Consumer<E> consumer) {
+        for (int i = 0; i < this.size; i++) {
+            consumer.accept(this.heap[i]);
+            this.heap[i] = null;
+        }
+
+        this.size = 0;
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    private void siftUp(int index) {
+        E[] heap = this.heap;
+        E task = heap[index];
+
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            E parent = heap[parentIndex];
+
+            if (parent.priority <= task.priority) {
+                break;
+            }
+
+            heap[index] = parent;
+            index = parentIndex;
+        }
+
+        heap[index] = task;
+    }
+
+    private void siftDown(int index) {
+        E[] heap = this.heap;
+        E task = heap[index];
+
+        int half = this.size >>> 1;
+
+        while (index < half) {
+            int childIndex = (index << 1) + 1;
+            E child = heap[childIndex];
+
+            int rightIndex = childIndex + 1;
+
+            if (rightIndex < this.size && heap[rightIndex].priority < child.priority) {
+                child = heap[childIndex = rightIndex];
+            }
+
+            if (task.priority <= child.priority) {
+                break;
+            }
+
+            heap[index] = child;
+            index = childIndex;
+        }
+
+        heap[index] = task;
+    }
+
+    /**
+     * An element of the queue, which carries the priority it was last ranked with.
+     */
+    public static class Entry {
+        double priority;
+
+        /**
+         * Sets the priority of this entry. This must not be called while the entry is in a queue, as the queue would
+         * not be re-ordered.
+         */
+        public void setPriority(double priority) {
+            this.priority = priority;
+        }
+
+        public double getPriority() {
+            return this.priority;
+        }
+    }
+}
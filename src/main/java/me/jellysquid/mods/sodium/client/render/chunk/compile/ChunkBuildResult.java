@@ -12,9 +12,30 @@ import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 public class ChunkBuildResult<T extends ChunkGraphicsState> {
     public final ChunkRenderContainer<T> render;
     public final ChunkRenderData data;
+    public final int generation;
 
-    public ChunkBuildResult(ChunkRenderContainer<T> render, ChunkRenderData data) {
+    /**
+     * True if only the occlusion data of this result is valid. These results update the visibility graph and must not
+     * replace the render's existing meshes.
+     */
+    public final boolean occlusionOnly;
+
+    public ChunkBuildResult(ChunkRenderContainer<T> render, ChunkRenderData data, int generation) {
+        this(render, data, generation, false);
+    }
+
+    public ChunkBuildResult(ChunkRenderContainer<T> render, ChunkRenderData data, int generation, boolean occlusionOnly) {
         this.render = render;
         this.data = data;
+        this.generation = generation;
+        this.occlusionOnly = occlusionOnly;
+    }
+
+    /**
+     * @return True if a newer build task has been created for the render since this result's task was created, or if
+     * the render has been deleted. Stale results must be discarded without being uploaded.
+     */
+    public boolean isStale() {
+        return this.render.isDisposed() || this.render.getBuildGeneration() != this.generation;
     }
 }
@@ -1,35 +1,53 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile;
 
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.gui.SodiumGameOptions;
 import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderBackend;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderContainer;
+import me.jellysquid.mods.sodium.client.render.chunk.cache.ChunkMeshCache;
+import me.jellysquid.mods.sodium.client.render.chunk.cache.ChunkMeshKey;
+import me.jellysquid.mods.sodium.client.render.chunk.format.xhfp.XHFPQuadMerger;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderBuildTask;
+import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderCachedBuildTask;
+import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderColumnRebuildTask;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderEmptyBuildTask;
+import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderOcclusionTask;
+import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderPatchTask;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderRebuildTask;
+import me.jellysquid.mods.sodium.client.render.occlusion.ShapeOcclusionTable;
 import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderContext;
+import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
 import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.ChunkSectionCache;
 import me.jellysquid.mods.sodium.client.world.ClientWorldExtended;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeCacheManager;
-import me.jellysquid.mods.sodium.common.util.collections.DequeDrain;
 import me.jellysquid.mods.sodium.common.util.pool.ObjectPool;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.util.math.Vector3d;
 import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.WorldChunk;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 public class ChunkBuilder<T extends ChunkGraphicsState> {
     /**
@@ -37,32 +55,93 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      */
     private static final int TASK_QUEUE_LIMIT_PER_WORKER = 2;
 
-    private static final Logger LOGGER = LogManager.getLogger("ChunkBuilder");
+    /**
+     * The factor applied to the distance of chunks outside the camera's frustum when prioritizing tasks. This allows
+     * very close chunks which are just out of view to still be built before distant visible chunks, which helps to
+     * avoid holes when the player turns around.
+     */
+    private static final double OUTSIDE_FRUSTUM_DISTANCE_FACTOR = 4.0D;
+
+    /**
+     * The maximum distance from the camera at which chunks will keep a copy of their geometry in system memory after
+     * it has been uploaded, so that block changes can be patched into their meshes without a full rebuild. Players can
+     * only interact with blocks close to them, so keeping the geometry of distant chunks would be a waste of memory.
+     */
+    private static final double MESH_RETENTION_DISTANCE = Math.pow(48, 2.0);
+
+    /**
+     * The number of blocks around each changed block which need to be copied into the world slice of a patch task. The
+     * neighbors of a changed block are re-rendered, and rendering them samples blocks one step further out.
+     */
+    private static final int PATCH_SLICE_RADIUS = 2;
+
+    /**
+     * The directory which chunk meshes are cached in when the disk cache is enabled.
+     */
+    private static final Path MESH_CACHE_DIRECTORY = Paths.get("sodium-cache", "meshes");
 
-    private final Deque<WrappedTask<T>> buildQueue = new ConcurrentLinkedDeque<>();
-    private final Deque<ChunkBuildResult<T>> uploadQueue = new ConcurrentLinkedDeque<>();
+    private static final Logger LOGGER = LogManager.getLogger("ChunkBuilder");
 
-    private final Object jobNotifier = new Object();
+    private final ChunkUploadQueue<T> uploadQueue = new ChunkUploadQueue<>();
 
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private final List<Thread> threads = new ArrayList<>();
+    private final List<Worker> workers = new ArrayList<>();
+
+    // The index of the next worker which will be handed a task if every worker is busy
+    private int nextWorker;
 
     private final ObjectPool<WorldSlice> pool;
 
     private World world;
     private Vector3d cameraPosition;
+    private FrustumExtended frustum;
     private BiomeCacheManager biomeCacheManager;
     private BlockRenderPassManager renderPassManager;
 
+    // The decoded block states of sections which are shared between world slices
+    private final ChunkSectionCache sectionCache = new ChunkSectionCache();
+
     private final int limitThreads;
     private final ChunkVertexType vertexType;
     private final ChunkRenderBackend<T> backend;
 
+    private final ChunkWorkerController controller;
+
+    // The number of workers (starting from the first) which are allowed to take tasks. Workers past this index will
+    // stay parked until the controller activates them again.
+    private volatile int activeWorkers;
+
+    // Statistics about the time spent copying world slices for full rebuilds, used to measure the effect of batching
+    private long sliceCopyTime;
+    private long sliceCopySections;
+    private long batchedSections;
+
+    // The number of world slices of any kind which have been created, used to measure the effect of the section cache
+    private long sliceCount;
+
+    // The on-disk cache of chunk meshes, or null if it is disabled
+    private final ChunkMeshCache meshCache;
+
+    // The hash of everything besides the world contents which affects the meshes built for the current world
+    private long meshCacheEnvironment;
+
     public ChunkBuilder(ChunkVertexType vertexType, ChunkRenderBackend<T> backend) {
         this.vertexType = vertexType;
         this.backend = backend;
-        this.limitThreads = getOptimalThreadCount();
-        this.pool = new ObjectPool<>(this.getSchedulingBudget(), WorldSlice::new);
+
+        SodiumGameOptions.AdvancedSettings opts = SodiumClientMod.options().advanced;
+
+        this.limitThreads = getMaxThreadCount(opts);
+        this.controller = new ChunkWorkerController(Math.min(this.limitThreads, getMinThreadCount(opts)), this.limitThreads);
+        this.activeWorkers = this.controller.getActiveWorkers();
+
+        this.pool = new ObjectPool<>(this.limitThreads * TASK_QUEUE_LIMIT_PER_WORKER, WorldSlice::new);
+
+        if (opts.useMeshDiskCache) {
+            this.meshCache = new ChunkMeshCache(MESH_CACHE_DIRECTORY, opts.meshDiskCacheSize * 1024L * 1024L, vertexType.getCustomVertexFormat());
+        } else {
+            this.meshCache = null;
+        }
     }
 
     /**
@@ -70,7 +149,47 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      * spawn more tasks than the budget allows, it will block until resources become available.
      */
     public int getSchedulingBudget() {
-        return Math.max(0, (this.limitThreads * TASK_QUEUE_LIMIT_PER_WORKER) - this.buildQueue.size());
+        return Math.max(0, (this.activeWorkers * TASK_QUEUE_LIMIT_PER_WORKER) - this.getBuildQueueSize());
+    }
+
+    /**
+     * Updates the number of active workers using the adaptive worker controller. This should be called once per frame
+     * on the main thread.
+     * @param backlog The number of rebuilds which are waiting to be scheduled
+     */
+    public void updateActiveWorkers(int backlog) {
+        int prev = this.activeWorkers;
+        int next = this.controller.update(backlog + this.getBuildQueueSize());
+
+        if (next == prev) {
+            return;
+        }
+
+        this.activeWorkers = next;
+
+        // Wake up any workers which have just been activated
+        for (int i = prev; i < next && i < this.workers.size(); i++) {
+            LockSupport.unpark(this.workers.get(i).thread);
+        }
+
+        // Deactivated workers will park themselves once they finish their current task, so hand any tasks left in
+        // their queues over to the workers which are still active
+        for (int i = next; i < prev && i < this.workers.size(); i++) {
+            this.workers.get(i).queue.drain(this::push);
+        }
+    }
+
+    /**
+     * @return The total number of tasks waiting in the queues of all workers
+     */
+    private int getBuildQueueSize() {
+        int size = 0;
+
+        for (Worker worker : this.workers) {
+            size += worker.queue.size();
+        }
+
+        return size;
     }
 
     /**
@@ -82,7 +201,7 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
             return;
         }
 
-        if (!this.threads.isEmpty()) {
+        if (!this.workers.isEmpty()) {
             throw new IllegalStateException("Threads are still alive while in the STOPPED state");
         }
 
@@ -92,16 +211,24 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
             ChunkBuildBuffers buffers = new ChunkBuildBuffers(this.vertexType, this.renderPassManager);
             ChunkRenderContext pipeline = new ChunkRenderContext(client);
 
-            WorkerRunnable worker = new WorkerRunnable(buffers, pipeline);
+            this.workers.add(new Worker(i, buffers, pipeline));
+        }
+
+        // The workers must all exist before any are started, as they will immediately try to steal from each other
+        for (int i = 0; i < this.workers.size(); i++) {
+            Worker worker = this.workers.get(i);
 
             Thread thread = new Thread(worker, "Chunk Render Task Executor #" + i);
             thread.setPriority(Math.max(0, Thread.NORM_PRIORITY - 2));
-            thread.start();
 
-            this.threads.add(thread);
+            worker.thread = thread;
         }
 
-        LOGGER.info("Started {} worker threads", this.threads.size());
+        for (Worker worker : this.workers) {
+            worker.thread.start();
+        }
+
+        LOGGER.info("Started {} worker threads", this.workers.size());
     }
 
     /**
@@ -114,76 +241,154 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
             return;
         }
 
-        if (this.threads.isEmpty()) {
+        if (this.workers.isEmpty()) {
             throw new IllegalStateException("No threads are alive but the executor is in the RUNNING state");
         }
 
         LOGGER.info("Stopping worker threads");
 
-        // Notify all worker threads to wake up, where they will then terminate
-        synchronized (this.jobNotifier) {
-            this.jobNotifier.notifyAll();
+        // Wake up all worker threads, where they will then terminate
+        for (Worker worker : this.workers) {
+            LockSupport.unpark(worker.thread);
         }
 
         // Wait for every remaining thread to terminate
-        for (Thread thread : this.threads) {
+        for (Worker worker : this.workers) {
             try {
-                thread.join();
+                worker.thread.join();
             } catch (InterruptedException ignored) {
             }
         }
 
-        this.threads.clear();
-
         // Drop any pending work queues and cancel futures
         this.uploadQueue.clear();
 
-        for (WrappedTask<?> job : this.buildQueue) {
-            job.future.cancel(true);
+        for (Worker worker : this.workers) {
+            worker.queue.drain(job -> job.future.cancel(true));
         }
 
-        this.buildQueue.clear();
+        this.workers.clear();
 
         this.world = null;
         this.biomeCacheManager = null;
+        this.sectionCache.clear();
         this.pool.reset();
     }
 
     /**
-     * Processes all pending build task uploads using the chunk render backend.
+     * Processes pending build task uploads using the chunk render backend. The amount of work done is limited by the
+     * upload budget in the user's settings, and any results which don't fit in it are carried over to the next call.
+     * @return True if any results were uploaded, otherwise false
      */
-    // TODO: Limit the amount of time this can take per frame
     public boolean performPendingUploads() {
         if (this.uploadQueue.isEmpty()) {
             return false;
         }
 
-        this.backend.upload(new DequeDrain<>(this.uploadQueue));
+        SodiumGameOptions.AdvancedSettings opts = SodiumClientMod.options().advanced;
 
-        return true;
+        long timeBudget = TimeUnit.MILLISECONDS.toNanos(opts.chunkUploadTimeBudget);
+        long sizeBudget = opts.chunkUploadSizeBudget * 1024L * 1024L;
+
+        return this.uploadQueue.upload(this.backend, this.cameraPosition, timeBudget, sizeBudget);
     }
 
-    public CompletableFuture<ChunkBuildResult<T>> schedule(ChunkRenderBuildTask<T> task) {
+    public CompletableFuture<ChunkBuildResult<T>> schedule(ChunkRenderContainer<T> render, ChunkRenderBuildTask<T> task) {
         if (!this.running.get()) {
             throw new IllegalStateException("Executor is stopped");
         }
 
-        WrappedTask<T> job = new WrappedTask<>(task);
+        WrappedTask<T> job = new WrappedTask<>(render, task);
+        job.priority = this.getTaskPriority(job);
+
+        this.push(job);
 
-        this.buildQueue.add(job);
+        return job.future;
+    }
 
-        synchronized (this.jobNotifier) {
-            this.jobNotifier.notify();
+    private void push(WrappedTask<T> job) {
+        Worker worker = this.findWorkerForTask();
+        worker.queue.add(job);
+
+        // The worker may have parked after we selected it, so always check after the task is visible in its queue
+        if (worker.parked) {
+            LockSupport.unpark(worker.thread);
         }
+    }
 
-        return job.future;
+    /**
+     * Returns the worker which a new task should be pushed to. Parked workers are preferred so that the task can be
+     * started immediately, otherwise tasks are distributed between the busy workers in a round-robin fashion and
+     * will be stolen by whichever worker runs out of work first.
+     */
+    private Worker findWorkerForTask() {
+        List<Worker> workers = this.workers;
+        int count = Math.min(this.activeWorkers, workers.size());
+
+        for (int i = 0; i < count; i++) {
+            Worker worker = workers.get(i);
+
+            if (worker.parked && worker.queue.isEmpty()) {
+                return worker;
+            }
+        }
+
+        Worker worker = workers.get(this.nextWorker % count);
+        this.nextWorker = (this.nextWorker + 1) % count;
+
+        return worker;
     }
 
     /**
-     * Sets the current camera position of the player used for task prioritization.
+     * Sets the current camera position and frustum of the player used for task prioritization.
      */
-    public void setCameraPosition(double x, double y, double z) {
+    public void setCameraState(double x, double y, double z, FrustumExtended frustum) {
         this.cameraPosition = new Vector3d(x, y, z);
+        this.frustum = frustum;
+    }
+
+    /**
+     * Re-ranks all pending tasks in the build queue using the current camera state. This should be called whenever the
+     * camera has moved or rotated so that workers always pick up the chunks closest to the player's view first.
+     */
+    public void reprioritizePendingTasks() {
+        for (Worker worker : this.workers) {
+            worker.queue.reprioritize(this::getTaskPriority);
+        }
+    }
+
+    private double getTaskPriority(WrappedTask<T> job) {
+        return this.getTaskPriority(job.render);
+    }
+
+    /**
+     * Returns the priority of a task for the given render, where lower values are processed first. Chunks are
+     * prioritized by their distance to the camera, with chunks outside the frustum being treated as if they were
+     * further away.
+     */
+    public double getTaskPriority(ChunkRenderContainer<T> render) {
+        Vector3d camera = this.cameraPosition;
+
+        if (camera == null) {
+            return 0.0D;
+        }
+
+        return getTaskPriority(render.getSquaredDistance(camera.x, camera.y, camera.z),
+                this.frustum != null && render.isOutsideFrustum(this.frustum));
+    }
+
+    /**
+     * Returns the priority of a task for a chunk at the given distance from the camera, where lower values are
+     * processed first.
+     * @param squaredDistance The squared distance from the camera to the chunk
+     * @param outsideFrustum True if the chunk is outside the camera's frustum
+     */
+    public static double getTaskPriority(double squaredDistance, boolean outsideFrustum) {
+        if (outsideFrustum) {
+            return squaredDistance * OUTSIDE_FRUSTUM_DISTANCE_FACTOR * OUTSIDE_FRUSTUM_DISTANCE_FACTOR;
+        }
+
+        return squaredDistance;
     }
 
     /**
@@ -197,7 +402,45 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      * @return True if the build queue is empty
      */
     public boolean isBuildQueueEmpty() {
-        return this.buildQueue.isEmpty();
+        for (Worker worker : this.workers) {
+            if (!worker.queue.isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return True if no build results are waiting to be uploaded
+     */
+    public boolean isUploadQueueEmpty() {
+        return this.uploadQueue.isEmpty();
+    }
+
+    public List<String> getDebugStrings() {
+        List<String> list = new ArrayList<>();
+        list.add(this.controller.getDebugString());
+        list.add(String.format("Build Queue: %d", this.getBuildQueueSize()));
+        list.add(String.format("Upload Queue: %d (%d uploaded, %d KiB)", this.uploadQueue.size(),
+                this.uploadQueue.getLastUploadCount(), this.uploadQueue.getLastUploadSize() / 1024L));
+        list.add(String.format("Stale Results: %d", this.uploadQueue.getStaleResultCount()));
+        list.add(String.format("Upload Latency: %.1f ms", this.uploadQueue.getAverageLatency() / 1_000_000.0D));
+        list.add(String.format("Slice Copy: %.1f us/section (%d sections, %d batched)",
+                this.sliceCopySections > 0 ? (this.sliceCopyTime / 1_000.0D) / this.sliceCopySections : 0.0D,
+                this.sliceCopySections, this.batchedSections));
+        list.add(this.sectionCache.getDebugString(this.sliceCount));
+        list.add(ShapeOcclusionTable.INSTANCE.getDebugString());
+
+        if (XHFPQuadMerger.isEnabled(this.vertexType)) {
+            list.add(XHFPQuadMerger.getDebugString());
+        }
+
+        if (this.meshCache != null) {
+            list.add(this.meshCache.getDebugString());
+        }
+
+        return list;
     }
 
     /**
@@ -218,15 +461,33 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         this.renderPassManager = renderPassManager;
         this.biomeCacheManager = new BiomeCacheManager(world.getDimension().getBiomeAccessType(), ((ClientWorldExtended) world).getBiomeSeed());
 
+        if (this.meshCache != null) {
+            this.meshCacheEnvironment = ChunkMeshKey.createEnvironmentHash(world, this.vertexType);
+        }
+
         this.startWorkers();
     }
 
     /**
-     * Returns the "optimal" number of threads to be used for chunk build tasks. This is always at least one thread,
-     * but can be up to the number of available processor threads on the system.
+     * Returns the maximum number of threads to be used for chunk build tasks. Unless a limit is configured by the user,
+     * this is the number of available processor threads on the system. This is always at least one thread.
      */
-    private static int getOptimalThreadCount() {
-        return Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static int getMaxThreadCount(SodiumGameOptions.AdvancedSettings opts) {
+        int limit = opts.chunkBuilderMaxThreads;
+
+        if (limit <= 0) {
+            limit = Runtime.getRuntime().availableProcessors();
+        }
+
+        return Math.max(1, limit);
+    }
+
+    /**
+     * Returns the minimum number of threads which will always be active for chunk build tasks. This is always at least
+     * one thread.
+     */
+    private static int getMinThreadCount(SodiumGameOptions.AdvancedSettings opts) {
+        return Math.max(1, opts.chunkBuilderMinThreads);
     }
 
     /**
@@ -235,6 +496,31 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      * @return A world slice containing the section's context for rendering, or null if it has none
      */
     public WorldSlice createWorldSlice(ChunkSectionPos pos) {
+        return this.createWorldSlice(pos, null);
+    }
+
+    /**
+     * Creates a {@link WorldSlice} around the given chunk section which only contains the blocks inside the given
+     * bounds. If the chunk section is empty, null is returned.
+     * @param pos The position of the chunk section
+     * @param bounds The bounds of the blocks to copy, or null to copy all blocks around the section
+     * @return A world slice containing the section's context for rendering, or null if it has none
+     */
+    public WorldSlice createWorldSlice(ChunkSectionPos pos, BlockBox bounds) {
+        return this.createWorldSlice(pos, 1, bounds);
+    }
+
+    /**
+     * Creates a {@link WorldSlice} around a vertical run of chunk sections, starting at the given section. If the first
+     * chunk section is empty, null is returned.
+     * @param pos The position of the lowest chunk section
+     * @param count The number of chunk sections in the run
+     * @param bounds The bounds of the blocks to copy, or null to copy all blocks around the sections
+     * @return A world slice containing the sections' context for rendering, or null if the first section is empty
+     */
+    private WorldSlice createWorldSlice(ChunkSectionPos pos, int count, BlockBox bounds) {
+        long start = System.nanoTime();
+
         WorldChunk[] chunks = WorldSlice.createChunkSlice(this.world, pos);
 
         if (chunks == null) {
@@ -242,7 +528,15 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         }
 
         WorldSlice slice = this.pool.allocate();
-        slice.init(this, this.world, pos, chunks);
+        slice.init(this, this.world, pos, count, chunks, bounds);
+
+        this.sliceCount++;
+
+        // Partial slices for patching are much smaller and would skew the statistics
+        if (bounds == null) {
+            this.sliceCopyTime += System.nanoTime() - start;
+            this.sliceCopySections += count;
+        }
 
         return slice;
     }
@@ -262,6 +556,13 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         return this.biomeCacheManager;
     }
 
+    /**
+     * Returns the cache of decoded chunk sections for this world
+     */
+    public ChunkSectionCache getSectionCache() {
+        return this.sectionCache;
+    }
+
     /**
      * Called after a chunk's status is changed in the world (i.e. after a load or unload.) This is used to reset any
      * caches which depend on its data and to release any pooled resources attached to it.
@@ -270,6 +571,7 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      */
     public void onChunkStatusChanged(int x, int z) {
         this.biomeCacheManager.dropCachesForChunk(x, z);
+        this.sectionCache.dropSnapshotsForChunk(x, z);
     }
 
     /**
@@ -284,6 +586,96 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
     }
 
 
+    /**
+     * Creates rebuild tasks for a vertical run of renders in the same column and defers them to the work queue. Renders
+     * which can be built using a shared world slice are grouped into a single task, while any other renders (such as
+     * those which can be patched or which are empty) are given their own tasks.
+     * @param renders The renders to rebuild, which must be vertically adjacent and ordered from lowest to highest
+     */
+    public void deferRebuilds(List<ChunkRenderContainer<T>> renders) {
+        List<ChunkRenderContainer<T>> run = new ArrayList<>(WorldSlice.MAX_ORIGIN_SECTIONS);
+
+        for (ChunkRenderContainer<T> render : renders) {
+            if (render.getChangedBlocks() != null || this.isSectionEmpty(render)) {
+                this.deferRun(run);
+                this.deferRebuild(render);
+
+                continue;
+            }
+
+            run.add(render);
+
+            if (run.size() >= WorldSlice.MAX_ORIGIN_SECTIONS) {
+                this.deferRun(run);
+            }
+        }
+
+        this.deferRun(run);
+    }
+
+    private void deferRun(List<ChunkRenderContainer<T>> run) {
+        if (run.isEmpty()) {
+            return;
+        }
+
+        if (run.size() == 1) {
+            this.deferRebuild(run.get(0));
+        } else {
+            ChunkRenderContainer<T> first = run.get(0);
+            WorldSlice slice = this.createWorldSlice(first.getChunkPos(), run.size(), null);
+
+            List<ChunkRenderRebuildTask<T>> tasks = new ArrayList<>(run.size());
+            List<CompletableFuture<Void>> handles = new ArrayList<>(run.size());
+
+            for (ChunkRenderContainer<T> render : run) {
+                tasks.add(this.createSliceRebuildTask(render, render.beginRebuild(), slice));
+
+                // Each render gets its own handle, so that superseding one section doesn't cancel the whole run
+                CompletableFuture<Void> handle = new CompletableFuture<>();
+                render.setRebuildTask(handle);
+
+                handles.add(handle);
+            }
+
+            this.batchedSections += run.size();
+
+            CompletableFuture<ChunkBuildResult<T>> future = this.schedule(first, new ChunkRenderColumnRebuildTask<>(this, slice, tasks, handles, this::enqueueUpload));
+            future.thenAccept(this::enqueueUpload);
+
+            linkSharedTaskHandles(future, handles);
+        }
+
+        run.clear();
+    }
+
+    /**
+     * Links the handles which the renders sharing a task were given to the future of the task. The task is cancelled
+     * once all the handles have been cancelled, and the handles are completed along with the task.
+     */
+    private static void linkSharedTaskHandles(CompletableFuture<?> future, List<CompletableFuture<Void>> handles) {
+        AtomicInteger remaining = new AtomicInteger(handles.size());
+
+        for (CompletableFuture<Void> handle : handles) {
+            handle.whenComplete((result, error) -> {
+                if (handle.isCancelled() && remaining.decrementAndGet() == 0) {
+                    future.cancel(false);
+                }
+            });
+        }
+
+        // This also drops the references which the handles hold to the task once it's done
+        future.whenComplete((result, error) -> {
+            for (CompletableFuture<Void> handle : handles) {
+                handle.complete(null);
+            }
+        });
+    }
+
+    private boolean isSectionEmpty(ChunkRenderContainer<T> render) {
+        return ChunkSection.isEmpty(this.world.getChunk(render.getChunkX(), render.getChunkZ())
+                .getSectionArray()[render.getChunkY()]);
+    }
+
     /**
      * Enqueues the build task result to the pending result queue to be later processed during the next available
      * synchronization point on the main thread.
@@ -298,7 +690,37 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      * @param render The render to rebuild
      */
     public CompletableFuture<ChunkBuildResult<T>> scheduleRebuildTaskAsync(ChunkRenderContainer<T> render) {
-        return this.schedule(this.createRebuildTask(render));
+        return this.scheduleRebuildTask(render, this.createRebuildTask(render));
+    }
+
+    private CompletableFuture<ChunkBuildResult<T>> scheduleRebuildTask(ChunkRenderContainer<T> render, ChunkRenderBuildTask<T> task) {
+        CompletableFuture<ChunkBuildResult<T>> future = this.schedule(render, task);
+        render.setRebuildTask(future);
+
+        return future;
+    }
+
+    /**
+     * Creates a task to re-compute only the occlusion data of a {@link ChunkRenderContainer} and defers it to the work
+     * queue. The render's meshes are not affected, but a build task which is still in flight for it is superseded, since
+     * its occlusion data would be older. The render stays marked as needing a rebuild. When the task is completed, its
+     * result will be applied during the next available synchronization point with the main thread.
+     * @param render The render to update
+     */
+    public void deferOcclusionUpdate(ChunkRenderContainer<T> render) {
+        int generation = render.beginOcclusionUpdate();
+
+        WorldChunk chunk = this.world.getChunk(render.getChunkX(), render.getChunkZ());
+        ChunkSection section = chunk.getSectionArray()[render.getChunkY()];
+
+        // Empty sections never occlude anything
+        if (ChunkSection.isEmpty(section)) {
+            render.setOcclusionData(ChunkRenderData.EMPTY.getOcclusionData());
+            return;
+        }
+
+        this.scheduleRebuildTask(render, new ChunkRenderOcclusionTask<>(render, section, generation))
+                .thenAccept(this::enqueueUpload);
     }
 
     /**
@@ -306,20 +728,96 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      * @param render The render to rebuild
      */
     private ChunkRenderBuildTask<T> createRebuildTask(ChunkRenderContainer<T> render) {
-        render.cancelRebuildTask();
+        long[] changedBlocks = render.getChangedBlocks();
+        ChunkRenderData previousData = render.getData();
+
+        int generation = render.beginRebuild();
+
+        if (changedBlocks != null) {
+            ChunkRenderBuildTask<T> task = this.createPatchTask(render, generation, previousData, changedBlocks);
+
+            if (task != null) {
+                return task;
+            }
+        }
+
+        if (this.isSectionEmpty(render)) {
+            return new ChunkRenderEmptyBuildTask<>(render, generation);
+        }
 
         WorldSlice slice = this.createWorldSlice(render.getChunkPos());
 
         if (slice == null) {
-            return new ChunkRenderEmptyBuildTask<>(render);
-        } else {
-            return new ChunkRenderRebuildTask<>(this, render, slice, render.getRenderOrigin());
+            return new ChunkRenderEmptyBuildTask<>(render, generation);
         }
+
+        return this.createSliceRebuildTask(render, generation, slice);
     }
 
-    private class WorkerRunnable implements Runnable {
+    /**
+     * Creates a task which produces all the meshes of a render from the given world slice. If the mesh cache is
+     * enabled and the render hasn't been built since it was loaded, the task will try to load the meshes from it before
+     * building them. Later rebuilds are caused by changes to the section, which are unlikely to ever be loaded again, so
+     * they neither hash the section nor fill the cache with their meshes.
+     */
+    private ChunkRenderRebuildTask<T> createSliceRebuildTask(ChunkRenderContainer<T> render, int generation, WorldSlice slice) {
+        if (this.meshCache != null && render.getData() == ChunkRenderData.ABSENT) {
+            return new ChunkRenderCachedBuildTask<>(this, render, slice, render.getRenderOrigin(), generation,
+                    this.shouldRetainGeometry(render), this.meshCache, this.meshCacheEnvironment);
+        }
+
+        return new ChunkRenderRebuildTask<>(this, render, slice, render.getRenderOrigin(), generation, this.shouldRetainGeometry(render));
+    }
+
+    /**
+     * Creates a task which patches the changed blocks into the render's previous meshes, or returns null if the
+     * section is now empty.
+     */
+    private ChunkRenderBuildTask<T> createPatchTask(ChunkRenderContainer<T> render, int generation,
+                                                    ChunkRenderData previousData, long[] changedBlocks) {
+        ChunkSection section = this.world.getChunk(render.getChunkX(), render.getChunkZ())
+                .getSectionArray()[render.getChunkY()];
+
+        if (ChunkSection.isEmpty(section)) {
+            return null;
+        }
+
+        BlockBox bounds = BlockBox.empty();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (long changedBlock : changedBlocks) {
+            pos.set(changedBlock);
+
+            bounds.encompass(new BlockBox(pos.getX() - PATCH_SLICE_RADIUS, pos.getY() - PATCH_SLICE_RADIUS, pos.getZ() - PATCH_SLICE_RADIUS,
+                    pos.getX() + PATCH_SLICE_RADIUS, pos.getY() + PATCH_SLICE_RADIUS, pos.getZ() + PATCH_SLICE_RADIUS));
+        }
+
+        WorldSlice slice = this.createWorldSlice(render.getChunkPos(), bounds);
+
+        if (slice == null) {
+            return null;
+        }
+
+        return new ChunkRenderPatchTask<>(this, render, slice, render.getRenderOrigin(), generation, previousData,
+                changedBlocks, ChunkRenderOcclusionTask.createOpaqueBlockMask(section));
+    }
+
+    /**
+     * @return True if the render is close enough to the camera that its geometry should be kept for patching
+     */
+    private boolean shouldRetainGeometry(ChunkRenderContainer<T> render) {
+        Vector3d camera = this.cameraPosition;
+
+        return camera != null && render.getSquaredDistance(camera.x, camera.y, camera.z) <= MESH_RETENTION_DISTANCE;
+    }
+
+    private class Worker implements Runnable {
         private final AtomicBoolean running = ChunkBuilder.this.running;
 
+        // The tasks which have been pushed to this worker. Other workers will steal from this queue when they run out
+        // of work of their own.
+        private final ChunkBuildQueue<WrappedTask<T>> queue = new ChunkBuildQueue<>(TASK_QUEUE_LIMIT_PER_WORKER);
+
         // The re-useable build buffers used by this worker for building chunk meshes
         private final ChunkBuildBuffers bufferCache;
 
@@ -327,7 +825,17 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         // caches between different CPU cores
         private final ChunkRenderContext pipeline;
 
-        public WorkerRunnable(ChunkBuildBuffers bufferCache, ChunkRenderContext pipeline) {
+        // True if this worker has found no work and is about to park (or is parked.) The scheduler uses this to decide
+        // which workers need to be woken up after pushing a task.
+        private volatile boolean parked;
+
+        // The index of this worker in the builder's list of workers
+        private final int index;
+
+        private Thread thread;
+
+        public Worker(int index, ChunkBuildBuffers bufferCache, ChunkRenderContext pipeline) {
+            this.index = index;
             this.bufferCache = bufferCache;
             this.pipeline = pipeline;
         }
@@ -338,13 +846,21 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
             while (this.running.get()) {
                 WrappedTask<T> job = this.getNextJob();
 
-                // If the job is null or no longer valid, keep searching for a task
-                if (job == null || job.isCancelled()) {
+                // If the job is null, keep searching for a task
+                if (job == null) {
+                    continue;
+                }
+
+                // If the job is no longer valid, release its resources without running it
+                if (job.isCancelled()) {
+                    job.task.releaseResources();
                     continue;
                 }
 
                 ChunkBuildResult<T> result;
 
+                long start = System.nanoTime();
+
                 try {
                     // Perform the build task with this worker's local resources and obtain the result
                     result = job.task.performBuild(this.pipeline, this.bufferCache, job);
@@ -355,6 +871,8 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
                 } finally {
                     // After the task has executed, it's safe to release any resources attached to the task
                     job.task.releaseResources();
+
+                    ChunkBuilder.this.controller.onTaskCompleted(System.nanoTime() - start);
                 }
 
                 // The result can be null if the task is cancelled
@@ -369,30 +887,79 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         }
 
         /**
-         * Returns the next task which this worker can work on or blocks until one becomes available. If no tasks are
-         * currently available, it will wait on {@link ChunkBuilder#jobNotifier} field until notified.
+         * Returns the next task which this worker can work on, or parks the thread until one might be available. The
+         * worker's own queue is checked first, and then the queues of all other workers are checked for tasks which
+         * can be stolen.
+         *
+         * The parked flag is raised before the queues are checked for a second time so that a task pushed between the
+         * two checks is guaranteed to either be seen or to unpark this thread, preventing lost wake-ups.
          */
         private WrappedTask<T> getNextJob() {
-            WrappedTask<T> job = ChunkBuilder.this.buildQueue.poll();
+            // Workers which have been deactivated by the controller never take tasks
+            if (this.index >= ChunkBuilder.this.activeWorkers) {
+                this.parked = true;
+
+                if (this.running.get()) {
+                    LockSupport.park(this);
+                }
+
+                this.parked = false;
+
+                return null;
+            }
+
+            WrappedTask<T> job = this.findJob();
 
             if (job == null) {
-                synchronized (ChunkBuilder.this.jobNotifier) {
-                    try {
-                        ChunkBuilder.this.jobNotifier.wait();
-                    } catch (InterruptedException ignored) {
-                    }
+                this.parked = true;
+
+                job = this.findJob();
+
+                if (job == null && this.running.get()) {
+                    LockSupport.park(this);
                 }
+
+                this.parked = false;
             }
 
             return job;
         }
+
+        private WrappedTask<T> findJob() {
+            WrappedTask<T> job = this.queue.poll();
+
+            if (job == null) {
+                job = this.steal();
+            }
+
+            return job;
+        }
+
+        private WrappedTask<T> steal() {
+            List<Worker> workers = ChunkBuilder.this.workers;
+            int count = workers.size();
+
+            // Start searching from the next worker over so that the first workers aren't always the ones robbed
+            for (int i = 1; i < count; i++) {
+                Worker victim = workers.get((this.index + i) % count);
+                WrappedTask<T> job = victim.queue.poll();
+
+                if (job != null) {
+                    return job;
+                }
+            }
+
+            return null;
+        }
     }
 
-    private static class WrappedTask<T extends ChunkGraphicsState> implements CancellationSource {
+    static class WrappedTask<T extends ChunkGraphicsState> extends ChunkBuildQueue.Entry implements CancellationSource {
+        private final ChunkRenderContainer<T> render;
         private final ChunkRenderBuildTask<T> task;
         private final CompletableFuture<ChunkBuildResult<T>> future;
 
-        private WrappedTask(ChunkRenderBuildTask<T> task) {
+        private WrappedTask(ChunkRenderContainer<T> render, ChunkRenderBuildTask<T> task) {
+            this.render = render;
             this.task = task;
             this.future = new CompletableFuture<>();
         }
@@ -0,0 +1,233 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderBackend;
+import net.minecraft.client.util.math.Vector3d;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Holds the results of completed build tasks until they can be uploaded on the main thread. Uploads are performed
+ * under a per-frame time and size budget, with the results nearest to the camera being uploaded first. Any results
+ * which do not fit into the budget are carried over to the next frame.
+ *
+ * Results can be added from any thread, but all other methods must only be called from the main thread.
+ */
+public class ChunkUploadQueue<T extends ChunkGraphicsState> {
+    /**
+     * The maximum number of bytes which will be handed to the backend in a single upload call. Splitting the uploads
+     * into batches allows the time budget to be checked in between them without giving up region batching entirely.
+     */
+    private static final long MAX_BATCH_SIZE = 512 * 1024;
+
+    // The weight given to new samples in the exponential moving average of upload latency
+    private static final double LATENCY_SMOOTHING = 0.1D;
+
+    // Results handed over from the worker threads which haven't been seen by the main thread yet
+    private final Deque<PendingUpload<T>> incoming = new ConcurrentLinkedDeque<>();
+
+    // Results waiting to be uploaded, sorted by descending distance so that the nearest result is at the end
+    private final ObjectArrayList<PendingUpload<T>> pending = new ObjectArrayList<>();
+
+    // The scratch list used to pass batches of results to the backend
+    private final ObjectArrayList<ChunkBuildResult<T>> batch = new ObjectArrayList<>();
+
+    private boolean needsSort;
+    private double sortX, sortY, sortZ;
+
+    private long staleResultCount;
+
+    private int lastUploadCount;
+    private long lastUploadSize;
+    private double averageLatency;
+
+    /**
+     * Enqueues the build result to be uploaded during a later frame. This is safe to call from any thread.
+     */
+    public void add(ChunkBuildResult<T> result) {
+        this.incoming.add(new PendingUpload<>(result, System.nanoTime()));
+    }
+
+    /**
+     * Uploads as many pending results as the budget allows, starting with the results nearest to the camera. At least
+     * one result is always uploaded when any are pending so that progress is guaranteed even with a tiny budget.
+     *
+     * @param backend The backend to upload results with
+     * @param camera The current position of the camera, or null if it is not known
+     * @param timeBudget The maximum amount of time in nanoseconds to spend uploading, or zero for no limit
+     * @param sizeBudget The maximum number of bytes of mesh data to upload, or zero for no limit
+     * @return True if any results were uploaded, otherwise false
+     */
+    public boolean upload(ChunkRenderBackend<T> backend, Vector3d camera, long timeBudget, long sizeBudget) {
+        this.lastUploadCount = 0;
+        this.lastUploadSize = 0;
+
+        this.collectIncoming();
+
+        if (this.pending.isEmpty()) {
+            return false;
+        }
+
+        if (this.needsSort || this.hasCameraMoved(camera)) {
+            this.sort(camera);
+        }
+
+        long start = System.nanoTime();
+
+        int count = 0;
+        long size = 0;
+
+        while (!this.pending.isEmpty()) {
+            long batchSize = 0;
+
+            while (!this.pending.isEmpty() && batchSize < MAX_BATCH_SIZE) {
+                PendingUpload<T> upload = this.pending.get(this.pending.size() - 1);
+                int uploadSize = upload.result.data.getMeshSize();
+
+                // Always allow the first result through so that we can't stall forever on a large mesh
+                if (count > 0 && sizeBudget > 0 && size + uploadSize > sizeBudget) {
+                    break;
+                }
+
+                this.pending.remove(this.pending.size() - 1);
+
+                this.updateLatency(start - upload.time);
+
+                // Superseded results are dropped here so that they never cost any upload time
+                if (upload.result.isStale()) {
+                    this.staleResultCount++;
+                    continue;
+                }
+
+                // Occlusion updates don't have any mesh data, so they can be applied immediately
+                if (upload.result.occlusionOnly) {
+                    upload.result.render.setOcclusionData(upload.result.data.getOcclusionData());
+                    continue;
+                }
+
+                this.batch.add(upload.result);
+
+                batchSize += uploadSize;
+                size += uploadSize;
+                count++;
+            }
+
+            if (this.batch.isEmpty()) {
+                break;
+            }
+
+            backend.upload(this.batch.iterator());
+            this.batch.clear();
+
+            if (timeBudget > 0 && System.nanoTime() - start >= timeBudget) {
+                break;
+            }
+
+            if (sizeBudget > 0 && size >= sizeBudget) {
+                break;
+            }
+        }
+
+        this.lastUploadCount = count;
+        this.lastUploadSize = size;
+
+        return count > 0;
+    }
+
+    private void collectIncoming() {
+        PendingUpload<T> upload;
+
+        while ((upload = this.incoming.poll()) != null) {
+            this.pending.add(upload);
+            this.needsSort = true;
+        }
+    }
+
+    private boolean hasCameraMoved(Vector3d camera) {
+        return camera != null && (camera.x != this.sortX || camera.y != this.sortY || camera.z != this.sortZ);
+    }
+
+    private void sort(Vector3d camera) {
+        if (camera != null) {
+            for (PendingUpload<T> upload : this.pending) {
+                upload.distance = upload.result.render.getSquaredDistance(camera.x, camera.y, camera.z);
+            }
+
+            this.sortX = camera.x;
+            this.sortY = camera.y;
+            this.sortZ = camera.z;
+        }
+
+        this.pending.sort((a, b) -> Double.compare(b.distance, a.distance));
+        this.needsSort = false;
+    }
+
+    private void updateLatency(long latency) {
+        this.averageLatency += (latency - this.averageLatency) * LATENCY_SMOOTHING;
+    }
+
+    /**
+     * Drops all pending results without uploading them.
+     */
+    public void clear() {
+        this.incoming.clear();
+        this.pending.clear();
+        this.batch.clear();
+    }
+
+    /**
+     * @return True if no results are waiting to be uploaded
+     */
+    public boolean isEmpty() {
+        return this.pending.isEmpty() && this.incoming.isEmpty();
+    }
+
+    /**
+     * @return The number of results waiting to be uploaded
+     */
+    public int size() {
+        return this.pending.size() + this.incoming.size();
+    }
+
+    /**
+     * @return The number of results uploaded during the last call to {@link ChunkUploadQueue#upload}
+     */
+    public int getLastUploadCount() {
+        return this.lastUploadCount;
+    }
+
+    /**
+     * @return The number of bytes uploaded during the last call to {@link ChunkUploadQueue#upload}
+     */
+    public long getLastUploadSize() {
+        return this.lastUploadSize;
+    }
+
+    /**
+     * @return The total number of results which were discarded because they had been superseded
+     */
+    public long getStaleResultCount() {
+        return this.staleResultCount;
+    }
+
+    /**
+     * @return The smoothed time in nanoseconds between a result becoming available and it being uploaded
+     */
+    public double getAverageLatency() {
+        return this.averageLatency;
+    }
+
+    private static class PendingUpload<T extends ChunkGraphicsState> {
+        private final ChunkBuildResult<T> result;
+        private final long time;
+
+        private double distance;
+
+        private PendingUpload(ChunkBuildResult<T> result, long time) {
+            this.result = result;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides how many chunk build workers should be active at any given time. Workers are added when the backlog of
+ * pending rebuilds would take too long to drain with the current number of workers, and are removed again when there is
+ * no work left or when the main thread's frame time suggests that the workers are competing with it for CPU time.
+ *
+ * Decisions are only made at a fixed interval and only ever change the worker count by one, which prevents the
+ * controller from oscillating in response to a single slow frame or a brief burst of updates.
+ *
+ * The task statistics can be recorded from any thread, but {@link ChunkWorkerController#update(int)} must only be
+ * called from the main thread.
+ */
+public class ChunkWorkerController {
+    // The minimum amount of time between two decisions
+    private static final long UPDATE_INTERVAL = TimeUnit.MILLISECONDS.toNanos(250);
+
+    // If the backlog would take longer than this to drain with the active workers, another worker will be added
+    private static final long TARGET_DRAIN_TIME = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // If the main thread's frame time exceeds this, a worker will be removed to give the render thread more CPU time
+    private static final long FRAME_TIME_LIMIT = TimeUnit.MILLISECONDS.toNanos(33);
+
+    // The weight given to new samples in the exponential moving averages
+    private static final double SMOOTHING = 0.1D;
+
+    private final LongAdder taskTime = new LongAdder();
+    private final LongAdder taskCount = new LongAdder();
+
+    private final int minWorkers, maxWorkers;
+    private int activeWorkers;
+
+    private long lastUpdateTime;
+    private long lastFrameTime;
+
+    private double averageFrameTime;
+    private double averageTaskTime;
+
+    private String lastDecision = "none";
+
+    public ChunkWorkerController(int minWorkers, int maxWorkers) {
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.activeWorkers = (minWorkers + maxWorkers + 1) / 2;
+    }
+
+    /**
+     * Records the time taken by a completed build task. This is safe to call from any thread.
+     * @param duration The time in nanoseconds spent performing the task
+     */
+    public void onTaskCompleted(long duration) {
+        this.taskTime.add(duration);
+        this.taskCount.increment();
+    }
+
+    /**
+     * Samples the main thread's frame time and possibly changes the number of active workers. This should be called
+     * once per frame.
+     * @param backlog The number of rebuilds which are waiting to be performed
+     * @return The number of workers which should now be active
+     */
+    public int update(int backlog) {
+        long now = System.nanoTime();
+
+        if (this.lastFrameTime != 0L) {
+            this.averageFrameTime += ((now - this.lastFrameTime) - this.averageFrameTime) * SMOOTHING;
+        }
+
+        this.lastFrameTime = now;
+
+        if (now - this.lastUpdateTime < UPDATE_INTERVAL) {
+            return this.activeWorkers;
+        }
+
+        this.lastUpdateTime = now;
+
+        long count = this.taskCount.sumThenReset();
+        long time = this.taskTime.sumThenReset();
+
+        if (count > 0) {
+            this.averageTaskTime += (((double) time / count) - this.averageTaskTime) * SMOOTHING;
+        }
+
+        double drainTime = (backlog * this.averageTaskTime) / this.activeWorkers;
+
+        if (this.averageFrameTime > FRAME_TIME_LIMIT) {
+            this.shrink("frame time");
+        } else if (drainTime > TARGET_DRAIN_TIME) {
+            this.grow("backlog");
+        } else if (backlog == 0) {
+            this.shrink("idle");
+        }
+
+        return this.activeWorkers;
+    }
+
+    private void grow(String reason) {
+        if (this.activeWorkers < this.maxWorkers) {
+            this.activeWorkers++;
+            this.lastDecision = "grow (" + reason + ")";
+        }
+    }
+
+    private void shrink(String reason) {
+        if (this.activeWorkers > this.minWorkers) {
+            this.activeWorkers--;
+            this.lastDecision = "shrink (" + reason + ")";
+        }
+    }
+
+    public int getActiveWorkers() {
+        return this.activeWorkers;
+    }
+
+    public int getMaxWorkers() {
+        return this.maxWorkers;
+    }
+
+    public String getDebugString() {
+        return String.format("Chunk Workers: %d/%d, last: %s, task: %.2f ms, frame: %.1f ms", this.activeWorkers,
+                this.maxWorkers, this.lastDecision, this.averageTaskTime / 1_000_000.0D, this.averageFrameTime / 1_000_000.0D);
+    }
+}
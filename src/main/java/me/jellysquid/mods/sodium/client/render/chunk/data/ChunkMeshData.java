@@ -4,6 +4,7 @@ import me.jellysquid.mods.sodium.client.gl.buffer.VertexData;
 import me.jellysquid.mods.sodium.client.gl.util.BufferSlice;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 
+import java.nio.ByteBuffer;
 import java.util.EnumMap;
 import java.util.Map;
 
@@ -13,6 +14,14 @@ public class ChunkMeshData {
     private final EnumMap<ModelQuadFacing, BufferSlice> parts = new EnumMap<>(ModelQuadFacing.class);
     private VertexData vertexData;
 
+    // The vertex ranges belonging to each block in this mesh, or null if they were not tracked. Each range is stored as
+    // three consecutive integers: the local block index, the byte offset relative to the start of the facing's slice,
+    // and the length in bytes.
+    private EnumMap<ModelQuadFacing, int[]> blockRanges;
+
+    // A reference to the vertex data which is kept after it has been uploaded, so that the mesh can later be patched
+    private ByteBuffer retainedVertexData;
+
     public void setVertexData(VertexData vertexData) {
         this.vertexData = vertexData;
     }
@@ -21,6 +30,18 @@ public class ChunkMeshData {
         this.parts.put(facing, slice);
     }
 
+    /**
+     * Attaches the vertex ranges of each block for the given facing. Meshes with block ranges keep a reference to their
+     * vertex data after it has been uploaded.
+     */
+    public void setBlockRanges(ModelQuadFacing facing, int[] ranges) {
+        if (this.blockRanges == null) {
+            this.blockRanges = new EnumMap<>(ModelQuadFacing.class);
+        }
+
+        this.blockRanges.put(facing, ranges);
+    }
+
     public VertexData takeVertexData() {
         VertexData data = this.vertexData;
 
@@ -30,9 +51,20 @@ public class ChunkMeshData {
 
         this.vertexData = null;
 
+        if (this.blockRanges != null) {
+            this.retainedVertexData = data.buffer;
+        }
+
         return data;
     }
 
+    /**
+     * @return The vertex data of this mesh which is waiting to be uploaded, or null if it has already been taken
+     */
+    public VertexData getVertexData() {
+        return this.vertexData;
+    }
+
     public boolean hasVertexData() {
         return this.vertexData != null;
     }
@@ -45,6 +77,36 @@ public class ChunkMeshData {
         return 0;
     }
 
+    /**
+     * @return True if the vertex data of this mesh and the ranges of each block within it are still available
+     */
+    public boolean isRetained() {
+        return this.blockRanges != null;
+    }
+
+    /**
+     * @return The vertex data of this mesh, regardless of whether it has already been uploaded, or null if the mesh
+     *         does not retain its data
+     */
+    public ByteBuffer getRetainedVertexData() {
+        if (this.vertexData != null) {
+            return this.vertexData.buffer;
+        }
+
+        return this.retainedVertexData;
+    }
+
+    /**
+     * @return The vertex ranges of each block for the given facing, or null if the facing has no geometry
+     */
+    public int[] getBlockRanges(ModelQuadFacing facing) {
+        return this.blockRanges != null ? this.blockRanges.get(facing) : null;
+    }
+
+    public BufferSlice getSlice(ModelQuadFacing facing) {
+        return this.parts.get(facing);
+    }
+
     public Iterable<? extends Map.Entry<ModelQuadFacing, BufferSlice>> getSlices() {
         return this.parts.entrySet();
     }
@@ -29,6 +29,14 @@ public class ChunkRenderBounds {
         this.z2 = origin.getMaxZ() + 1;
     }
 
+    /**
+     * @return The smallest bounds which encompass both of the given bounds
+     */
+    public static ChunkRenderBounds union(ChunkRenderBounds a, ChunkRenderBounds b) {
+        return new ChunkRenderBounds(Math.min(a.x1, b.x1), Math.min(a.y1, b.y1), Math.min(a.z1, b.z1),
+                Math.max(a.x2, b.x2), Math.max(a.y2, b.y2), Math.max(a.z2, b.z2));
+    }
+
     public static class Builder {
         // Bit-mask of the blocks set on each axis
         private int x = 0, y = 0, z = 0;
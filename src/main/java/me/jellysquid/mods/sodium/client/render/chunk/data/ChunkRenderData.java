@@ -32,6 +32,7 @@ public class ChunkRenderData {
     private List<Sprite> animatedSprites;
 
     private boolean isEmpty;
+    private boolean retainsGeometry;
     private int meshByteSize;
     private int facesWithData;
 
@@ -84,6 +85,14 @@ public class ChunkRenderData {
         return this.facesWithData;
     }
 
+    /**
+     * @return True if every mesh of this render retains its vertex data and block ranges, allowing it to be patched
+     *         in place of a full rebuild
+     */
+    public boolean retainsGeometry() {
+        return this.retainsGeometry;
+    }
+
     public static class Builder {
         private final List<BlockEntity> globalBlockEntities = new ArrayList<>();
         private final List<BlockEntity> blockEntities = new ArrayList<>();
@@ -93,6 +102,7 @@ public class ChunkRenderData {
 
         private ChunkOcclusionData occlusionData;
         private ChunkRenderBounds bounds = ChunkRenderBounds.ALWAYS_FALSE;
+        private boolean retainsGeometry;
 
         public Builder() {
             for (BlockRenderPass pass : BlockRenderPass.VALUES) {
@@ -108,6 +118,10 @@ public class ChunkRenderData {
             this.occlusionData = data;
         }
 
+        public void setRetainsGeometry(boolean retainsGeometry) {
+            this.retainsGeometry = retainsGeometry;
+        }
+
         /**
          * Adds a sprite to this data container for tracking. If the sprite is tickable, it will be ticked every frame
          * before rendering as necessary.
@@ -153,6 +167,7 @@ public class ChunkRenderData {
             }
 
             data.isEmpty = this.globalBlockEntities.isEmpty() && this.blockEntities.isEmpty() && facesWithData == 0;
+            data.retainsGeometry = this.retainsGeometry;
             data.meshByteSize = size;
             data.facesWithData = facesWithData;
 
@@ -0,0 +1,30 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.xhfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.format.MaterialIdHolder;
+import me.jellysquid.mods.sodium.client.util.Norm10b;
+import net.minecraft.client.util.math.Vector3f;
+
+import java.nio.ByteBuffer;
+
+public class CompactXHFPModelVertexBufferWriterNio extends XHFPModelVertexBufferWriterNio {
+    public CompactXHFPModelVertexBufferWriterNio(VertexBufferView backingBuffer, MaterialIdHolder idHolder) {
+        super(backingBuffer, DefaultModelVertexFormats.MODEL_VERTEX_COMPACT_XHFP, idHolder);
+    }
+
+    @Override
+    protected void writeBlockId(ByteBuffer buffer, int i, short materialId) {
+        buffer.putShort(i + 6, materialId);
+    }
+
+    @Override
+    protected int packNormal(Vector3f normal) {
+        return Norm10b.pack(normal, 0.0f);
+    }
+
+    @Override
+    protected int packTangent(float x, float y, float z, float w) {
+        return Norm10b.pack(x, y, z, w);
+    }
+}
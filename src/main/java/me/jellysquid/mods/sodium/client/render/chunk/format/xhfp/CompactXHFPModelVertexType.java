@@ -0,0 +1,78 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.xhfp;
+
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttribute;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeFormat;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.type.BlittableVertexType;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkMeshAttribute;
+import me.jellysquid.mods.sodium.client.render.chunk.format.MaterialIdHolder;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import net.minecraft.client.render.VertexConsumer;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * Like XHFPModelVertexType, but with the extended attributes packed into 32 bytes instead of 48. The block ID is
+ * stored as a short in the padding after the position, and the normal and tangent are stored as signed 10-10-10-2
+ * words. The positions, colors, texture coordinates and light are stored exactly like before.
+ *
+ * There are no spare components left in this format, so quads can't be merged when it is used.
+ */
+public class CompactXHFPModelVertexType implements ChunkVertexType {
+    public static final GlVertexFormat<ChunkMeshAttribute> VERTEX_FORMAT = GlVertexAttribute.builder(ChunkMeshAttribute.class, 32)
+            .addElement(ChunkMeshAttribute.POSITION, 0, GlVertexAttributeFormat.UNSIGNED_SHORT, 3, false)
+            .addElement(ChunkMeshAttribute.BLOCK_ID, 6, GlVertexAttributeFormat.SHORT, 1, false)
+            .addElement(ChunkMeshAttribute.COLOR, 8, GlVertexAttributeFormat.UNSIGNED_BYTE, 4, true)
+            .addElement(ChunkMeshAttribute.TEXTURE, 12, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, false)
+            .addElement(ChunkMeshAttribute.LIGHT, 16, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, true)
+            .addElement(ChunkMeshAttribute.MID_TEX_COORD, 20, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, true)
+            .addElement(ChunkMeshAttribute.TANGENT, 24, GlVertexAttributeFormat.INT_2_10_10_10_REV, 4, true)
+            .addElement(ChunkMeshAttribute.NORMAL, 28, GlVertexAttributeFormat.INT_2_10_10_10_REV, 4, true)
+            .build();
+
+    /**
+     * @return True if the packed normal format used by this vertex type can be read by the graphics driver
+     */
+    public static boolean isSupported() {
+        GLCapabilities capabilities = GL.getCapabilities();
+
+        return capabilities.OpenGL33 || capabilities.GL_ARB_vertex_type_2_10_10_10_rev;
+    }
+
+    @Override
+    public ModelVertexSink createFallbackWriter(VertexConsumer consumer) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ModelVertexSink createBufferWriter(VertexBufferView buffer, boolean direct) {
+        return this.createBufferWriter(buffer, direct, new MaterialIdHolder());
+    }
+
+    @Override
+    public ModelVertexSink createBufferWriter(VertexBufferView buffer, boolean direct, MaterialIdHolder idHolder) {
+        return direct ? new CompactXHFPModelVertexBufferWriterUnsafe(buffer, idHolder) : new CompactXHFPModelVertexBufferWriterNio(buffer, idHolder);
+    }
+
+    @Override
+    public BlittableVertexType<ModelVertexSink> asBlittable() {
+        return this;
+    }
+
+    @Override
+    public GlVertexFormat<ChunkMeshAttribute> getCustomVertexFormat() {
+        return VERTEX_FORMAT;
+    }
+
+    @Override
+    public float getModelScale() {
+        return XHFPModelVertexType.MODEL_SCALE;
+    }
+
+    @Override
+    public float getTextureScale() {
+        return XHFPModelVertexType.TEXTURE_SCALE;
+    }
+}
@@ -76,19 +76,15 @@ public abstract class NormalHelper {
 			return;
 		}*/
 
-		final float x0 = q.x(0);
-		final float y0 = q.y(0);
-		final float z0 = q.z(0);
-		final float x1 = q.x(1);
-		final float y1 = q.y(1);
-		final float z1 = q.z(1);
-		final float x2 = q.x(2);
-		final float y2 = q.y(2);
-		final float z2 = q.z(2);
-		final float x3 = q.x(3);
-		final float y3 = q.y(3);
-		final float z3 = q.z(3);
+		computeFaceNormal(saveTo, q.x(0), q.y(0), q.z(0), q.x(1), q.y(1), q.z(1), q.x(2), q.y(2), q.z(2), q.x(3), q.y(3), q.z(3));
+	}
 
+	/**
+	 * Version of {@link #computeFaceNormal(Vector3f, QuadView)} that accepts the positions of the vertices directly.
+	 */
+	public static void computeFaceNormal(@NotNull Vector3f saveTo,
+										 float x0, float y0, float z0, float x1, float y1, float z1,
+										 float x2, float y2, float z2, float x3, float y3, float z3) {
 		final float dx0 = x2 - x0;
 		final float dy0 = y2 - y0;
 		final float dz0 = z2 - z0;
@@ -110,5 +106,82 @@ public abstract class NormalHelper {
 
 		saveTo.set(normX, normY, normZ);
 	}
-}
 
+	/**
+	 * Computes the tangent of a quad from the positions and texture coordinates of its first three vertices and saves
+	 * it in the provided non-null vector.
+	 *
+	 * <p>Implementation based on the algorithm found here:
+	 * https://github.com/IrisShaders/ShaderDoc/blob/master/vertex-format-extensions.md#surface-normal-vector
+	 *
+	 * @param normal The face normal of the quad
+	 * @return The sign of the bitangent relative to the cross product of the tangent and the normal, as -1 or 1
+	 */
+	public static float computeTangent(@NotNull Vector3f saveTo, Vector3f normal,
+									   float x0, float y0, float z0, float x1, float y1, float z1, float x2, float y2, float z2,
+									   float u0, float v0, float u1, float v1, float u2, float v2) {
+		float edge1x = x1 - x0;
+		float edge1y = y1 - y0;
+		float edge1z = z1 - z0;
+
+		float edge2x = x2 - x0;
+		float edge2y = y2 - y0;
+		float edge2z = z2 - z0;
+
+		float deltaU1 = u1 - u0;
+		float deltaV1 = v1 - v0;
+		float deltaU2 = u2 - u0;
+		float deltaV2 = v2 - v0;
+
+		float fdenom = deltaU1 * deltaV2 - deltaU2 * deltaV1;
+		float f;
+
+		if (fdenom == 0.0) {
+			f = 1.0f;
+		} else {
+			f = 1.0f / fdenom;
+		}
+
+		float tangentx = f * (deltaV2 * edge1x - deltaV1 * edge2x);
+		float tangenty = f * (deltaV2 * edge1y - deltaV1 * edge2y);
+		float tangentz = f * (deltaV2 * edge1z - deltaV1 * edge2z);
+		float tcoeff = rsqrt(tangentx * tangentx + tangenty * tangenty + tangentz * tangentz);
+		tangentx *= tcoeff;
+		tangenty *= tcoeff;
+		tangentz *= tcoeff;
+
+		float bitangentx = f * (-deltaU2 * edge1x + deltaU1 * edge2x);
+		float bitangenty = f * (-deltaU2 * edge1y + deltaU1 * edge2y);
+		float bitangentz = f * (-deltaU2 * edge1z + deltaU1 * edge2z);
+		float bitcoeff = rsqrt(bitangentx * bitangentx + bitangenty * bitangenty + bitangentz * bitangentz);
+		bitangentx *= bitcoeff;
+		bitangenty *= bitcoeff;
+		bitangentz *= bitcoeff;
+
+		// predicted bitangent = tangent × normal
+		// Compute the determinant of the following matrix to get the cross product
+		//  i  j  k
+		// tx ty tz
+		// nx ny nz
+
+		float pbitangentx =   tangenty * normal.getZ() - tangentz * normal.getY();
+		float pbitangenty = -(tangentx * normal.getZ() - tangentz * normal.getX());
+		float pbitangentz =   tangentx * normal.getY() - tangenty * normal.getX();
+
+		float dot = bitangentx * pbitangentx + bitangenty * pbitangenty + bitangentz * pbitangentz;
+
+		saveTo.set(tangentx, tangenty, tangentz);
+
+		return dot < 0 ? -1.0f : 1.0f;
+	}
+
+	private static float rsqrt(float value) {
+		if (value == 0.0f) {
+			// You heard it here first, folks: 1 divided by 0 equals 1
+			// In actuality, this is a workaround for normalizing a zero length vector (leaving it as zero length)
+			return 1.0f;
+		} else {
+			return (float) (1.0 / Math.sqrt(value));
+		}
+	}
+}
@@ -5,18 +5,18 @@ import java.nio.ByteBuffer;
 public class QuadView {
 	ByteBuffer buffer;
 	int writeOffset;
-	private static final int STRIDE = 48;
+	int stride;
 
 	float x(int index) {
-		return normalizeVertexPositionShortAsFloat(buffer.getShort(writeOffset - STRIDE * (3 - index)));
+		return normalizeVertexPositionShortAsFloat(buffer.getShort(writeOffset - stride * (3 - index)));
 	}
 
 	float y(int index) {
-		return normalizeVertexPositionShortAsFloat(buffer.getShort(writeOffset + 2 - STRIDE * (3 - index)));
+		return normalizeVertexPositionShortAsFloat(buffer.getShort(writeOffset + 2 - stride * (3 - index)));
 	}
 
 	float z(int index) {
-		return normalizeVertexPositionShortAsFloat(buffer.getShort(writeOffset + 4 - STRIDE * (3 - index)));
+		return normalizeVertexPositionShortAsFloat(buffer.getShort(writeOffset + 4 - stride * (3 - index)));
 	}
 
 	// TODO: Verify that this works with the new changes to the CVF
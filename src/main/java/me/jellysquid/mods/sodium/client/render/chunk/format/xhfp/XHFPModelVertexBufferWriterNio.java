@@ -4,6 +4,7 @@ import java.nio.ByteBuffer;
 
 import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
 import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferWriterNio;
+import me.jellysquid.mods.sodium.client.model.vertex.type.BufferVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.format.MaterialIdHolder;
 import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
@@ -16,19 +17,23 @@ public class XHFPModelVertexBufferWriterNio extends VertexBufferWriterNio implem
     private MaterialIdHolder idHolder;
 
     public XHFPModelVertexBufferWriterNio(VertexBufferView backingBuffer, MaterialIdHolder idHolder) {
-        super(backingBuffer, DefaultModelVertexFormats.MODEL_VERTEX_XHFP);
+        this(backingBuffer, DefaultModelVertexFormats.MODEL_VERTEX_XHFP, idHolder);
+    }
+
+    protected XHFPModelVertexBufferWriterNio(VertexBufferView backingBuffer, BufferVertexType<?> vertexType, MaterialIdHolder idHolder) {
+        super(backingBuffer, vertexType);
 
         this.idHolder = idHolder;
+        this.currentQuad.stride = this.vertexStride;
     }
 
-    private static final int STRIDE = 48;
-
     int vertexCount = 0;
     float uSum;
     float vSum;
 
     private QuadView currentQuad = new QuadView();
     private Vector3f normal = new Vector3f();
+    private Vector3f tangent = new Vector3f();
 
     @Override
     public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
@@ -51,6 +56,7 @@ public class XHFPModelVertexBufferWriterNio extends VertexBufferWriterNio implem
 
     private void writeQuadInternal(short x, short y, short z, int color, short u, short v, int light, short materialId) {
         int i = this.writeOffset;
+        int stride = this.vertexStride;
 
         vertexCount++;
         // NB: uSum and vSum must already be incremented outside of this function.
@@ -64,22 +70,18 @@ public class XHFPModelVertexBufferWriterNio extends VertexBufferWriterNio implem
         buffer.putShort(i + 14, v);
         buffer.putInt(i + 16, light);
         // NB: We don't set midTexCoord, normal, and tangent here, they will be filled in later.
-        // block ID
-        buffer.putFloat(i + 32, materialId);
-        buffer.putFloat(i + 36, (short) 0);
-        buffer.putFloat(i + 40, (short) 0);
-        buffer.putFloat(i + 44, (short) 0);
+        this.writeBlockId(buffer, i, materialId);
 
         if (vertexCount == 4) {
             // TODO: Consider applying similar vertex coordinate transformations as the normal HFP texture coordinates
             short midU = (short)(65536.0F * (uSum * 0.25f));
             short midV = (short)(65536.0F * (vSum * 0.25f));
-            int midTexCoord = (midV << 16) | midU;
+            int midTexCoord = (midV << 16) | (midU & 0xFFFF);
 
             buffer.putInt(i + 20, midTexCoord);
-            buffer.putInt(i + 20 - STRIDE, midTexCoord);
-            buffer.putInt(i + 20 - STRIDE * 2, midTexCoord);
-            buffer.putInt(i + 20 - STRIDE * 3, midTexCoord);
+            buffer.putInt(i + 20 - stride, midTexCoord);
+            buffer.putInt(i + 20 - stride * 2, midTexCoord);
+            buffer.putInt(i + 20 - stride * 3, midTexCoord);
 
             vertexCount = 0;
             uSum = 0;
@@ -92,104 +94,71 @@ public class XHFPModelVertexBufferWriterNio extends VertexBufferWriterNio implem
             currentQuad.buffer = this.byteBuffer;
             currentQuad.writeOffset = this.writeOffset;
             NormalHelper.computeFaceNormal(normal, currentQuad);
-            int packedNormal = NormalHelper.packNormal(normal, 0.0f);
+            int packedNormal = this.packNormal(normal);
 
             buffer.putInt(i + 28, packedNormal);
-            buffer.putInt(i + 28 - STRIDE, packedNormal);
-            buffer.putInt(i + 28 - STRIDE * 2, packedNormal);
-            buffer.putInt(i + 28 - STRIDE * 3, packedNormal);
+            buffer.putInt(i + 28 - stride, packedNormal);
+            buffer.putInt(i + 28 - stride * 2, packedNormal);
+            buffer.putInt(i + 28 - stride * 3, packedNormal);
 
             // Capture all of the relevant vertex positions
-            float x0 = normalizeVertexPositionShortAsFloat(buffer.getShort(i - STRIDE * 3));
-            float y0 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 2 - STRIDE * 3));
-            float z0 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 4 - STRIDE * 3));
-
-            float x1 = normalizeVertexPositionShortAsFloat(buffer.getShort(i - STRIDE * 2));
-            float y1 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 2 - STRIDE * 2));
-            float z1 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 4 - STRIDE * 2));
-
-            float x2 = normalizeVertexPositionShortAsFloat(buffer.getShort(i - STRIDE));
-            float y2 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 2 - STRIDE));
-            float z2 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 4 - STRIDE));
-
-            float edge1x = x1 - x0;
-            float edge1y = y1 - y0;
-            float edge1z = z1 - z0;
-
-            float edge2x = x2 - x0;
-            float edge2y = y2 - y0;
-            float edge2z = z2 - z0;
-
-            float u0 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 12 - STRIDE * 3));
-            float v0 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 14 - STRIDE * 3));
-
-            float u1 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 12 - STRIDE * 2));
-            float v1 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 14 - STRIDE * 2));
-
-            float u2 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 12 - STRIDE));
-            float v2 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 14 - STRIDE));
-
-            float deltaU1 = u1 - u0;
-            float deltaV1 = v1 - v0;
-            float deltaU2 = u2 - u0;
-            float deltaV2 = v2 - v0;
-
-            float fdenom = deltaU1 * deltaV2 - deltaU2 * deltaV1;
-            float f;
-
-            if (fdenom == 0.0) {
-                f = 1.0f;
-            } else {
-                f = 1.0f / fdenom;
-            }
-
-            float tangentx = f * (deltaV2 * edge1x - deltaV1 * edge2x);
-            float tangenty = f * (deltaV2 * edge1y - deltaV1 * edge2y);
-            float tangentz = f * (deltaV2 * edge1z - deltaV1 * edge2z);
-            float tcoeff = rsqrt(tangentx * tangentx + tangenty * tangenty + tangentz * tangentz);
-            tangentx *= tcoeff;
-            tangenty *= tcoeff;
-            tangentz *= tcoeff;
-
-            float bitangentx = f * (-deltaU2 * edge1x + deltaU1 * edge2x);
-            float bitangenty = f * (-deltaU2 * edge1y + deltaU1 * edge2y);
-            float bitangentz = f * (-deltaU2 * edge1z + deltaU1 * edge2z);
-            float bitcoeff = rsqrt(bitangentx * bitangentx + bitangenty * bitangenty + bitangentz * bitangentz);
-            bitangentx *= bitcoeff;
-            bitangenty *= bitcoeff;
-            bitangentz *= bitcoeff;
-
-            // predicted bitangent = tangent × normal
-            // Compute the determinant of the following matrix to get the cross product
-            //  i  j  k
-            // tx ty tz
-            // nx ny nz
-
-            float pbitangentx =   tangenty * normal.getZ() - tangentz * normal.getY();
-            float pbitangenty = -(tangentx * normal.getZ() - tangentz * normal.getX());
-            float pbitangentz =   tangentx * normal.getX() - tangenty * normal.getY();
-
-            float dot = bitangentx * pbitangentx + bitangenty + pbitangenty + bitangentz * pbitangentz;
-            byte tangentW;
-
-            if (dot < 0) {
-                tangentW = -127;
-            } else {
-                tangentW = 127;
-            }
-
-            int tangent = Norm3b.pack(tangentx, tangenty, tangentz);
-            tangent |= (tangentW << 24);
-
-            buffer.putInt(i + 24, tangent);
-            buffer.putInt(i + 24 - STRIDE, tangent);
-            buffer.putInt(i + 24 - STRIDE * 2, tangent);
-            buffer.putInt(i + 24 - STRIDE * 3, tangent);
+            float x0 = normalizeVertexPositionShortAsFloat(buffer.getShort(i - stride * 3));
+            float y0 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 2 - stride * 3));
+            float z0 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 4 - stride * 3));
+
+            float x1 = normalizeVertexPositionShortAsFloat(buffer.getShort(i - stride * 2));
+            float y1 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 2 - stride * 2));
+            float z1 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 4 - stride * 2));
+
+            float x2 = normalizeVertexPositionShortAsFloat(buffer.getShort(i - stride));
+            float y2 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 2 - stride));
+            float z2 = normalizeVertexPositionShortAsFloat(buffer.getShort(i + 4 - stride));
+
+            float u0 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 12 - stride * 3));
+            float v0 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 14 - stride * 3));
+
+            float u1 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 12 - stride * 2));
+            float v1 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 14 - stride * 2));
+
+            float u2 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 12 - stride));
+            float v2 = normalizeVertexTextureShortAsFloat(buffer.getShort(i + 14 - stride));
+
+            float tangentW = NormalHelper.computeTangent(tangent, normal, x0, y0, z0, x1, y1, z1, x2, y2, z2, u0, v0, u1, v1, u2, v2);
+            int packedTangent = this.packTangent(tangent.getX(), tangent.getY(), tangent.getZ(), tangentW);
+
+            buffer.putInt(i + 24, packedTangent);
+            buffer.putInt(i + 24 - stride, packedTangent);
+            buffer.putInt(i + 24 - stride * 2, packedTangent);
+            buffer.putInt(i + 24 - stride * 3, packedTangent);
         }
 
         this.advance();
     }
 
+    /**
+     * Writes the block ID of the vertex starting at the given offset.
+     */
+    protected void writeBlockId(ByteBuffer buffer, int i, short materialId) {
+        buffer.putFloat(i + 32, materialId);
+        buffer.putFloat(i + 36, (short) 0);
+        buffer.putFloat(i + 40, (short) 0);
+        buffer.putFloat(i + 44, (short) 0);
+    }
+
+    /**
+     * @return The given face normal packed into the normal attribute
+     */
+    protected int packNormal(Vector3f normal) {
+        return NormalHelper.packNormal(normal, 0.0f);
+    }
+
+    /**
+     * @return The given tangent and the sign of its bitangent packed into the tangent attribute
+     */
+    protected int packTangent(float x, float y, float z, float w) {
+        return Norm3b.pack(x, y, z) | (((byte) (w * 127.0f)) << 24);
+    }
+
     // TODO: Verify that this works with the new changes to the CVF
     private static float normalizeVertexPositionShortAsFloat(short value) {
         return (value & 0xFFFF) * (1.0f / 65535.0f);
@@ -199,14 +168,4 @@ public class XHFPModelVertexBufferWriterNio extends VertexBufferWriterNio implem
     private static float normalizeVertexTextureShortAsFloat(short value) {
         return (value & 0xFFFF) * (1.0f / 32768.0f);
     }
-
-    private static float rsqrt(float value) {
-        if (value == 0.0f) {
-            // You heard it here first, folks: 1 divided by 0 equals 1
-            // In actuality, this is a workaround for normalizing a zero length vector (leaving it as zero length)
-            return 1.0f;
-        } else {
-            return (float) (1.0 / Math.sqrt(value));
-        }
-    }
 }
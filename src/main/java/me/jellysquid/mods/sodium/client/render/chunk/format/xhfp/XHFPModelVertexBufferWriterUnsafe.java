@@ -0,0 +1,158 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.xhfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferWriterUnsafe;
+import me.jellysquid.mods.sodium.client.model.vertex.type.BufferVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.format.MaterialIdHolder;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexUtil;
+import me.jellysquid.mods.sodium.client.util.Norm3b;
+import net.minecraft.client.util.math.Vector3f;
+
+/**
+ * An unsafe version of {@link XHFPModelVertexBufferWriterNio}. Instead of writing each vertex as it arrives and then
+ * patching the mid-texture coordinates, normal and tangent into all four vertices of a quad, the vertices of a quad
+ * are held until the last one arrives. The per-quad attributes are then computed from the held values and all four
+ * vertices are written in a single pass. The written data is identical to that of the NIO writer.
+ */
+public class XHFPModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe implements ModelVertexSink {
+    private final MaterialIdHolder idHolder;
+
+    // The attributes of the vertices in the current quad which have been written so far
+    private final short[] x = new short[4], y = new short[4], z = new short[4];
+    private final short[] u = new short[4], v = new short[4];
+    private final int[] color = new int[4], light = new int[4];
+    private final short[] materialId = new short[4];
+
+    private int vertexCount;
+    private float uSum, vSum;
+
+    private final Vector3f normal = new Vector3f();
+    private final Vector3f tangent = new Vector3f();
+
+    public XHFPModelVertexBufferWriterUnsafe(VertexBufferView backingBuffer, MaterialIdHolder idHolder) {
+        this(backingBuffer, DefaultModelVertexFormats.MODEL_VERTEX_XHFP, idHolder);
+    }
+
+    protected XHFPModelVertexBufferWriterUnsafe(VertexBufferView backingBuffer, BufferVertexType<?> vertexType, MaterialIdHolder idHolder) {
+        super(backingBuffer, vertexType);
+
+        this.idHolder = idHolder;
+    }
+
+    @Override
+    public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
+        int i = this.vertexCount;
+
+        this.uSum += u;
+        this.vSum += v;
+
+        this.x[i] = ModelVertexUtil.denormalizeVertexPositionFloatAsShort(x);
+        this.y[i] = ModelVertexUtil.denormalizeVertexPositionFloatAsShort(y);
+        this.z[i] = ModelVertexUtil.denormalizeVertexPositionFloatAsShort(z);
+        this.color[i] = color;
+        this.u[i] = ModelVertexUtil.denormalizeVertexTextureFloatAsShort(u);
+        this.v[i] = ModelVertexUtil.denormalizeVertexTextureFloatAsShort(v);
+        this.light[i] = ModelVertexUtil.encodeLightMapTexCoord(light);
+        this.materialId[i] = this.idHolder.id;
+
+        if (i == 3) {
+            this.writeQuadInternal();
+            this.vertexCount = 0;
+        } else {
+            this.vertexCount = i + 1;
+        }
+    }
+
+    private void writeQuadInternal() {
+        short[] x = this.x, y = this.y, z = this.z;
+        short[] u = this.u, v = this.v;
+
+        short midU = (short) (65536.0F * (this.uSum * 0.25f));
+        short midV = (short) (65536.0F * (this.vSum * 0.25f));
+        int midTexCoord = (midV << 16) | (midU & 0xFFFF);
+
+        this.uSum = 0;
+        this.vSum = 0;
+
+        float x0 = normalizeVertexPositionShortAsFloat(x[0]);
+        float y0 = normalizeVertexPositionShortAsFloat(y[0]);
+        float z0 = normalizeVertexPositionShortAsFloat(z[0]);
+
+        float x1 = normalizeVertexPositionShortAsFloat(x[1]);
+        float y1 = normalizeVertexPositionShortAsFloat(y[1]);
+        float z1 = normalizeVertexPositionShortAsFloat(z[1]);
+
+        float x2 = normalizeVertexPositionShortAsFloat(x[2]);
+        float y2 = normalizeVertexPositionShortAsFloat(y[2]);
+        float z2 = normalizeVertexPositionShortAsFloat(z[2]);
+
+        Vector3f normal = this.normal;
+        NormalHelper.computeFaceNormal(normal, x0, y0, z0, x1, y1, z1, x2, y2, z2,
+                normalizeVertexPositionShortAsFloat(x[3]),
+                normalizeVertexPositionShortAsFloat(y[3]),
+                normalizeVertexPositionShortAsFloat(z[3]));
+
+        int packedNormal = this.packNormal(normal);
+
+        Vector3f tangent = this.tangent;
+        float tangentW = NormalHelper.computeTangent(tangent, normal, x0, y0, z0, x1, y1, z1, x2, y2, z2,
+                normalizeVertexTextureShortAsFloat(u[0]), normalizeVertexTextureShortAsFloat(v[0]),
+                normalizeVertexTextureShortAsFloat(u[1]), normalizeVertexTextureShortAsFloat(v[1]),
+                normalizeVertexTextureShortAsFloat(u[2]), normalizeVertexTextureShortAsFloat(v[2]));
+
+        int packedTangent = this.packTangent(tangent.getX(), tangent.getY(), tangent.getZ(), tangentW);
+
+        for (int j = 0; j < 4; j++) {
+            long i = this.writePointer;
+
+            UNSAFE.putShort(i, x[j]);
+            UNSAFE.putShort(i + 2, y[j]);
+            UNSAFE.putShort(i + 4, z[j]);
+            UNSAFE.putInt(i + 8, this.color[j]);
+            UNSAFE.putShort(i + 12, u[j]);
+            UNSAFE.putShort(i + 14, v[j]);
+            UNSAFE.putInt(i + 16, this.light[j]);
+            UNSAFE.putInt(i + 20, midTexCoord);
+            UNSAFE.putInt(i + 24, packedTangent);
+            UNSAFE.putInt(i + 28, packedNormal);
+
+            this.writeBlockId(i, this.materialId[j]);
+
+            this.advance();
+        }
+    }
+
+    /**
+     * Writes the block ID of the vertex starting at the given address.
+     */
+    protected void writeBlockId(long i, short materialId) {
+        UNSAFE.putFloat(i + 32, materialId);
+        UNSAFE.putFloat(i + 36, 0.0f);
+        UNSAFE.putFloat(i + 40, 0.0f);
+        UNSAFE.putFloat(i + 44, 0.0f);
+    }
+
+    /**
+     * @return The given face normal packed into the normal attribute
+     */
+    protected int packNormal(Vector3f normal) {
+        return NormalHelper.packNormal(normal, 0.0f);
+    }
+
+    /**
+     * @return The given tangent and the sign of its bitangent packed into the tangent attribute
+     */
+    protected int packTangent(float x, float y, float z, float w) {
+        return Norm3b.pack(x, y, z) | (((byte) (w * 127.0f)) << 24);
+    }
+
+    private static float normalizeVertexPositionShortAsFloat(short value) {
+        return (value & 0xFFFF) * (1.0f / 65535.0f);
+    }
+
+    private static float normalizeVertexTextureShortAsFloat(short value) {
+        return (value & 0xFFFF) * (1.0f / 32768.0f);
+    }
+}
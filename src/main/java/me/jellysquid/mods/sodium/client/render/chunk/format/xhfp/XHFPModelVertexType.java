@@ -9,9 +9,6 @@ import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkMeshAttribute;
 import me.jellysquid.mods.sodium.client.render.chunk.format.MaterialIdHolder;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
-import me.jellysquid.mods.sodium.client.render.chunk.format.hfp.HFPModelVertexBufferWriterNio;
-import me.jellysquid.mods.sodium.client.render.chunk.format.hfp.HFPModelVertexBufferWriterUnsafe;
-
 import net.minecraft.client.render.VertexConsumer;
 
 /**
@@ -45,9 +42,7 @@ public class XHFPModelVertexType implements ChunkVertexType {
 
     @Override
     public ModelVertexSink createBufferWriter(VertexBufferView buffer, boolean direct, MaterialIdHolder idHolder) {
-        //return direct ? new HFPModelVertexBufferWriterUnsafe(buffer) : new HFPModelVertexBufferWriterNio(buffer);
-
-        return new XHFPModelVertexBufferWriterNio(buffer, idHolder);
+        return direct ? new XHFPModelVertexBufferWriterUnsafe(buffer, idHolder) : new XHFPModelVertexBufferWriterNio(buffer, idHolder);
     }
 
     @Override
@@ -0,0 +1,552 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.xhfp;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferBuilder;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import net.coderbot.iris.Iris;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Greedily merges adjacent block faces in a mesh written with {@link XHFPModelVertexType} into larger quads. This is
+ * done after all blocks in a section have been rendered, separately for the quads of each facing.
+ *
+ * Only quads which exactly cover one block face on the block grid, and which have the same color and light at every
+ * vertex, can be merged. Two such quads are merged when they lie in the same plane and every vertex attribute other
+ * than the position is identical, which means that they show the same part of the same sprite. The texture
+ * coordinates of a merged quad are extended past the sprite as if it were repeated, and the texture tile of the
+ * original face is stored in the unused components of the block ID attribute so that the chunk shader can wrap the
+ * coordinates back into it. Shader packs do not know about the tile, so merging must not be used while one is active.
+ *
+ * Merged quads are written before all other quads, so that any decals in the same plane are still drawn on top.
+ * Faces which are covered by more than one quad (such as the overlays of grass blocks) are never merged, which keeps
+ * the order of the quads on them as-is.
+ */
+public class XHFPQuadMerger {
+    private static final int STRIDE = 48;
+    private static final int QUAD_STRIDE = STRIDE * 4;
+
+    // The size of a block in the de-normalized vertex positions
+    private static final int BLOCK_SIZE = 2048;
+
+    // The largest texture tile which can be packed into the block ID attribute, see the chunk shader
+    private static final int MAX_TILE_SIZE = 4096;
+
+    // Marks a cell in the cell map which is covered by more than one quad
+    private static final int OVERLAPPED = -2;
+
+    private static final LongAdder sections = new LongAdder();
+    private static final LongAdder inputVertices = new LongAdder();
+    private static final LongAdder outputVertices = new LongAdder();
+
+    // The quad covering each grid cell, keyed by the packed cell
+    private final Long2IntOpenHashMap cells = new Long2IntOpenHashMap();
+
+    // The texture coordinates of each corner of the quad which was last loaded
+    private final int[] cornerU = new int[4];
+    private final int[] cornerV = new int[4];
+
+    private ByteBuffer scratch = ByteBuffer.allocate(0);
+
+    // The grid cell of each quad, packed as (plane, b, a), or -1 if the quad can't be merged
+    private long[] quadCells = new long[0];
+
+    // The grid corner of each vertex of each quad, packed as two bits per vertex
+    private byte[] quadCorners = new byte[0];
+
+    // The mergeable quads sorted by their grid cell, packed as (cell, quad)
+    private long[] order = new long[0];
+    private boolean[] consumed = new boolean[0];
+
+    // Whether each quad is in the ranges which were passed to the merger
+    private boolean[] included = new boolean[0];
+
+    // The axes of the positions for the facing which is being merged
+    private int planeAxis, axisA, axisB;
+
+    public XHFPQuadMerger() {
+        this.cells.defaultReturnValue(-1);
+    }
+
+    /**
+     * @return True if quads should be merged in meshes of the given vertex type
+     */
+    public static boolean isEnabled(ChunkVertexType vertexType) {
+        return SodiumClientMod.options().advanced.useQuadMerging &&
+                vertexType == DefaultModelVertexFormats.MODEL_VERTEX_XHFP &&
+                !Iris.getCurrentPack().isPresent();
+    }
+
+    /**
+     * Merges the quads in the given buffer, which must only contain quads of the given facing, and replaces its
+     * contents with the merged quads.
+     */
+    public void merge(VertexBufferBuilder builder, ModelQuadFacing facing) {
+        this.merge(builder, facing, null);
+    }
+
+    /**
+     * Merges only the quads in the given ranges of the buffer, which must only contain quads of the given facing, and
+     * replaces its contents with the merged quads. All other quads are kept as-is, but they still prevent the faces
+     * they overlap with from being merged.
+     *
+     * @param ranges The byte ranges of the quads which may be merged, stored as pairs of (offset, length), or null if
+     *               all quads may be merged
+     */
+    public void merge(VertexBufferBuilder builder, ModelQuadFacing facing, IntArrayList ranges) {
+        int quadCount = builder.getSize() / QUAD_STRIDE;
+
+        if (facing == ModelQuadFacing.UNASSIGNED || quadCount < 2 || quadCount >= (1 << 24)) {
+            return;
+        }
+
+        this.setAxes(facing);
+        this.ensureCapacity(quadCount);
+        this.setIncludedQuads(quadCount, ranges);
+
+        ByteBuffer src = this.copyToScratch(builder);
+
+        int mergeable = this.findMergeableQuads(src, quadCount);
+
+        if (mergeable < 2) {
+            return;
+        }
+
+        ByteBuffer dst = builder.getDirectBuffer();
+        int dstOffset = this.writeMergedQuads(src, dst, quadCount, mergeable);
+
+        for (int quad = 0; quad < quadCount; quad++) {
+            if (this.quadCells[quad] == -1L) {
+                copyQuad(src, quad * QUAD_STRIDE, dst, dstOffset);
+
+                dstOffset += QUAD_STRIDE;
+            }
+        }
+
+        builder.truncate(dstOffset);
+    }
+
+    /**
+     * Records that the meshes of another section have been merged.
+     */
+    public static void recordSection() {
+        sections.increment();
+    }
+
+    /**
+     * Records the number of vertices in the mesh of a render pass before and after merging.
+     */
+    public static void recordMesh(int inputVertexCount, int outputVertexCount) {
+        inputVertices.add(inputVertexCount);
+        outputVertices.add(outputVertexCount);
+    }
+
+    public static String getDebugString() {
+        long sections = XHFPQuadMerger.sections.sum();
+        long input = inputVertices.sum();
+        long removed = input - outputVertices.sum();
+
+        return String.format("Quad Merging: %.1f%% fewer vertices, %.1f KiB saved/section",
+                input > 0 ? (removed * 100.0D) / input : 0.0D,
+                sections > 0 ? ((removed * STRIDE) / 1024.0D) / sections : 0.0D);
+    }
+
+    private void setAxes(ModelQuadFacing facing) {
+        switch (facing) {
+            case UP:
+            case DOWN:
+                this.planeAxis = 1;
+                this.axisA = 0;
+                this.axisB = 2;
+                break;
+            case EAST:
+            case WEST:
+                this.planeAxis = 0;
+                this.axisA = 2;
+                this.axisB = 1;
+                break;
+            default:
+                this.planeAxis = 2;
+                this.axisA = 0;
+                this.axisB = 1;
+                break;
+        }
+    }
+
+    private void ensureCapacity(int quadCount) {
+        if (this.quadCells.length < quadCount) {
+            int capacity = Math.max(quadCount, this.quadCells.length * 2);
+
+            this.quadCells = new long[capacity];
+            this.quadCorners = new byte[capacity];
+            this.order = new long[capacity];
+            this.consumed = new boolean[capacity];
+            this.included = new boolean[capacity];
+        }
+    }
+
+    private void setIncludedQuads(int quadCount, IntArrayList ranges) {
+        if (ranges == null) {
+            Arrays.fill(this.included, 0, quadCount, true);
+
+            return;
+        }
+
+        Arrays.fill(this.included, 0, quadCount, false);
+
+        for (int i = 0; i < ranges.size(); i += 2) {
+            int start = ranges.getInt(i) / QUAD_STRIDE;
+            int end = Math.min(quadCount, start + (ranges.getInt(i + 1) / QUAD_STRIDE));
+
+            Arrays.fill(this.included, start, end, true);
+        }
+    }
+
+    private ByteBuffer copyToScratch(VertexBufferBuilder builder) {
+        int size = builder.getSize();
+
+        if (this.scratch.capacity() < size) {
+            this.scratch = ByteBuffer.allocate(Math.max(size, this.scratch.capacity() * 2))
+                    .order(ByteOrder.nativeOrder());
+        }
+
+        ByteBuffer view = builder.getDirectBuffer().duplicate();
+        view.position(0);
+        view.limit(size);
+
+        ByteBuffer scratch = this.scratch;
+        scratch.clear();
+        scratch.put(view);
+
+        return scratch;
+    }
+
+    /**
+     * Finds the grid cell of every quad which can be merged and sorts them by cell. Quads in cells which are covered by
+     * more than one quad, and quads which are not included in the merge, are excluded.
+     *
+     * @return The number of quads which can be merged
+     */
+    private int findMergeableQuads(ByteBuffer src, int quadCount) {
+        Long2IntOpenHashMap cells = this.cells;
+        cells.clear();
+
+        boolean hasOverlaps = false;
+
+        for (int quad = 0; quad < quadCount; quad++) {
+            long cell = this.getQuadCell(src, quad);
+
+            this.quadCells[quad] = cell;
+
+            if (cell != -1L && cells.putIfAbsent(cell, quad) != -1) {
+                cells.put(cell, OVERLAPPED);
+
+                hasOverlaps = true;
+            }
+        }
+
+        int count = 0;
+
+        for (int quad = 0; quad < quadCount; quad++) {
+            long cell = this.quadCells[quad];
+
+            if (cell == -1L) {
+                continue;
+            }
+
+            if (!this.included[quad] || (hasOverlaps && cells.get(cell) == OVERLAPPED)) {
+                this.quadCells[quad] = -1L;
+
+                continue;
+            }
+
+            this.order[count++] = (cell << 24) | quad;
+        }
+
+        Arrays.sort(this.order, 0, count);
+
+        return count;
+    }
+
+    /**
+     * @return The grid cell covered by the quad, or -1 if the quad can't be merged
+     */
+    private long getQuadCell(ByteBuffer src, int quad) {
+        int base = quad * QUAD_STRIDE;
+
+        int plane = getCoordinate(src, base, this.planeAxis);
+        int minA = Integer.MAX_VALUE, minB = Integer.MAX_VALUE;
+
+        for (int i = 0; i < 4; i++) {
+            int vertex = base + (i * STRIDE);
+
+            if (getCoordinate(src, vertex, this.planeAxis) != plane || !hasUniformAttributes(src, base, vertex)) {
+                return -1L;
+            }
+
+            minA = Math.min(minA, getCoordinate(src, vertex, this.axisA));
+            minB = Math.min(minB, getCoordinate(src, vertex, this.axisB));
+        }
+
+        if ((minA % BLOCK_SIZE) != 0 || (minB % BLOCK_SIZE) != 0) {
+            return -1L;
+        }
+
+        int corners = 0;
+        int seen = 0;
+
+        for (int i = 0; i < 4; i++) {
+            int vertex = base + (i * STRIDE);
+
+            int a = getCoordinate(src, vertex, this.axisA) - minA;
+            int b = getCoordinate(src, vertex, this.axisB) - minB;
+
+            if ((a != 0 && a != BLOCK_SIZE) || (b != 0 && b != BLOCK_SIZE)) {
+                return -1L;
+            }
+
+            int corner = (a != 0 ? 1 : 0) | (b != 0 ? 2 : 0);
+
+            corners |= corner << (i * 2);
+            seen |= 1 << corner;
+        }
+
+        // Each vertex must be at a different corner of the block face
+        if (seen != 0b1111) {
+            return -1L;
+        }
+
+        this.loadTextureCoordinates(src, base, corners);
+
+        int[] u = this.cornerU;
+        int[] v = this.cornerV;
+
+        // The texture coordinates must change linearly across the face to be extended over a larger quad
+        if (u[3] != u[1] + u[2] - u[0] || v[3] != v[1] + v[2] - v[0]) {
+            return -1L;
+        }
+
+        int tileWidth = Math.abs(u[1] - u[0]) + Math.abs(u[2] - u[0]);
+        int tileHeight = Math.abs(v[1] - v[0]) + Math.abs(v[2] - v[0]);
+
+        if (tileWidth <= 0 || tileHeight <= 0 || tileWidth >= MAX_TILE_SIZE || tileHeight >= MAX_TILE_SIZE) {
+            return -1L;
+        }
+
+        this.quadCorners[quad] = (byte) corners;
+
+        return ((long) plane << 16) | ((long) (minB / BLOCK_SIZE) << 8) | (minA / BLOCK_SIZE);
+    }
+
+    /**
+     * Merges each mergeable quad with as many of the quads after it on the same row as possible, and then with as
+     * many of the following rows as possible, and writes the resulting quads to the start of the destination buffer.
+     *
+     * @return The number of bytes written
+     */
+    private int writeMergedQuads(ByteBuffer src, ByteBuffer dst, int quadCount, int mergeable) {
+        Arrays.fill(this.consumed, 0, quadCount, false);
+
+        int dstOffset = 0;
+
+        for (int i = 0; i < mergeable; i++) {
+            int quad = (int) (this.order[i] & 0xFFFFFF);
+
+            if (this.consumed[quad]) {
+                continue;
+            }
+
+            long cell = this.quadCells[quad];
+
+            int width = 1;
+
+            while (this.canMerge(src, quad, cell + width, width + 1, 1)) {
+                width++;
+            }
+
+            int height = 1;
+
+            while (this.canMergeRow(src, quad, cell + ((long) height << 8), width, height + 1)) {
+                height++;
+            }
+
+            for (int b = 0; b < height; b++) {
+                for (int a = 0; a < width; a++) {
+                    this.consumed[this.cells.get(cell + ((long) b << 8) + a)] = true;
+                }
+            }
+
+            this.writeQuad(src, quad, dst, dstOffset, width, height);
+
+            dstOffset += QUAD_STRIDE;
+        }
+
+        return dstOffset;
+    }
+
+    private boolean canMergeRow(ByteBuffer src, int quad, long rowCell, int width, int height) {
+        for (int a = 0; a < width; a++) {
+            if (!this.canMerge(src, quad, rowCell + a, width, height)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return True if the quad in the given cell can be merged into the given quad, after extending it to the given size
+     */
+    private boolean canMerge(ByteBuffer src, int quad, long otherCell, int width, int height) {
+        int other = this.cells.get(otherCell);
+
+        // Quads which were excluded from merging are still in the cell map, but their cell has been cleared
+        if (other < 0 || this.quadCells[other] == -1L || this.consumed[other] || this.quadCorners[other] != this.quadCorners[quad]) {
+            return false;
+        }
+
+        int base = quad * QUAD_STRIDE;
+        int otherBase = other * QUAD_STRIDE;
+
+        for (int i = 0; i < 4; i++) {
+            int vertex = base + (i * STRIDE);
+            int otherVertex = otherBase + (i * STRIDE);
+
+            // Everything after the position must be identical
+            for (int offset = 8; offset < STRIDE; offset += 4) {
+                if (src.getInt(vertex + offset) != src.getInt(otherVertex + offset)) {
+                    return false;
+                }
+            }
+        }
+
+        this.loadTextureCoordinates(src, base, this.quadCorners[quad]);
+
+        // The texture coordinates of the extended quad must still fit in an unsigned short
+        for (int corner = 0; corner < 4; corner++) {
+            int u = this.getExtendedU(corner, width, height);
+            int v = this.getExtendedV(corner, width, height);
+
+            if (u < 0 || u > 0xFFFF || v < 0 || v > 0xFFFF) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void writeQuad(ByteBuffer src, int quad, ByteBuffer dst, int dstOffset, int width, int height) {
+        int base = quad * QUAD_STRIDE;
+
+        copyQuad(src, base, dst, dstOffset);
+
+        if (width == 1 && height == 1) {
+            return;
+        }
+
+        int corners = this.quadCorners[quad];
+        this.loadTextureCoordinates(src, base, corners);
+
+        int minA = Integer.MAX_VALUE, minB = Integer.MAX_VALUE;
+        int minU = Integer.MAX_VALUE, minV = Integer.MAX_VALUE;
+        int maxU = Integer.MIN_VALUE, maxV = Integer.MIN_VALUE;
+
+        for (int i = 0; i < 4; i++) {
+            int vertex = base + (i * STRIDE);
+
+            minA = Math.min(minA, getCoordinate(src, vertex, this.axisA));
+            minB = Math.min(minB, getCoordinate(src, vertex, this.axisB));
+
+            minU = Math.min(minU, this.cornerU[i]);
+            minV = Math.min(minV, this.cornerV[i]);
+            maxU = Math.max(maxU, this.cornerU[i]);
+            maxV = Math.max(maxV, this.cornerV[i]);
+        }
+
+        // Both sizes of the tile are less than MAX_TILE_SIZE, so they can be packed into one float without rounding
+        float tileSize = ((maxU - minU) * MAX_TILE_SIZE) + (maxV - minV);
+
+        for (int i = 0; i < 4; i++) {
+            int vertex = dstOffset + (i * STRIDE);
+            int corner = (corners >> (i * 2)) & 3;
+
+            int a = minA + ((corner & 1) != 0 ? width * BLOCK_SIZE : 0);
+            int b = minB + ((corner & 2) != 0 ? height * BLOCK_SIZE : 0);
+
+            dst.putShort(vertex + (this.axisA * 2), (short) a);
+            dst.putShort(vertex + (this.axisB * 2), (short) b);
+
+            dst.putShort(vertex + 12, (short) this.getExtendedU(corner, width, height));
+            dst.putShort(vertex + 14, (short) this.getExtendedV(corner, width, height));
+
+            dst.putFloat(vertex + 36, minU);
+            dst.putFloat(vertex + 40, minV);
+            dst.putFloat(vertex + 44, tileSize);
+        }
+    }
+
+    private void loadTextureCoordinates(ByteBuffer src, int base, int corners) {
+        for (int i = 0; i < 4; i++) {
+            int vertex = base + (i * STRIDE);
+            int corner = (corners >> (i * 2)) & 3;
+
+            this.cornerU[corner] = src.getShort(vertex + 12) & 0xFFFF;
+            this.cornerV[corner] = src.getShort(vertex + 14) & 0xFFFF;
+        }
+    }
+
+    // The texture coordinates of the loaded quad at the given corner, after extending it to the given size
+    private int getExtendedU(int corner, int width, int height) {
+        return extend(this.cornerU, corner, width, height);
+    }
+
+    private int getExtendedV(int corner, int width, int height) {
+        return extend(this.cornerV, corner, width, height);
+    }
+
+    private static int extend(int[] values, int corner, int width, int height) {
+        int a = (corner & 1) != 0 ? width : 0;
+        int b = (corner & 2) != 0 ? height : 0;
+
+        return values[0] + ((values[1] - values[0]) * a) + ((values[2] - values[0]) * b);
+    }
+
+    private static int getCoordinate(ByteBuffer buffer, int vertex, int axis) {
+        return buffer.getShort(vertex + (axis * 2)) & 0xFFFF;
+    }
+
+    private static void copyQuad(ByteBuffer src, int srcOffset, ByteBuffer dst, int dstOffset) {
+        for (int i = 0; i < QUAD_STRIDE; i += 8) {
+            dst.putLong(dstOffset + i, src.getLong(srcOffset + i));
+        }
+    }
+
+    /**
+     * @return True if the color, light and all other attributes of both vertices are the same, and neither is
+     *         already part of a merged quad
+     */
+    private static boolean hasUniformAttributes(ByteBuffer src, int vertex, int other) {
+        if (src.getInt(other + 36) != 0 || src.getInt(other + 40) != 0 || src.getInt(other + 44) != 0) {
+            return false;
+        }
+
+        if (src.getInt(vertex + 8) != src.getInt(other + 8)) {
+            return false;
+        }
+
+        for (int offset = 16; offset < STRIDE; offset += 4) {
+            if (src.getInt(vertex + offset) != src.getInt(other + offset)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
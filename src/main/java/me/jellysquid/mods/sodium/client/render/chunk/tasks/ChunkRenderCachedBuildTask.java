@@ -0,0 +1,60 @@
+package me.jellysquid.mods.sodium.client.render.chunk.tasks;
+
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderContainer;
+import me.jellysquid.mods.sodium.client.render.chunk.cache.ChunkMeshCache;
+import me.jellysquid.mods.sodium.client.render.chunk.cache.ChunkMeshKey;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
+import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderContext;
+import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+/**
+ * A rebuild task which first tries to produce the meshes of a chunk from the on-disk mesh cache. The key of the section
+ * is computed from its world slice, so hashing the section and all file I/O happen on the worker thread. If the cache
+ * has no entry for the section, its meshes are built as usual and then stored in the cache. This is only used for the
+ * first build of a section after it was loaded.
+ */
+public class ChunkRenderCachedBuildTask<T extends ChunkGraphicsState> extends ChunkRenderRebuildTask<T> {
+    private final ChunkMeshCache cache;
+    private final long environment;
+
+    /**
+     * @param cache The mesh cache to load the meshes from and store them in
+     * @param environment The environment hash created by {@link ChunkMeshKey#createEnvironmentHash}
+     */
+    public ChunkRenderCachedBuildTask(ChunkBuilder<T> chunkBuilder, ChunkRenderContainer<T> render, WorldSlice slice, BlockPos offset,
+                                      int generation, boolean retainGeometry, ChunkMeshCache cache, long environment) {
+        super(chunkBuilder, render, slice, offset, generation, retainGeometry);
+
+        this.cache = cache;
+        this.environment = environment;
+    }
+
+    @Override
+    public ChunkBuildResult<T> performBuild(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
+        ChunkSectionPos pos = this.render.getChunkPos();
+        ChunkMeshKey key = ChunkMeshKey.create(this.slice, this.environment);
+
+        ChunkMeshCache.Entry entry = this.cache.load(key, pos);
+
+        if (entry != null) {
+            // Page in the mapped file now so that the main thread doesn't stall on page faults when it's uploaded
+            entry.prefetch();
+
+            return new ChunkBuildResult<>(this.render, entry.getData(), this.generation);
+        }
+
+        ChunkBuildResult<T> result = super.performBuild(pipeline, buffers, cancellationSource);
+
+        if (result != null) {
+            this.cache.store(key, result.data, pos);
+        }
+
+        return result;
+    }
+}
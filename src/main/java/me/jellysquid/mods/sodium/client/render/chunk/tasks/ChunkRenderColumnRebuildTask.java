@@ -0,0 +1,90 @@
+package me.jellysquid.mods.sodium.client.render.chunk.tasks;
+
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderContext;
+import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Rebuilds a vertical run of chunk sections one after another using a single shared world slice. Since the slice only
+ * needs to be copied once for the whole run, the blocks between adjacent sections aren't copied multiple times.
+ *
+ * Each section still produces its own build result. The results of all but the last section are handed to the given
+ * consumer as soon as they are built, and the result of the last section is returned from the task.
+ *
+ * Every section has its own handle which is attached to its render in place of the task's future. Once a section's
+ * handle is cancelled, the section is skipped (or abandoned, if it is being built) while the rest of the run continues.
+ */
+public class ChunkRenderColumnRebuildTask<T extends ChunkGraphicsState> extends ChunkRenderBuildTask<T> {
+    private final ChunkBuilder<T> chunkBuilder;
+    private final WorldSlice slice;
+    private final List<ChunkRenderRebuildTask<T>> tasks;
+    private final List<CompletableFuture<Void>> handles;
+    private final Consumer<ChunkBuildResult<T>> consumer;
+
+    /**
+     * @param slice The slice shared by all sections, which will be released when this task is done
+     * @param tasks The rebuild tasks of each section, ordered from the lowest section to the highest
+     * @param handles The handles of each section, in the same order as the tasks
+     * @param consumer The consumer which accepts the results of each section but the last
+     */
+    public ChunkRenderColumnRebuildTask(ChunkBuilder<T> chunkBuilder, WorldSlice slice, List<ChunkRenderRebuildTask<T>> tasks,
+                                        List<CompletableFuture<Void>> handles, Consumer<ChunkBuildResult<T>> consumer) {
+        this.chunkBuilder = chunkBuilder;
+        this.slice = slice;
+        this.tasks = tasks;
+        this.handles = handles;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public ChunkBuildResult<T> performBuild(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
+        ChunkBuildResult<T> last = null;
+
+        for (int i = 0; i < this.tasks.size(); i++) {
+            if (cancellationSource.isCancelled()) {
+                return null;
+            }
+
+            if (last != null) {
+                this.consumer.accept(last);
+                last = null;
+            }
+
+            ChunkRenderRebuildTask<T> task = this.tasks.get(i);
+            CompletableFuture<Void> handle = this.handles.get(i);
+
+            // Sections which have been superseded since this task was created don't need to be built at all
+            if (handle.isCancelled()) {
+                continue;
+            }
+
+            this.slice.setOrigin(task.render.getChunkPos());
+
+            // The section's build is abandoned if it's superseded part of the way through, which produces no result
+            last = task.performBuild(pipeline, buffers, () -> cancellationSource.isCancelled() || handle.isCancelled());
+        }
+
+        // Every section may have been superseded, in which case we still need to produce something. The result is stale
+        // and will be discarded, so it must not read the render's data, which belongs to the main thread.
+        if (last == null && !cancellationSource.isCancelled()) {
+            ChunkRenderRebuildTask<T> task = this.tasks.get(this.tasks.size() - 1);
+            last = new ChunkBuildResult<>(task.render, ChunkRenderData.EMPTY, task.generation);
+        }
+
+        return last;
+    }
+
+    @Override
+    public void releaseResources() {
+        this.chunkBuilder.releaseWorldSlice(this.slice);
+    }
+}
@@ -16,14 +16,16 @@ import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
  */
 public class ChunkRenderEmptyBuildTask<T extends ChunkGraphicsState> extends ChunkRenderBuildTask<T> {
     private final ChunkRenderContainer<T> render;
+    private final int generation;
 
-    public ChunkRenderEmptyBuildTask(ChunkRenderContainer<T> render) {
+    public ChunkRenderEmptyBuildTask(ChunkRenderContainer<T> render, int generation) {
         this.render = render;
+        this.generation = generation;
     }
 
     @Override
     public ChunkBuildResult<T> performBuild(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
-        return new ChunkBuildResult<>(this.render, ChunkRenderData.EMPTY);
+        return new ChunkBuildResult<>(this.render, ChunkRenderData.EMPTY, this.generation);
     }
 
     @Override
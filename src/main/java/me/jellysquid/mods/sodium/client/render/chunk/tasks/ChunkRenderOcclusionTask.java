@@ -0,0 +1,113 @@
+package me.jellysquid.mods.sodium.client.render.chunk.tasks;
+
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderContainer;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderContext;
+import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
+import net.minecraft.client.render.chunk.ChunkOcclusionDataBuilder;
+import net.minecraft.util.collection.PackedIntegerArray;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EmptyBlockView;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.Palette;
+import net.minecraft.world.chunk.PalettedContainer;
+
+/**
+ * Computes only the occlusion data of a chunk section without building any meshes. This is much cheaper than a full
+ * rebuild and allows the visibility graph to stay up-to-date for sections which aren't currently visible, so that
+ * their meshes can be built later once the section is actually reached by the graph search.
+ *
+ * Only a bit mask of the opaque blocks in the section is copied on the main thread. Since no world slice is used,
+ * the opacity of blocks with position-dependent shapes is evaluated as if they were alone in an empty world. The
+ * occlusion data will be replaced with exact data once the section is fully rebuilt.
+ */
+public class ChunkRenderOcclusionTask<T extends ChunkGraphicsState> extends ChunkRenderBuildTask<T> {
+    private final ChunkRenderContainer<T> render;
+    private final long[] opaqueBlocks;
+    private final int generation;
+
+    public ChunkRenderOcclusionTask(ChunkRenderContainer<T> render, ChunkSection section, int generation) {
+        this.render = render;
+        this.opaqueBlocks = createOpaqueBlockMask(section);
+        this.generation = generation;
+    }
+
+    /**
+     * Creates a bit mask of the blocks in the section which are opaque full cubes, indexed by their local block index.
+     * This must be called on the main thread.
+     */
+    public static long[] createOpaqueBlockMask(ChunkSection section) {
+        long[] mask = new long[4096 / 64];
+
+        PalettedContainer<BlockState> container = section.getContainer();
+
+        PackedIntegerArray intArray = container.data;
+        Palette<BlockState> palette = container.palette;
+
+        int prevPaletteId = -1;
+        boolean prevOpaque = false;
+
+        for (int blockIdx = 0; blockIdx < 4096; blockIdx++) {
+            int paletteId = intArray.get(blockIdx);
+
+            if (prevPaletteId != paletteId) {
+                BlockState state = palette.getByIndex(paletteId);
+
+                if (state == null) {
+                    state = container.defaultValue;
+                }
+
+                prevOpaque = state.isOpaqueFullCube(EmptyBlockView.INSTANCE, BlockPos.ORIGIN);
+                prevPaletteId = paletteId;
+            }
+
+            if (prevOpaque) {
+                mask[blockIdx >> 6] |= 1L << (blockIdx & 63);
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * Computes the occlusion data of a section from the opaque block mask created by
+     * {@link ChunkRenderOcclusionTask#createOpaqueBlockMask(ChunkSection)}.
+     */
+    public static ChunkOcclusionData computeOcclusionData(long[] opaqueBlocks) {
+        ChunkOcclusionDataBuilder occluder = new ChunkOcclusionDataBuilder();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    int blockIdx = WorldSlice.getLocalBlockIndex(x, y, z);
+
+                    if ((opaqueBlocks[blockIdx >> 6] & (1L << (blockIdx & 63))) != 0L) {
+                        occluder.markClosed(pos.set(x, y, z));
+                    }
+                }
+            }
+        }
+
+        return occluder.build();
+    }
+
+    @Override
+    public ChunkBuildResult<T> performBuild(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
+        ChunkRenderData.Builder renderData = new ChunkRenderData.Builder();
+        renderData.setOcclusionData(computeOcclusionData(this.opaqueBlocks));
+
+        return new ChunkBuildResult<>(this.render, renderData.build(), this.generation, true);
+    }
+
+    @Override
+    public void releaseResources() {
+
+    }
+}
@@ -0,0 +1,159 @@
+package me.jellysquid.mods.sodium.client.render.chunk.tasks;
+
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderContainer;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderContext;
+import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Updates the meshes of a chunk after a few blocks have changed by re-rendering only the changed blocks and their
+ * neighbors, and splicing the result into the render's previous meshes. The geometry of every other block is copied
+ * from the previous meshes as-is.
+ *
+ * The neighbors in every direction (including diagonals) are re-rendered, since a change to a block can affect the
+ * face culling and ambient occlusion of all blocks touching it. The world slice used by this task only needs to contain
+ * the blocks within two blocks of each change, which is much less than what a full rebuild copies.
+ */
+public class ChunkRenderPatchTask<T extends ChunkGraphicsState> extends ChunkRenderRebuildTask<T> {
+    private final ChunkRenderData previousData;
+    private final long[] changedBlocks;
+    private final long[] opaqueBlocks;
+
+    /**
+     * @param previousData The render data which the changes will be patched into, which must retain its geometry
+     * @param changedBlocks The packed positions of the blocks which have changed
+     * @param opaqueBlocks The opaque block mask of the section, used to compute its new occlusion data
+     */
+    public ChunkRenderPatchTask(ChunkBuilder<T> chunkBuilder, ChunkRenderContainer<T> render, WorldSlice slice, BlockPos offset,
+                                int generation, ChunkRenderData previousData, long[] changedBlocks, long[] opaqueBlocks) {
+        super(chunkBuilder, render, slice, offset, generation, true);
+
+        this.previousData = previousData;
+        this.changedBlocks = changedBlocks;
+        this.opaqueBlocks = opaqueBlocks;
+    }
+
+    @Override
+    public ChunkBuildResult<T> performBuild(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
+        if (cancellationSource.isCancelled()) {
+            return null;
+        }
+
+        long[] replacedBlocks = this.getReplacedBlocks();
+
+        ChunkRenderData.Builder renderData = new ChunkRenderData.Builder();
+        ChunkRenderBounds.Builder bounds = new ChunkRenderBounds.Builder();
+
+        buffers.init(renderData, true);
+        pipeline.init(this.slice, this.slice.getOrigin());
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (int i = 0; i < replacedBlocks.length; i++) {
+            long bits = replacedBlocks[i];
+
+            while (bits != 0L) {
+                int blockIdx = (i << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                int relX = blockIdx & 15;
+                int relY = (blockIdx >> 8) & 15;
+                int relZ = (blockIdx >> 4) & 15;
+
+                BlockState blockState = this.slice.getOriginBlockState(relX, relY, relZ);
+
+                if (blockState.isAir()) {
+                    continue;
+                }
+
+                this.renderBlock(pipeline, buffers, renderData, bounds, blockState, pos, relX, relY, relZ);
+            }
+        }
+
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            ChunkMeshData mesh = buffers.createPatchedMesh(pass, this.previousData.getMesh(pass), replacedBlocks);
+
+            if (mesh != null) {
+                renderData.setMesh(pass, mesh);
+            }
+        }
+
+        this.copyUnchangedBlockEntities(renderData, replacedBlocks);
+
+        // Sprites which are no longer used by any block will simply keep ticking until the next full rebuild
+        for (Sprite sprite : this.previousData.getAnimatedSprites()) {
+            renderData.addSprite(sprite);
+        }
+
+        // The bounds can only grow when patching, since we don't know the extents of the geometry which was kept
+        renderData.setBounds(ChunkRenderBounds.union(this.previousData.getBounds(), bounds.build(this.render.getChunkPos())));
+        renderData.setOcclusionData(ChunkRenderOcclusionTask.computeOcclusionData(this.opaqueBlocks));
+        renderData.setRetainsGeometry(true);
+
+        return new ChunkBuildResult<>(this.render, renderData.build(), this.generation);
+    }
+
+    private void copyUnchangedBlockEntities(ChunkRenderData.Builder renderData, long[] replacedBlocks) {
+        for (BlockEntity entity : this.previousData.getBlockEntities()) {
+            if (!isReplaced(replacedBlocks, entity.getPos())) {
+                renderData.addBlockEntity(entity, true);
+            }
+        }
+
+        for (BlockEntity entity : this.previousData.getGlobalBlockEntities()) {
+            if (!isReplaced(replacedBlocks, entity.getPos())) {
+                renderData.addBlockEntity(entity, false);
+            }
+        }
+    }
+
+    /**
+     * @return A bit mask of the blocks in this section which are within one block of a changed block
+     */
+    private long[] getReplacedBlocks() {
+        long[] mask = new long[4096 / 64];
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (long changedBlock : this.changedBlocks) {
+            pos.set(changedBlock);
+
+            for (int x = pos.getX() - 1; x <= pos.getX() + 1; x++) {
+                for (int y = pos.getY() - 1; y <= pos.getY() + 1; y++) {
+                    for (int z = pos.getZ() - 1; z <= pos.getZ() + 1; z++) {
+                        int relX = x - this.render.getOriginX();
+                        int relY = y - this.render.getOriginY();
+                        int relZ = z - this.render.getOriginZ();
+
+                        if ((relX | relY | relZ) < 0 || relX > 15 || relY > 15 || relZ > 15) {
+                            continue;
+                        }
+
+                        int blockIdx = WorldSlice.getLocalBlockIndex(relX, relY, relZ);
+                        mask[blockIdx >> 6] |= 1L << (blockIdx & 63);
+                    }
+                }
+            }
+        }
+
+        return mask;
+    }
+
+    private static boolean isReplaced(long[] replacedBlocks, BlockPos pos) {
+        int blockIdx = WorldSlice.getLocalBlockIndex(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+
+        return (replacedBlocks[blockIdx >> 6] & (1L << (blockIdx & 63))) != 0L;
+    }
+}
@@ -24,7 +24,6 @@ import net.minecraft.client.render.chunk.ChunkOcclusionDataBuilder;
 import net.minecraft.client.util.math.Vector3d;
 import net.minecraft.fluid.FluidState;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.chunk.WorldChunk;
 
 /**
  * Rebuilds all the meshes of a chunk for each given render pass with non-occluded blocks. The result is then uploaded
@@ -34,18 +33,22 @@ import net.minecraft.world.chunk.WorldChunk;
  * array allocations, they are pooled to ensure that the garbage collector doesn't become overloaded.
  */
 public class ChunkRenderRebuildTask<T extends ChunkGraphicsState> extends ChunkRenderBuildTask<T> {
-    private final ChunkRenderContainer<T> render;
+    protected final ChunkRenderContainer<T> render;
     private final ChunkBuilder<T> chunkBuilder;
     private final Vector3d camera;
-    private final WorldSlice slice;
+    protected final WorldSlice slice;
     private final BlockPos offset;
+    protected final int generation;
+    protected final boolean retainGeometry;
 
-    public ChunkRenderRebuildTask(ChunkBuilder<T> chunkBuilder, ChunkRenderContainer<T> render, WorldSlice slice, BlockPos offset) {
+    public ChunkRenderRebuildTask(ChunkBuilder<T> chunkBuilder, ChunkRenderContainer<T> render, WorldSlice slice, BlockPos offset, int generation, boolean retainGeometry) {
         this.chunkBuilder = chunkBuilder;
         this.render = render;
         this.camera = chunkBuilder.getCameraPosition();
         this.slice = slice;
         this.offset = offset;
+        this.generation = generation;
+        this.retainGeometry = retainGeometry;
     }
 
     @Override
@@ -54,15 +57,10 @@ public class ChunkRenderRebuildTask<T extends ChunkGraphicsState> extends ChunkR
         ChunkOcclusionDataBuilder occluder = new ChunkOcclusionDataBuilder();
         ChunkRenderBounds.Builder bounds = new ChunkRenderBounds.Builder();
 
-        buffers.init(renderData);
+        buffers.init(renderData, this.retainGeometry);
         pipeline.init(this.slice, this.slice.getOrigin());
 
-        int baseX = this.render.getOriginX();
-        int baseY = this.render.getOriginY();
-        int baseZ = this.render.getOriginZ();
-
         BlockPos.Mutable pos = new BlockPos.Mutable();
-        BlockPos offset = this.offset;
 
         for (int relY = 0; relY < 16; relY++) {
             if (cancellationSource.isCancelled()) {
@@ -77,73 +75,92 @@ public class ChunkRenderRebuildTask<T extends ChunkGraphicsState> extends ChunkR
                         continue;
                     }
 
-                    Block block = blockState.getBlock();
+                    this.renderBlock(pipeline, buffers, renderData, bounds, blockState, pos, relX, relY, relZ);
 
-                    int x = baseX + relX;
-                    int y = baseY + relY;
-                    int z = baseZ + relZ;
+                    if (blockState.isOpaqueFullCube(this.slice, pos)) {
+                        occluder.markClosed(pos);
+                    }
+                }
+            }
+        }
 
-                    if (blockState.getRenderType() == BlockRenderType.MODEL) {
-                        buffers.setRenderOffset(x - offset.getX(), y - offset.getY(), z - offset.getZ());
-                        buffers.setMaterialId(blockState);
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            ChunkMeshData mesh = buffers.createMesh(pass);
 
-                        RenderLayer layer = RenderLayers.getBlockLayer(blockState);
+            if (mesh != null) {
+                renderData.setMesh(pass, mesh);
+            }
+        }
 
-                        if (pipeline.renderBlock(this.slice, blockState, pos.set(x, y, z), buffers.get(layer), true)) {
-                            bounds.addBlock(relX, relY, relZ);
-                        }
+        renderData.setOcclusionData(occluder.build());
+        renderData.setBounds(bounds.build(this.render.getChunkPos()));
+        renderData.setRetainsGeometry(this.retainGeometry);
 
-                        buffers.resetMaterialId();
-                    }
+        return new ChunkBuildResult<>(this.render, renderData.build(), this.generation);
+    }
 
-                    FluidState fluidState = blockState.getFluidState();
+    /**
+     * Renders the geometry of a single block (and its fluid) into the build buffers and collects its block entity. After
+     * this returns, {@param pos} will contain the world position of the block.
+     */
+    protected void renderBlock(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, ChunkRenderData.Builder renderData,
+                               ChunkRenderBounds.Builder bounds, BlockState blockState, BlockPos.Mutable pos,
+                               int relX, int relY, int relZ) {
+        Block block = blockState.getBlock();
+        BlockPos offset = this.offset;
 
-                    if (!fluidState.isEmpty()) {
-                        buffers.setRenderOffset(x - offset.getX(), y - offset.getY(), z - offset.getZ());
-                        buffers.setMaterialId(fluidState.getBlockState());
+        int x = this.render.getOriginX() + relX;
+        int y = this.render.getOriginY() + relY;
+        int z = this.render.getOriginZ() + relZ;
 
-                        RenderLayer layer = RenderLayers.getFluidLayer(fluidState);
+        pos.set(x, y, z);
 
-                        if (pipeline.renderFluid(this.slice, fluidState, pos.set(x, y, z), buffers.get(layer))) {
-                            bounds.addBlock(relX, relY, relZ);
-                        }
+        if (blockState.getRenderType() == BlockRenderType.MODEL) {
+            buffers.setRenderOffset(x - offset.getX(), y - offset.getY(), z - offset.getZ());
+            buffers.setMaterialId(blockState);
 
-                        buffers.resetMaterialId();
-                    }
+            RenderLayer layer = RenderLayers.getBlockLayer(blockState);
 
-                    if (block.hasBlockEntity()) {
-                        BlockEntity entity = this.slice.getBlockEntity(pos.set(x, y, z), WorldChunk.CreationType.CHECK);
+            if (pipeline.renderBlock(this.slice, blockState, pos.set(x, y, z), buffers.get(layer), true)) {
+                bounds.addBlock(relX, relY, relZ);
+            }
 
-                        if (entity != null) {
-                            BlockEntityRenderer<BlockEntity> renderer = BlockEntityRenderDispatcher.INSTANCE.get(entity);
+            buffers.resetMaterialId();
+        }
 
-                            if (renderer != null) {
-                                renderData.addBlockEntity(entity, !renderer.rendersOutsideBoundingBox(entity));
+        FluidState fluidState = blockState.getFluidState();
 
-                                bounds.addBlock(relX, relY, relZ);
-                            }
-                        }
-                    }
+        if (!fluidState.isEmpty()) {
+            buffers.setRenderOffset(x - offset.getX(), y - offset.getY(), z - offset.getZ());
+            buffers.setMaterialId(fluidState.getBlockState());
 
-                    if (blockState.isOpaqueFullCube(this.slice, pos)) {
-                        occluder.markClosed(pos);
-                    }
-                }
+            RenderLayer layer = RenderLayers.getFluidLayer(fluidState);
+
+            buffers.beginFluid();
+
+            if (pipeline.renderFluid(this.slice, fluidState, pos.set(x, y, z), buffers.get(layer))) {
+                bounds.addBlock(relX, relY, relZ);
             }
+
+            buffers.endFluid();
+            buffers.resetMaterialId();
         }
 
-        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
-            ChunkMeshData mesh = buffers.createMesh(pass);
+        if (block.hasBlockEntity()) {
+            BlockEntity entity = this.slice.getBlockEntity(pos.set(x, y, z));
 
-            if (mesh != null) {
-                renderData.setMesh(pass, mesh);
+            if (entity != null) {
+                BlockEntityRenderer<BlockEntity> renderer = BlockEntityRenderDispatcher.INSTANCE.get(entity);
+
+                if (renderer != null) {
+                    renderData.addBlockEntity(entity, !renderer.rendersOutsideBoundingBox(entity));
+
+                    bounds.addBlock(relX, relY, relZ);
+                }
             }
         }
 
-        renderData.setOcclusionData(occluder.build());
-        renderData.setBounds(bounds.build(this.render.getChunkPos()));
-
-        return new ChunkBuildResult<>(this.render, renderData.build());
+        buffers.endBlock(WorldSlice.getLocalBlockIndex(relX, relY, relZ));
     }
 
     @Override
@@ -1,24 +1,29 @@
 package me.jellysquid.mods.sodium.client.render.occlusion;
 
-import it.unimi.dsi.fastutil.objects.Object2ByteLinkedOpenHashMap;
 import net.minecraft.block.BlockState;
-import net.minecraft.util.function.BooleanBiFunction;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.shape.VoxelShape;
 import net.minecraft.util.shape.VoxelShapes;
 import net.minecraft.world.BlockView;
 
+/**
+ * Tests whether the faces of blocks are hidden by their neighbors. The results of tests between complex shapes are
+ * cached by {@link ShapeOcclusionTable}, which is shared by all instances.
+ */
 public class BlockOcclusionCache {
-    private static final byte UNCACHED_VALUE = (byte) 127;
-
-    private final Object2ByteLinkedOpenHashMap<CachedOcclusionShapeTest> map;
-    private final CachedOcclusionShapeTest cachedTest = new CachedOcclusionShapeTest();
     private final BlockPos.Mutable cpos = new BlockPos.Mutable();
+    private final ShapeOcclusionTable table;
 
     public BlockOcclusionCache() {
-        this.map = new Object2ByteLinkedOpenHashMap<>(2048, 0.5F);
-        this.map.defaultReturnValue(UNCACHED_VALUE);
+        this(ShapeOcclusionTable.INSTANCE);
+    }
+
+    /**
+     * @param table The table to cache the results of shape tests in
+     */
+    public BlockOcclusionCache(ShapeOcclusionTable table) {
+        this.table = table;
     }
 
     /**
@@ -44,75 +49,23 @@ public class BlockOcclusionCache {
                 return false;
             }
 
-            return this.calculate(selfShape, adjShape);
+            // Shapes which aren't cached by their state are created again on every call, so caching them is useless
+            if (!hasCachedCullingFaces(selfState) || !hasCachedCullingFaces(adjState)) {
+                return ShapeOcclusionTable.calculate(selfShape, adjShape);
+            }
+
+            return this.table.isVisible(selfShape, adjShape);
         } else {
             return true;
         }
     }
 
-    private boolean calculate(VoxelShape selfShape, VoxelShape adjShape) {
-        CachedOcclusionShapeTest cache = this.cachedTest;
-        cache.a = selfShape;
-        cache.b = adjShape;
-        cache.updateHash();
-
-        byte cached = this.map.getByte(cache);
-
-        if (cached != UNCACHED_VALUE) {
-            return cached == 1;
-        }
-
-        boolean ret = VoxelShapes.matchesAnywhere(selfShape, adjShape, BooleanBiFunction.ONLY_FIRST);
-
-        this.map.put(cache.copy(), (byte) (ret ? 1 : 0));
-
-        if (this.map.size() > 2048) {
-            this.map.removeLastByte();
-        }
-
-        return ret;
-    }
-
-    private static final class CachedOcclusionShapeTest {
-        private VoxelShape a, b;
-        private int hashCode;
-
-        private CachedOcclusionShapeTest() {
-
-        }
-
-        private CachedOcclusionShapeTest(VoxelShape a, VoxelShape b, int hashCode) {
-            this.a = a;
-            this.b = b;
-            this.hashCode = hashCode;
-        }
-
-        public void updateHash() {
-            int result = System.identityHashCode(this.a);
-            result = 31 * result + System.identityHashCode(this.b);
-
-            this.hashCode = result;
-        }
-
-        public CachedOcclusionShapeTest copy() {
-            return new CachedOcclusionShapeTest(this.a, this.b, this.hashCode);
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (o instanceof CachedOcclusionShapeTest) {
-                CachedOcclusionShapeTest that = (CachedOcclusionShapeTest) o;
-
-                return this.a == that.a &&
-                        this.b == that.b;
-            }
-
-            return false;
-        }
-
-        @Override
-        public int hashCode() {
-            return this.hashCode;
-        }
+    /**
+     * @return True if the culling faces of the state are kept by its shape cache, in which case the same shape
+     * instances are returned for every call. This matches the conditions under which vanilla creates the shape cache
+     * and fills in its extruded faces.
+     */
+    private static boolean hasCachedCullingFaces(BlockState state) {
+        return state.isOpaque() && !state.getBlock().hasDynamicBounds();
     }
 }
@@ -0,0 +1,130 @@
+package me.jellysquid.mods.sodium.client.render.occlusion;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.util.function.BooleanBiFunction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.util.shape.VoxelShapes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A table of the results of face occlusion tests between pairs of culling shapes, which is shared by all threads.
+ *
+ * Each shape is given a unique ID the first time it is tested, which is stored on the shape itself. The results are
+ * kept in a direct-mapped table of packed words, each containing the pair of IDs and the result. Words are read and
+ * written atomically, so no locking is needed, and a colliding pair simply replaces the previous result in its slot.
+ *
+ * Only shapes which are cached by their block state should be passed to this table, as every other shape would use
+ * up a new ID on each test while never being tested again.
+ *
+ * IDs are never re-used, so a result can never be mistaken for that of a different pair. If two threads happen to
+ * assign an ID to the same shape at the same time, one of them is lost, which only costs a few extra tests.
+ */
+public class ShapeOcclusionTable {
+    public static final ShapeOcclusionTable INSTANCE = new ShapeOcclusionTable();
+
+    private static final int TABLE_BITS = 16;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+
+    // The number of bits used for each shape ID in the packed key of a word
+    private static final int SHAPE_ID_BITS = 30;
+    private static final int MAX_SHAPE_ID = (1 << SHAPE_ID_BITS) - 1;
+
+    private final AtomicLongArray words = new AtomicLongArray(1 << TABLE_BITS);
+    private final AtomicInteger nextShapeId = new AtomicInteger(1);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    protected ShapeOcclusionTable() {
+
+    }
+
+    /**
+     * @return True if any part of the first shape is not covered by the second shape
+     */
+    public boolean isVisible(VoxelShape selfShape, VoxelShape adjShape) {
+        int selfId = this.getShapeId(selfShape);
+        int adjId = this.getShapeId(adjShape);
+
+        if (selfId == 0 || adjId == 0) {
+            this.misses.increment();
+
+            return calculate(selfShape, adjShape);
+        }
+
+        long key = ((long) selfId << SHAPE_ID_BITS) | adjId;
+        int slot = (int) HashCommon.mix(key) & TABLE_MASK;
+
+        long word = this.words.get(slot);
+
+        if ((word >>> 1) == key) {
+            this.hits.increment();
+
+            return (word & 1L) != 0;
+        }
+
+        boolean result = calculate(selfShape, adjShape);
+
+        this.words.lazySet(slot, (key << 1) | (result ? 1L : 0L));
+        this.misses.increment();
+
+        return result;
+    }
+
+    /**
+     * Tests whether any part of the first shape is not covered by the second shape without using the table. This
+     * should be used for shapes which are created on every call and can't be cached.
+     */
+    public static boolean calculate(VoxelShape selfShape, VoxelShape adjShape) {
+        return VoxelShapes.matchesAnywhere(selfShape, adjShape, BooleanBiFunction.ONLY_FIRST);
+    }
+
+    /**
+     * Returns the ID of the given shape, assigning it one if needed. If the IDs have run out, zero is returned and the
+     * shape isn't cached. The same happens when the shape can't hold an ID, which is only the case when the mixins
+     * haven't been applied.
+     */
+    protected int getShapeId(VoxelShape shape) {
+        if (!(shape instanceof VoxelShapeExtended)) {
+            return 0;
+        }
+
+        VoxelShapeExtended extended = (VoxelShapeExtended) shape;
+        int id = extended.getOcclusionShapeId();
+
+        if (id == 0) {
+            id = this.createShapeId();
+
+            if (id != 0) {
+                extended.setOcclusionShapeId(id);
+            }
+        }
+
+        return id;
+    }
+
+    /**
+     * @return A new shape ID, or zero if the IDs have run out
+     */
+    protected final int createShapeId() {
+        if (this.nextShapeId.get() > MAX_SHAPE_ID) {
+            return 0;
+        }
+
+        int id = this.nextShapeId.getAndIncrement();
+
+        return id <= MAX_SHAPE_ID ? id : 0;
+    }
+
+    public String getDebugString() {
+        long hits = this.hits.sum();
+        long lookups = hits + this.misses.sum();
+
+        return String.format("Occlusion Table: %.1f%% hits (%d shapes)",
+                lookups > 0 ? (hits * 100.0D) / lookups : 0.0D,
+                Math.min(this.nextShapeId.get(), MAX_SHAPE_ID + 1) - 1);
+    }
+}
@@ -0,0 +1,10 @@
+package me.jellysquid.mods.sodium.client.render.occlusion;
+
+public interface VoxelShapeExtended {
+    /**
+     * @return The unique ID of this shape in the occlusion table, or zero if it hasn't been assigned one yet
+     */
+    int getOcclusionShapeId();
+
+    void setOcclusionShapeId(int id);
+}
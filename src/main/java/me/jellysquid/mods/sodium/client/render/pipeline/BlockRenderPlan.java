@@ -0,0 +1,120 @@
+package me.jellysquid.mods.sodium.client.render.pipeline;
+
+import me.jellysquid.mods.sodium.client.model.light.LightMode;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.world.biome.BlockColorsExtended;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.color.block.BlockColorProvider;
+import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.render.model.BasicBakedModel;
+import net.minecraft.util.math.Direction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The pre-computed rendering details of a block state whose model doesn't depend on the position of the block, which
+ * saves the block renderer from querying the model and color providers again for every block.
+ *
+ * Plans are immutable, so they are shared between all chunk build threads by storing them on the block state itself
+ * (see {@link BlockStateExtended}). Each plan remembers the model it was created from, and a plan is only used while
+ * that model is still the one being rendered, so plans are re-created automatically after the models are reloaded.
+ */
+public class BlockRenderPlan {
+    private final BakedModel model;
+
+    // The quads of the model for each facing, with the quads which aren't assigned to a side last
+    private final List<BakedQuad>[] quads;
+
+    private final BlockColorProvider colorProvider;
+    private final LightMode lightMode;
+
+    private BlockRenderPlan(BakedModel model, List<BakedQuad>[] quads, BlockColorProvider colorProvider, LightMode lightMode) {
+        this.model = model;
+        this.quads = quads;
+        this.colorProvider = colorProvider;
+        this.lightMode = lightMode;
+    }
+
+    /**
+     * Returns the render plan of the given block state, creating it if needed, or null if the quads of the model can
+     * change with the position of the block.
+     */
+    public static BlockRenderPlan get(BlockState state, BakedModel model, BlockColorsExtended blockColors, Random random) {
+        BlockStateExtended extended = (BlockStateExtended) state;
+        BlockRenderPlan plan = extended.getRenderPlan();
+
+        if (plan != null && plan.model == model) {
+            return plan;
+        }
+
+        if (!isPositionIndependent(model)) {
+            return null;
+        }
+
+        extended.setRenderPlan(plan = create(state, model, blockColors, random));
+
+        return plan;
+    }
+
+    /**
+     * Basic models always return the same quads no matter the random source they're given. Subclasses are excluded
+     * as they could override this behavior.
+     */
+    private static boolean isPositionIndependent(BakedModel model) {
+        return model.getClass() == BasicBakedModel.class;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BlockRenderPlan create(BlockState state, BakedModel model, BlockColorsExtended blockColors, Random random) {
+        List<BakedQuad>[] quads = new List[ModelQuadFacing.COUNT];
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            quads[ModelQuadFacing.fromDirection(dir).ordinal()] = copyQuads(model.getQuads(state, dir, random));
+        }
+
+        quads[ModelQuadFacing.UNASSIGNED.ordinal()] = copyQuads(model.getQuads(state, null, random));
+
+        boolean hasColor = false;
+
+        for (List<BakedQuad> list : quads) {
+            for (BakedQuad quad : list) {
+                hasColor |= quad.hasColor();
+            }
+        }
+
+        BlockColorProvider colorProvider = hasColor ? blockColors.getColorProvider(state) : null;
+        LightMode lightMode = model.useAmbientOcclusion() && state.getLuminance() == 0 ? LightMode.SMOOTH : LightMode.FLAT;
+
+        return new BlockRenderPlan(model, quads, colorProvider, lightMode);
+    }
+
+    private static List<BakedQuad> copyQuads(List<BakedQuad> quads) {
+        return quads.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(quads));
+    }
+
+    /**
+     * @return The quads of the model with the given facing, which must never be modified
+     */
+    public List<BakedQuad> getQuads(ModelQuadFacing facing) {
+        return this.quads[facing.ordinal()];
+    }
+
+    /**
+     * @return The color provider of the block state, or null if none of the quads are tinted
+     */
+    public BlockColorProvider getColorProvider() {
+        return this.colorProvider;
+    }
+
+    /**
+     * @return The light mode to use when ambient occlusion is enabled
+     */
+    public LightMode getLightMode() {
+        return this.lightMode;
+    }
+}
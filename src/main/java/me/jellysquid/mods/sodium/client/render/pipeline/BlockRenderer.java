@@ -54,6 +54,12 @@ public class BlockRenderer {
     }
 
     public boolean renderModel(BlockRenderView world, BlockState state, BlockPos pos, BakedModel model, ChunkModelBuffers buffers, boolean cull, long seed) {
+        BlockRenderPlan plan = BlockRenderPlan.get(state, model, this.blockColors, this.random);
+
+        if (plan != null) {
+            return this.renderPlan(world, state, pos, plan, buffers, cull);
+        }
+
         LightPipeline lighter = this.lighters.getLighter(this.getLightingMode(state, model));
         Vec3d offset = state.getModelOffset(world, pos);
 
@@ -69,7 +75,7 @@ public class BlockRenderer {
             }
 
             if (!cull || this.occlusionCache.shouldDrawSide(state, world, pos, dir)) {
-                this.renderQuadList(world, state, pos, lighter, offset, buffers, sided, ModelQuadFacing.fromDirection(dir));
+                this.renderQuadList(world, state, pos, lighter, offset, buffers, sided, ModelQuadFacing.fromDirection(dir), null);
 
                 rendered = true;
             }
@@ -80,7 +86,7 @@ public class BlockRenderer {
         List<BakedQuad> all = model.getQuads(state, null, this.random);
 
         if (!all.isEmpty()) {
-            this.renderQuadList(world, state, pos, lighter, offset, buffers, all, ModelQuadFacing.UNASSIGNED);
+            this.renderQuadList(world, state, pos, lighter, offset, buffers, all, ModelQuadFacing.UNASSIGNED, null);
 
             rendered = true;
         }
@@ -88,10 +94,45 @@ public class BlockRenderer {
         return rendered;
     }
 
-    private void renderQuadList(BlockRenderView world, BlockState state, BlockPos pos, LightPipeline lighter, Vec3d offset,
-                                ChunkModelBuffers buffers, List<BakedQuad> quads, ModelQuadFacing facing) {
-        BlockColorProvider colorizer = null;
+    /**
+     * Renders a block using its pre-computed render plan, which avoids querying the model for each block.
+     */
+    private boolean renderPlan(BlockRenderView world, BlockState state, BlockPos pos, BlockRenderPlan plan, ChunkModelBuffers buffers, boolean cull) {
+        LightPipeline lighter = this.lighters.getLighter(this.useAmbientOcclusion ? plan.getLightMode() : LightMode.FLAT);
+        Vec3d offset = state.getModelOffset(world, pos);
+
+        BlockColorProvider colorizer = plan.getColorProvider();
+
+        boolean rendered = false;
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            ModelQuadFacing facing = ModelQuadFacing.fromDirection(dir);
+            List<BakedQuad> sided = plan.getQuads(facing);
+
+            if (sided.isEmpty()) {
+                continue;
+            }
+
+            if (!cull || this.occlusionCache.shouldDrawSide(state, world, pos, dir)) {
+                this.renderQuadList(world, state, pos, lighter, offset, buffers, sided, facing, colorizer);
+
+                rendered = true;
+            }
+        }
+
+        List<BakedQuad> all = plan.getQuads(ModelQuadFacing.UNASSIGNED);
+
+        if (!all.isEmpty()) {
+            this.renderQuadList(world, state, pos, lighter, offset, buffers, all, ModelQuadFacing.UNASSIGNED, colorizer);
 
+            rendered = true;
+        }
+
+        return rendered;
+    }
+
+    private void renderQuadList(BlockRenderView world, BlockState state, BlockPos pos, LightPipeline lighter, Vec3d offset,
+                                ChunkModelBuffers buffers, List<BakedQuad> quads, ModelQuadFacing facing, BlockColorProvider colorizer) {
         ModelVertexSink sink = buffers.getSink(facing);
         sink.ensureCapacity(quads.size() * 4);
 
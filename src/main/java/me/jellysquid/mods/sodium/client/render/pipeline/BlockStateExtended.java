@@ -0,0 +1,14 @@
+package me.jellysquid.mods.sodium.client.render.pipeline;
+
+public interface BlockStateExtended {
+    /**
+     * @return The last render plan which was created for this block state, or null if none has been created yet. The
+     *         plan could have been created from a model which has since been replaced.
+     */
+    BlockRenderPlan getRenderPlan();
+
+    /**
+     * Replaces the render plan of this block state. This is safe to call from any thread, as plans are immutable.
+     */
+    void setRenderPlan(BlockRenderPlan plan);
+}
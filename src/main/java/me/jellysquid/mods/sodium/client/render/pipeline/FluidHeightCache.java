@@ -0,0 +1,69 @@
+package me.jellysquid.mods.sodium.client.render.pipeline;
+
+import net.minecraft.fluid.Fluid;
+import net.minecraft.util.math.ChunkSectionPos;
+
+import java.util.Arrays;
+
+/**
+ * Caches the height of the fluid surface at the corners of the blocks in a chunk section. Every corner is shared by
+ * the four blocks around it, and calculating its height samples all four of those blocks and the blocks above them,
+ * so each corner is only calculated once per section instead of once for every fluid block next to it.
+ *
+ * The height of a corner depends on the type of fluid it is calculated for, so the fluid is stored alongside each
+ * height and the corner is calculated again if it is requested for a different type of fluid.
+ */
+public class FluidHeightCache {
+    // The corners of a section span one more block than the section itself along each horizontal axis
+    private static final int LENGTH_XZ = 16 + 1;
+    private static final int LENGTH_Y = 16;
+
+    private final float[] heights = new float[LENGTH_XZ * LENGTH_Y * LENGTH_XZ];
+    private final Fluid[] fluids = new Fluid[LENGTH_XZ * LENGTH_Y * LENGTH_XZ];
+
+    private int originX, originY, originZ;
+
+    /**
+     * Prepares this cache for a new section, dropping all heights of the previous section.
+     */
+    public void init(ChunkSectionPos origin) {
+        this.originX = origin.getMinX();
+        this.originY = origin.getMinY();
+        this.originZ = origin.getMinZ();
+
+        Arrays.fill(this.fluids, null);
+    }
+
+    /**
+     * @return The index of the corner at the given position, or -1 if it is outside the section
+     */
+    public int getIndex(int x, int y, int z) {
+        int x2 = x - this.originX;
+        int y2 = y - this.originY;
+        int z2 = z - this.originZ;
+
+        if (x2 < 0 || y2 < 0 || z2 < 0 || x2 >= LENGTH_XZ || y2 >= LENGTH_Y || z2 >= LENGTH_XZ) {
+            return -1;
+        }
+
+        return (y2 * LENGTH_XZ * LENGTH_XZ) + (z2 * LENGTH_XZ) + x2;
+    }
+
+    /**
+     * @return True if the height of the corner with the given index has been stored for the given type of fluid
+     */
+    public boolean contains(int index, Fluid fluid) {
+        Fluid cached = this.fluids[index];
+
+        return cached != null && cached.matchesType(fluid);
+    }
+
+    public float get(int index) {
+        return this.heights[index];
+    }
+
+    public void put(int index, Fluid fluid, float height) {
+        this.fluids[index] = fluid;
+        this.heights[index] = height;
+    }
+}
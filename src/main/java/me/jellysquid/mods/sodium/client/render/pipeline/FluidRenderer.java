@@ -29,6 +29,7 @@ import net.minecraft.fluid.Fluid;
 import net.minecraft.fluid.FluidState;
 import net.minecraft.tag.FluidTags;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
@@ -56,6 +57,8 @@ public class FluidRenderer {
     private final QuadLightData quadLightData = new QuadLightData();
     private final int[] quadColors = new int[4];
 
+    private final FluidHeightCache heightCache = new FluidHeightCache();
+
     public FluidRenderer(MinecraftClient client, LightPipelineProvider lighters, BiomeColorBlender biomeColorBlender) {
         BlockModels models = client.getBakedModelManager().getBlockModels();
 
@@ -77,6 +80,13 @@ public class FluidRenderer {
         this.biomeColorBlender = biomeColorBlender;
     }
 
+    /**
+     * Prepares this renderer for rendering the fluids of a new chunk section.
+     */
+    public void init(ChunkSectionPos origin) {
+        this.heightCache.init(origin);
+    }
+
     private boolean isFluidExposed(BlockRenderView world, int x, int y, int z, Fluid fluid) {
         BlockPos pos = this.scratchPos.set(x, y, z);
         return !world.getFluidState(pos).getFluid().matchesType(fluid);
@@ -129,10 +139,10 @@ public class FluidRenderer {
 
         boolean rendered = false;
 
-        float h1 = this.getCornerHeight(world, posX, posY, posZ, fluidState.getFluid());
-        float h2 = this.getCornerHeight(world, posX, posY, posZ + 1, fluidState.getFluid());
-        float h3 = this.getCornerHeight(world, posX + 1, posY, posZ + 1, fluidState.getFluid());
-        float h4 = this.getCornerHeight(world, posX + 1, posY, posZ, fluidState.getFluid());
+        float h1 = this.getCornerHeight(world, posX, posY, posZ, fluid);
+        float h2 = this.getCornerHeight(world, posX, posY, posZ + 1, fluid);
+        float h3 = this.getCornerHeight(world, posX + 1, posY, posZ + 1, fluid);
+        float h4 = this.getCornerHeight(world, posX + 1, posY, posZ, fluid);
 
         float yOffset = sfDown ? 0.001F : 0.0F;
 
@@ -417,6 +427,21 @@ public class FluidRenderer {
     }
 
     private float getCornerHeight(BlockRenderView world, int x, int y, int z, Fluid fluid) {
+        FluidHeightCache cache = this.heightCache;
+        int index = cache.getIndex(x, y, z);
+
+        if (index < 0) {
+            return this.calculateCornerHeight(world, x, y, z, fluid);
+        }
+
+        if (!cache.contains(index, fluid)) {
+            cache.put(index, fluid, this.calculateCornerHeight(world, x, y, z, fluid));
+        }
+
+        return cache.get(index);
+    }
+
+    private float calculateCornerHeight(BlockRenderView world, int x, int y, int z, Fluid fluid) {
         int samples = 0;
         float totalHeight = 0.0F;
 
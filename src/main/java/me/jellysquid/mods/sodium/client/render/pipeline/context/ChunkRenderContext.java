@@ -1,7 +1,10 @@
 package me.jellysquid.mods.sodium.client.render.pipeline.context;
 
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.model.light.LightPipelineProvider;
 import me.jellysquid.mods.sodium.client.model.light.cache.ArrayLightDataCache;
+import me.jellysquid.mods.sodium.client.model.light.cache.EagerLightDataCache;
+import me.jellysquid.mods.sodium.client.model.light.cache.SectionLightDataCache;
 import me.jellysquid.mods.sodium.client.model.quad.blender.BiomeColorBlender;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuffers;
 import me.jellysquid.mods.sodium.client.render.pipeline.BlockRenderer;
@@ -17,7 +20,7 @@ import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.BlockRenderView;
 
 public class ChunkRenderContext {
-    private final ArrayLightDataCache lightDataCache;
+    private final SectionLightDataCache lightDataCache;
 
     private final BlockRenderer blockRenderer;
     private final FluidRenderer fluidRenderer;
@@ -25,7 +28,11 @@ public class ChunkRenderContext {
     private final BlockModels models;
 
     public ChunkRenderContext(MinecraftClient client) {
-        this.lightDataCache = new ArrayLightDataCache();
+        if (SodiumClientMod.options().advanced.useEagerLightData) {
+            this.lightDataCache = new EagerLightDataCache();
+        } else {
+            this.lightDataCache = new ArrayLightDataCache();
+        }
 
         LightPipelineProvider lightPipelineProvider = new LightPipelineProvider(this.lightDataCache);
         BiomeColorBlender biomeColorBlender = RenderContextCommon.createBiomeColorBlender();
@@ -49,5 +56,6 @@ public class ChunkRenderContext {
 
     public void init(BlockRenderView world, ChunkSectionPos pos) {
         this.lightDataCache.init(world, pos);
+        this.fluidRenderer.init(pos);
     }
 }
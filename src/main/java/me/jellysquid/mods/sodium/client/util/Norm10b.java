@@ -0,0 +1,85 @@
+package me.jellysquid.mods.sodium.client.util;
+
+import net.minecraft.client.util.math.Vector3f;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ * Provides some utilities for working with normal vectors packed in the signed 10-10-10-2 format which OpenGL calls
+ * GL_INT_2_10_10_10_REV. Each vector component provides 10 bits of precision in the range of [-1.0,1.0], while the
+ * extra component only provides 2 bits and is meant for signs such as the handedness of a tangent.
+ *
+ * | 32   | 30           | 20           | 10           |
+ * | 01   | 01 1111 1111 | 00 0000 0000 | 10 0000 0001 |
+ * | W    | Z            | Y            | X            |
+ */
+public class Norm10b {
+    /**
+     * The maximum value of a normal's vector component.
+     */
+    private static final float COMPONENT_RANGE = 511.0f;
+
+    /**
+     * Constant value which can be multiplied with a floating-point vector component to get the normalized value.
+     */
+    private static final float NORM = 1.0f / COMPONENT_RANGE;
+
+    public static int pack(Vector3f dir, float w) {
+        return pack(dir.getX(), dir.getY(), dir.getZ(), w);
+    }
+
+    /**
+     * Packs the specified vector components into a 32-bit integer in XYZW ordering.
+     * @param x The x component of the normal's vector
+     * @param y The y component of the normal's vector
+     * @param z The z component of the normal's vector
+     * @param w The extra component, which is rounded to the nearest of -1.0, 0.0 or 1.0
+     */
+    public static int pack(float x, float y, float z, float w) {
+        int normX = encode(x);
+        int normY = encode(y);
+        int normZ = encode(z);
+        int normW = Math.round(MathHelper.clamp(w, -1.0F, 1.0F)) & 3;
+
+        return (normW << 30) | (normZ << 20) | (normY << 10) | normX;
+    }
+
+    /**
+     * Encodes a float in the range of -1.0..1.0 to a signed 10-bit integer in two's complement form.
+     */
+    private static int encode(float comp) {
+        return Math.round(MathHelper.clamp(comp, -1.0F, 1.0F) * COMPONENT_RANGE) & 1023;
+    }
+
+    /**
+     * Unpacks the x-component of the packed normal, denormalizing it to a float in the range of -1.0..1.0.
+     * @param norm The packed normal
+     */
+    public static float unpackX(int norm) {
+        return ((norm << 22) >> 22) * NORM;
+    }
+
+    /**
+     * Unpacks the y-component of the packed normal, denormalizing it to a float in the range of -1.0..1.0.
+     * @param norm The packed normal
+     */
+    public static float unpackY(int norm) {
+        return ((norm << 12) >> 22) * NORM;
+    }
+
+    /**
+     * Unpacks the z-component of the packed normal, denormalizing it to a float in the range of -1.0..1.0.
+     * @param norm The packed normal
+     */
+    public static float unpackZ(int norm) {
+        return ((norm << 2) >> 22) * NORM;
+    }
+
+    /**
+     * Unpacks the extra component of the packed normal, which is one of -1.0, 0.0 or 1.0.
+     * @param norm The packed normal
+     */
+    public static float unpackW(int norm) {
+        // The 2-bit component can also hold -2, which OpenGL clamps to -1.0 when normalizing it
+        return Math.max(norm >> 30, -1);
+    }
+}
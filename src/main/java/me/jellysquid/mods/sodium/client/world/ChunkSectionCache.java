@@ -0,0 +1,105 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import it.unimi.dsi.fastutil.longs.Long2ReferenceLinkedOpenHashMap;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+
+/**
+ * Caches snapshots of the decoded block states of chunk sections so that world slices can share them instead of
+ * decoding the paletted storage of each section again for every build task which touches it. A section is touched by
+ * the build tasks of all 27 sections around it, so this avoids most of the decoding work when many sections are
+ * rebuilt at once.
+ *
+ * Snapshots are immutable once created. Each entry records the section it was created from and the modification count
+ * of that section at the time, so it is replaced as soon as the section is modified or swapped out for another one.
+ *
+ * This class is safe to use from multiple threads, but snapshots must be taken on the thread which owns the world.
+ */
+public class ChunkSectionCache {
+    private static final int CACHE_SIZE = 1024;
+
+    private final Long2ReferenceLinkedOpenHashMap<Entry> entries = new Long2ReferenceLinkedOpenHashMap<>(CACHE_SIZE, 0.5f);
+
+    private long hits, misses;
+    private long decodedBytes;
+
+    /**
+     * Returns a snapshot of the given section, decoding it if there is no up-to-date snapshot of the section.
+     * @param pos The position of the section
+     * @param section The section in the world, or null if it is absent
+     */
+    public ChunkSectionSnapshot getSnapshot(ChunkSectionPos pos, ChunkSection section) {
+        if (ChunkSection.isEmpty(section)) {
+            return ChunkSectionSnapshot.EMPTY;
+        }
+
+        long key = pos.asLong();
+        int version = ((ChunkSectionExtended) section).getModificationCount();
+
+        synchronized (this) {
+            Entry entry = this.entries.getAndMoveToFirst(key);
+
+            if (entry != null && entry.section == section && entry.version == version) {
+                this.hits++;
+
+                return entry.snapshot;
+            }
+        }
+
+        ChunkSectionSnapshot snapshot = ChunkSectionSnapshot.create(section);
+
+        synchronized (this) {
+            if (this.entries.size() >= CACHE_SIZE && !this.entries.containsKey(key)) {
+                this.entries.removeLast();
+            }
+
+            this.entries.putAndMoveToFirst(key, new Entry(section, version, snapshot));
+
+            this.misses++;
+            this.decodedBytes += snapshot.getIndices().length * (long) Short.BYTES;
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Drops the snapshots of all sections in the given chunk.
+     */
+    public synchronized void dropSnapshotsForChunk(int x, int z) {
+        for (int y = 0; y < 16; y++) {
+            this.entries.remove(ChunkSectionPos.asLong(x, y, z));
+        }
+    }
+
+    /**
+     * Drops all snapshots.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * @param slices The number of world slices which have been created, used to report the amount of data decoded
+     *               for each of them
+     */
+    public synchronized String getDebugString(long slices) {
+        long lookups = this.hits + this.misses;
+
+        return String.format("Section Cache: %.1f%% hits, %.1f KiB decoded/slice (%d entries)",
+                lookups > 0 ? (this.hits * 100.0D) / lookups : 0.0D,
+                slices > 0 ? (this.decodedBytes / 1024.0D) / slices : 0.0D,
+                this.entries.size());
+    }
+
+    private static class Entry {
+        private final ChunkSection section;
+        private final int version;
+        private final ChunkSectionSnapshot snapshot;
+
+        private Entry(ChunkSection section, int version, ChunkSectionSnapshot snapshot) {
+            this.section = section;
+            this.version = version;
+            this.snapshot = snapshot;
+        }
+    }
+}
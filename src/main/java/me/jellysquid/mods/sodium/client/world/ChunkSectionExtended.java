@@ -0,0 +1,9 @@
+package me.jellysquid.mods.sodium.client.world;
+
+public interface ChunkSectionExtended {
+    /**
+     * @return A counter which is incremented every time the blocks of this section are modified. This is only changed
+     *         and read on the thread which owns the world.
+     */
+    int getModificationCount();
+}
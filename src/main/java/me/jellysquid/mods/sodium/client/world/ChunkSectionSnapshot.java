@@ -0,0 +1,94 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.collection.PackedIntegerArray;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.Palette;
+import net.minecraft.world.chunk.PalettedContainer;
+
+/**
+ * An immutable copy of the blocks in a chunk section, stored as one palette index per block along with a palette which
+ * only contains the block states present in the section. Unlike the paletted storage of the section itself, the indices
+ * can be read without any bit unpacking.
+ */
+public class ChunkSectionSnapshot {
+    /**
+     * A snapshot containing nothing but air, which is used for all empty and absent sections.
+     */
+    public static final ChunkSectionSnapshot EMPTY = new ChunkSectionSnapshot(new BlockState[] { Blocks.AIR.getDefaultState() }, new short[16 * 16 * 16]);
+
+    private final BlockState[] palette;
+    private final short[] indices;
+
+    private ChunkSectionSnapshot(BlockState[] palette, short[] indices) {
+        this.palette = palette;
+        this.indices = indices;
+    }
+
+    /**
+     * Decodes the paletted block states of a section into a new snapshot.
+     */
+    public static ChunkSectionSnapshot create(ChunkSection section) {
+        if (ChunkSection.isEmpty(section)) {
+            return EMPTY;
+        }
+
+        PalettedContainer<BlockState> container = section.getContainer();
+
+        PackedIntegerArray intArray = container.data;
+        Palette<BlockState> palette = container.palette;
+
+        ReferenceArrayList<BlockState> states = new ReferenceArrayList<>();
+        Reference2IntOpenHashMap<BlockState> stateIds = new Reference2IntOpenHashMap<>();
+        stateIds.defaultReturnValue(-1);
+
+        short[] indices = new short[16 * 16 * 16];
+
+        int prevPaletteId = -1;
+        short prevIndex = 0;
+
+        for (int blockIdx = 0; blockIdx < indices.length; blockIdx++) {
+            int paletteId = intArray.get(blockIdx);
+
+            if (prevPaletteId != paletteId) {
+                BlockState state = palette.getByIndex(paletteId);
+
+                if (state == null) {
+                    state = container.defaultValue;
+                }
+
+                int index = stateIds.getInt(state);
+
+                if (index == -1) {
+                    stateIds.put(state, index = states.size());
+                    states.add(state);
+                }
+
+                prevIndex = (short) index;
+                prevPaletteId = paletteId;
+            }
+
+            indices[blockIdx] = prevIndex;
+        }
+
+        return new ChunkSectionSnapshot(states.toArray(new BlockState[0]), indices);
+    }
+
+    /**
+     * @return The block states present in this section. The returned array must never be modified.
+     */
+    public BlockState[] getPalette() {
+        return this.palette;
+    }
+
+    /**
+     * @return The index into the palette of each block in the section, indexed by
+     *         {@link WorldSlice#getLocalBlockIndex(int, int, int)}. The returned array must never be modified.
+     */
+    public short[] getIndices() {
+        return this.indices;
+    }
+}
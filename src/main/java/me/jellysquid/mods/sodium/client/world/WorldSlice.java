@@ -1,15 +1,17 @@
 package me.jellysquid.mods.sodium.client.world;
 
-import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeCache;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeCacheManager;
-import me.jellysquid.mods.sodium.client.world.biome.BiomeColorCache;
+import me.jellysquid.mods.sodium.client.world.biome.BiomeColorColumn;
 import me.jellysquid.mods.sodium.common.util.pool.ReusableObject;
 import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.fluid.FluidState;
-import net.minecraft.util.collection.PackedIntegerArray;
+import net.minecraft.util.math.BlockBox;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.Direction;
@@ -39,16 +41,13 @@ import java.util.Map;
  * Object pooling should be used to avoid huge allocations as this class contains many large arrays.
  */
 public class WorldSlice extends ReusableObject implements BlockRenderView, BiomeAccess.Storage {
-    private static final ChunkSection EMPTY_SECTION = new ChunkSection(0);
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
 
     // The number of blocks on each axis in a section.
     private static final int SECTION_BLOCK_LENGTH = 16;
 
-    // The number of blocks in a section.
-    private static final int SECTION_BLOCK_COUNT = SECTION_BLOCK_LENGTH * SECTION_BLOCK_LENGTH * SECTION_BLOCK_LENGTH;
-
     // The radius of blocks around the origin chunk that should be copied.
-    private static final int NEIGHBOR_BLOCK_RADIUS = 2;
+    public static final int NEIGHBOR_BLOCK_RADIUS = 2;
 
     // The radius of chunks around the origin chunk that should be copied.
     private static final int NEIGHBOR_CHUNK_RADIUS = MathHelper.roundUpToMultiple(NEIGHBOR_BLOCK_RADIUS, 16) >> 4;
@@ -59,6 +58,12 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
     // The number of sections on each axis of this slice.
     private static final int SECTION_LENGTH = 1 + (NEIGHBOR_CHUNK_RADIUS * 2);
 
+    // The maximum number of vertically adjacent origin sections which can share a single slice.
+    public static final int MAX_ORIGIN_SECTIONS = 4;
+
+    // The number of blocks on the vertical axis of this slice when it contains the maximum number of origin sections.
+    private static final int BLOCK_HEIGHT = (SECTION_BLOCK_LENGTH * MAX_ORIGIN_SECTIONS) + (NEIGHBOR_BLOCK_RADIUS * 2);
+
     // The size of the lookup tables used for mapping values to coordinate int pairs. The lookup table size is always
     // a power of two so that multiplications can be replaced with simple bit shifts in hot code paths.
     private static final int TABLE_LENGTH = MathHelper.smallestEncompassingPowerOfTwo(SECTION_LENGTH);
@@ -69,33 +74,44 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
     // The array size for the chunk lookup table.
     private static final int CHUNK_TABLE_ARRAY_SIZE = TABLE_LENGTH * TABLE_LENGTH;
 
-    // The array size for the section lookup table.
-    private static final int SECTION_TABLE_ARRAY_SIZE = TABLE_LENGTH * TABLE_LENGTH * TABLE_LENGTH;
+    // The index into the palette of each block within the neighbor radius of the origin sections, in YZX order
+    private final short[] blockIndices;
+
+    // The block states of this slice, and the index of each state in the palette. The first entry is always air.
+    private BlockState[] palette;
+    private int paletteSize;
+    private final Reference2IntOpenHashMap<BlockState> paletteIds;
+
+    // A scratch table for mapping the palette indices of a section snapshot to indices into this slice's palette
+    private final short[] paletteRemap;
 
-    // Local Section->BlockState table. Read-only.
-    private final BlockState[][] blockStatesArrays;
+    // The offset of the current origin section from the bottom of the block index array, in blocks
+    private int originOffsetY;
 
-    // A pointer to the BlockState array for the origin section.
-    private final BlockState[] originBlockStates;
+    // The block and sky light levels of each block within the neighbor radius of the origin sections, in the same
+    // order as the block indices. Each byte holds the sky light in its upper four bits and the block light in its lower.
+    private final byte[] lightLevels;
 
-    // Local Section->Light table. Read-only.
-    private final ChunkNibbleArray[] blockLightArrays;
-    private final ChunkNibbleArray[] skyLightArrays;
+    // The block entities within the copied bounds of this slice, keyed by their packed block position
+    private final Long2ReferenceOpenHashMap<BlockEntity> blockEntities = new Long2ReferenceOpenHashMap<>();
 
-    // Local Section->Biome table.
-    private final BiomeCache[] biomeCaches;
+    // Local Section->Biome table for each origin section, and a pointer to the table of the current origin section.
+    // The tables are only populated once biomes are first needed, which is on the thread using this slice.
+    private final BiomeCache[][] biomeCachesByOrigin;
+    private BiomeCache[] biomeCaches;
     private final BiomeArray[] biomeArrays;
 
-    // The biome blend caches for each color resolver type
-    // This map is always re-initialized, but the caches themselves are taken from an object pool
-    private final Map<ColorResolver, BiomeColorCache> colorResolvers = new Reference2ObjectOpenHashMap<>();
+    // The blended biome colors of the column which the origin sections are in, which are shared with all other slices
+    // in the same column. The colors are blended from the border of the column, so this is the starting point of them.
+    private BiomeColorColumn colorColumn;
+    private int colorBaseX, colorBaseZ;
 
-    // The previously accessed and cached color resolver, used in conjunction with the cached color cache field
+    // The previously accessed and cached color resolver, used in conjunction with the cached color map field
     private ColorResolver prevColorResolver;
 
-    // The cached lookup result for the previously accessed color resolver to avoid excess hash table accesses
+    // The cached lookup result for the previously accessed color resolver to avoid excess synchronization
     // for vertex color blending
-    private BiomeColorCache prevColorCache;
+    private int[] prevColorMap;
 
     // The world this slice has copied data from
     private World world;
@@ -104,9 +120,17 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
     private WorldChunk[] chunks;
 
     private BiomeCacheManager biomeCacheManager;
+    private ChunkSectionCache sectionCache;
 
-    // The starting point from which this slice captures blocks
-    private int baseX, baseY, baseZ;
+    // The version of the biome caches when this slice was created, see BiomeCacheManager
+    private long biomeVersion;
+
+    // The starting point of the chunks which this slice captures
+    private int baseX, baseZ;
+
+    // The starting point of the block index array, and the number of blocks it spans on the vertical axis
+    private int blockBaseX, blockBaseY, blockBaseZ;
+    private int blockHeight;
 
     // The min/max bounds of the blocks copied by this slice
     private int minX, minY, minZ;
@@ -115,6 +139,10 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
     // The chunk origin of this slice
     private ChunkSectionPos origin;
 
+    // The lowest origin section of this slice and the number of origin sections stacked on top of it
+    private ChunkSectionPos firstOrigin;
+    private int originCount;
+
     public static WorldChunk[] createChunkSlice(World world, ChunkSectionPos pos) {
         WorldChunk chunk = world.getChunk(pos.getX(), pos.getZ());
         ChunkSection section = chunk.getSectionArray()[pos.getY()];
@@ -145,38 +173,105 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
     }
 
     public WorldSlice() {
-        this.blockStatesArrays = new BlockState[SECTION_TABLE_ARRAY_SIZE][];
+        this.blockIndices = new short[BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_HEIGHT];
 
-        for (int x = 0; x < SECTION_LENGTH; x++) {
-            for (int y = 0; y < SECTION_LENGTH; y++) {
-                for (int z = 0; z < SECTION_LENGTH; z++) {
-                    this.blockStatesArrays[getLocalSectionIndex(x, y, z)] = new BlockState[SECTION_BLOCK_COUNT];
-                }
-            }
-        }
+        this.palette = new BlockState[64];
+        this.paletteIds = new Reference2IntOpenHashMap<>();
+        this.paletteIds.defaultReturnValue(-1);
+        this.paletteRemap = new short[SECTION_BLOCK_LENGTH * SECTION_BLOCK_LENGTH * SECTION_BLOCK_LENGTH];
 
-        this.blockLightArrays = new ChunkNibbleArray[SECTION_TABLE_ARRAY_SIZE];
-        this.skyLightArrays = new ChunkNibbleArray[SECTION_TABLE_ARRAY_SIZE];
+        this.lightLevels = new byte[BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_HEIGHT];
 
-        this.biomeCaches = new BiomeCache[CHUNK_TABLE_ARRAY_SIZE];
+        this.biomeCachesByOrigin = new BiomeCache[MAX_ORIGIN_SECTIONS][CHUNK_TABLE_ARRAY_SIZE];
+        this.biomeCaches = this.biomeCachesByOrigin[0];
         this.biomeArrays = new BiomeArray[CHUNK_TABLE_ARRAY_SIZE];
-
-        this.originBlockStates = this.blockStatesArrays[getLocalSectionIndex((SECTION_LENGTH / 2), (SECTION_LENGTH / 2), (SECTION_LENGTH / 2))];
     }
 
     public void init(ChunkBuilder<?> builder, World world, ChunkSectionPos origin, WorldChunk[] chunks) {
+        this.init(builder, world, origin, chunks, null);
+    }
+
+    /**
+     * Initializes this slice, only copying the blocks inside the given bounds. The bounds are clipped to the area around
+     * the origin section which this slice can contain.
+     *
+     * Any blocks outside the bounds are treated as air, so the caller must make sure that they are never accessed. This
+     * is used to avoid copying the full neighborhood of a section when only a few blocks within it need to be rendered.
+     *
+     * @param bounds The block bounds to copy, or null if the whole area should be copied
+     */
+    public void init(ChunkBuilder<?> builder, World world, ChunkSectionPos origin, WorldChunk[] chunks, BlockBox bounds) {
+        this.init(builder, world, origin, 1, chunks, bounds);
+    }
+
+    /**
+     * Initializes this slice so that it contains a vertical run of origin sections, starting at the given section. This
+     * allows the sections to be built one after another while only copying the blocks between them once. The current
+     * origin can be changed with {@link WorldSlice#setOrigin(ChunkSectionPos)} and is initially the lowest section.
+     *
+     * @param originCount The number of origin sections, which must be no more than {@link WorldSlice#MAX_ORIGIN_SECTIONS}
+     */
+    public void init(ChunkBuilder<?> builder, World world, ChunkSectionPos origin, int originCount, WorldChunk[] chunks, BlockBox bounds) {
+        if (originCount < 1 || originCount > MAX_ORIGIN_SECTIONS) {
+            throw new IllegalArgumentException("Invalid number of origin sections: " + originCount);
+        }
+
         this.world = world;
         this.chunks = chunks;
+        this.sectionCache = builder.getSectionCache();
+        this.biomeCacheManager = builder.getBiomeCacheManager();
+
+        // This must be taken before any data is copied, as caches could be dropped while this slice is being created
+        this.biomeVersion = this.biomeCacheManager.getVersion();
         this.origin = origin;
+        this.firstOrigin = origin;
+        this.originCount = originCount;
 
         this.minX = origin.getMinX() - NEIGHBOR_BLOCK_RADIUS;
         this.minY = origin.getMinY() - NEIGHBOR_BLOCK_RADIUS;
         this.minZ = origin.getMinZ() - NEIGHBOR_BLOCK_RADIUS;
 
         this.maxX = origin.getMaxX() + NEIGHBOR_BLOCK_RADIUS;
-        this.maxY = origin.getMaxY() + NEIGHBOR_BLOCK_RADIUS;
+        this.maxY = origin.getMaxY() + ((originCount - 1) * SECTION_BLOCK_LENGTH) + NEIGHBOR_BLOCK_RADIUS;
         this.maxZ = origin.getMaxZ() + NEIGHBOR_BLOCK_RADIUS;
 
+        this.blockBaseX = this.minX;
+        this.blockBaseY = this.minY;
+        this.blockBaseZ = this.minZ;
+        this.blockHeight = this.maxY - this.minY + 1;
+
+        final int baseChunkX = this.minX >> 4;
+        final int baseChunkZ = this.minZ >> 4;
+
+        this.baseX = baseChunkX << 4;
+        this.baseZ = baseChunkZ << 4;
+
+        // The biome arrays are only references and are needed for blending beyond the copied blocks, so they are
+        // always taken for every chunk in the slice
+        for (int chunkX = baseChunkX; chunkX <= this.maxX >> 4; chunkX++) {
+            for (int chunkZ = baseChunkZ; chunkZ <= this.maxZ >> 4; chunkZ++) {
+                int chunkIdx = getLocalChunkIndex(chunkX - baseChunkX, chunkZ - baseChunkZ);
+
+                this.biomeArrays[chunkIdx] = this.chunks[chunkIdx].getBiomeArray();
+            }
+        }
+
+        if (bounds != null) {
+            this.minX = Math.max(this.minX, bounds.minX);
+            this.minY = Math.max(this.minY, bounds.minY);
+            this.minZ = Math.max(this.minZ, bounds.minZ);
+
+            this.maxX = Math.min(this.maxX, bounds.maxX);
+            this.maxY = Math.min(this.maxY, bounds.maxY);
+            this.maxZ = Math.min(this.maxZ, bounds.maxZ);
+
+            // Blocks outside the bounds won't be copied, so make sure they don't keep any data from a previous use
+            Arrays.fill(this.blockIndices, (short) 0);
+            Arrays.fill(this.lightLevels, (byte) 0);
+        }
+
+        this.addToPalette(AIR);
+
         final int minChunkX = this.minX >> 4;
         final int minChunkY = this.minY >> 4;
         final int minChunkZ = this.minZ >> 4;
@@ -185,58 +280,72 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
         final int maxChunkY = this.maxY >> 4;
         final int maxChunkZ = this.maxZ >> 4;
 
-        this.baseX = minChunkX << 4;
-        this.baseY = minChunkY << 4;
-        this.baseZ = minChunkZ << 4;
+        ChunkLightingView blockLightProvider = this.world.getLightingProvider().get(LightType.BLOCK);
+        ChunkLightingView skyLightProvider = this.world.getLightingProvider().get(LightType.SKY);
 
         // Iterate over all sliced chunks
         for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
             for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
                 // The local index for this chunk in the slice's data arrays
-                int chunkIdx = getLocalChunkIndex(chunkX - minChunkX, chunkZ - minChunkZ);
+                int chunkIdx = getLocalChunkIndex(chunkX - baseChunkX, chunkZ - baseChunkZ);
 
-                Chunk chunk = this.chunks[chunkIdx];
+                WorldChunk chunk = this.chunks[chunkIdx];
 
                 for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
                     ChunkSectionPos pos = ChunkSectionPos.from(chunkX, chunkY, chunkZ);
 
-                    // Find the local position of the chunk in the sliced chunk array
-                    int sectionIdx = getLocalSectionIndex(chunkX - minChunkX, chunkY - minChunkY, chunkZ - minChunkZ);
-
-                    this.populateLightArrays(sectionIdx, pos);
-                    this.populateBlockArrays(sectionIdx, pos, chunk);
+                    this.copyLightLevels(blockLightProvider.getLightSection(pos), skyLightProvider.getLightSection(pos), pos);
+                    this.copyBlockStates(this.sectionCache.getSnapshot(pos, getChunkSection(chunk, pos)), pos);
                 }
 
-                this.biomeArrays[chunkIdx] = chunk.getBiomeArray();
+                this.copyBlockEntities(chunk);
             }
         }
 
-        this.biomeCacheManager = builder.getBiomeCacheManager();
-        this.biomeCacheManager.populateArrays(origin.getX(), origin.getY(), origin.getZ(), this.biomeCaches);
-    }
+        this.colorBaseX = origin.getMinX() - BiomeColorColumn.BORDER;
+        this.colorBaseZ = origin.getMinZ() - BiomeColorColumn.BORDER;
 
-    private void populateLightArrays(int sectionIdx, ChunkSectionPos pos) {
-        ChunkLightingView blockLightProvider = this.world.getLightingProvider().get(LightType.BLOCK);
-        ChunkLightingView skyLightProvider = this.world.getLightingProvider().get(LightType.SKY);
-        
-        this.blockLightArrays[sectionIdx] = blockLightProvider.getLightSection(pos);
-        this.skyLightArrays[sectionIdx] = skyLightProvider.getLightSection(pos);
+        this.setOrigin(origin);
     }
 
-    private void populateBlockArrays(int sectionIdx, ChunkSectionPos pos, Chunk chunk) {
-        ChunkSection section = getChunkSection(chunk, pos);
+    /**
+     * Changes the origin section of this slice to another one of the sections it was initialized with. This is safe to
+     * call from the thread which is using this slice.
+     */
+    public void setOrigin(ChunkSectionPos origin) {
+        int index = origin.getY() - this.firstOrigin.getY();
 
-        if (section == null || section.isEmpty()) {
-            section = EMPTY_SECTION;
+        if (origin.getX() != this.firstOrigin.getX() || origin.getZ() != this.firstOrigin.getZ() || index < 0 || index >= this.originCount) {
+            throw new IllegalArgumentException("Section " + origin + " is not an origin of this slice");
         }
 
-        PalettedContainer<BlockState> container = section.getContainer();
-
-        PackedIntegerArray intArray = container.data;
-        Palette<BlockState> palette = container.palette;
+        this.origin = origin;
+        this.originOffsetY = origin.getMinY() - this.blockBaseY;
+        this.biomeCaches = this.biomeCachesByOrigin[index];
+    }
 
-        BlockState[] dst = this.blockStatesArrays[sectionIdx];
+    /**
+     * Takes references to the block entities of a chunk which are within the bounds of this slice, so that build tasks
+     * never need to access the block entity map of the chunk while the main thread may be modifying it.
+     */
+    private void copyBlockEntities(WorldChunk chunk) {
+        for (Map.Entry<BlockPos, BlockEntity> entry : chunk.getBlockEntities().entrySet()) {
+            BlockPos pos = entry.getKey();
+
+            if (pos.getX() >= this.minX && pos.getX() <= this.maxX &&
+                    pos.getY() >= this.minY && pos.getY() <= this.maxY &&
+                    pos.getZ() >= this.minZ && pos.getZ() <= this.maxZ) {
+                this.blockEntities.put(pos.asLong(), entry.getValue());
+            }
+        }
+    }
 
+    /**
+     * Copies the light levels of a section which are within the bounds of this slice. Since the copy is made on the main
+     * thread, build tasks always see the light levels as they were when the task was created, even if the lighting
+     * engine updates them while the task is running.
+     */
+    private void copyLightLevels(ChunkNibbleArray blockLight, ChunkNibbleArray skyLight, ChunkSectionPos pos) {
         int minBlockX = Math.max(this.minX, pos.getMinX());
         int maxBlockX = Math.min(this.maxX, pos.getMaxX());
 
@@ -246,51 +355,120 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
         int minBlockZ = Math.max(this.minZ, pos.getMinZ());
         int maxBlockZ = Math.min(this.maxZ, pos.getMaxZ());
 
-        int prevPaletteId = -1;
-        BlockState prevPaletteState = null;
+        if (blockLight != null && blockLight.isUninitialized()) {
+            blockLight = null;
+        }
+
+        if (skyLight != null && skyLight.isUninitialized()) {
+            skyLight = null;
+        }
+
+        byte[] dst = this.lightLevels;
 
         for (int y = minBlockY; y <= maxBlockY; y++) {
             for (int z = minBlockZ; z <= maxBlockZ; z++) {
+                int dstIdx = this.getBlockIndex(minBlockX, y, z);
+
                 for (int x = minBlockX; x <= maxBlockX; x++) {
-                    int blockIdx = getLocalBlockIndex(x & 15, y & 15, z & 15);
-                    int paletteId = intArray.get(blockIdx);
+                    int block = blockLight != null ? blockLight.get(x & 15, y & 15, z & 15) : 0;
+                    int sky = skyLight != null ? skyLight.get(x & 15, y & 15, z & 15) : 0;
+
+                    dst[dstIdx++] = (byte) ((sky << 4) | block);
+                }
+            }
+        }
+    }
 
-                    BlockState state;
+    /**
+     * Copies the blocks of a section snapshot which are within the bounds of this slice, adding their states to the
+     * palette of this slice as they are encountered.
+     */
+    private void copyBlockStates(ChunkSectionSnapshot snapshot, ChunkSectionPos pos) {
+        int minBlockX = Math.max(this.minX, pos.getMinX());
+        int maxBlockX = Math.min(this.maxX, pos.getMaxX());
 
-                    if (prevPaletteId == paletteId) {
-                        state = prevPaletteState;
-                    } else {
-                        state = palette.getByIndex(paletteId);
-                        if (state == null) {
-                            state = container.defaultValue;
-                        }
+        int minBlockY = Math.max(this.minY, pos.getMinY());
+        int maxBlockY = Math.min(this.maxY, pos.getMaxY());
 
-                        prevPaletteState = state;
-                        prevPaletteId = paletteId;
+        int minBlockZ = Math.max(this.minZ, pos.getMinZ());
+        int maxBlockZ = Math.min(this.maxZ, pos.getMaxZ());
+
+        BlockState[] states = snapshot.getPalette();
+        short[] src = snapshot.getIndices();
+
+        short[] remap = this.paletteRemap;
+        Arrays.fill(remap, 0, states.length, (short) -1);
+
+        short[] dst = this.blockIndices;
+
+        for (int y = minBlockY; y <= maxBlockY; y++) {
+            for (int z = minBlockZ; z <= maxBlockZ; z++) {
+                int srcIdx = getLocalBlockIndex(minBlockX & 15, y & 15, z & 15);
+                int dstIdx = this.getBlockIndex(minBlockX, y, z);
+
+                for (int x = minBlockX; x <= maxBlockX; x++) {
+                    int sectionId = src[srcIdx++];
+                    short id = remap[sectionId];
+
+                    if (id < 0) {
+                        id = remap[sectionId] = (short) this.addToPalette(states[sectionId]);
                     }
 
-                    dst[blockIdx] = state;
+                    dst[dstIdx++] = id;
                 }
             }
         }
     }
 
+    private int addToPalette(BlockState state) {
+        int id = this.paletteIds.getInt(state);
+
+        if (id < 0) {
+            id = this.paletteSize++;
+
+            if (id >= this.palette.length) {
+                this.palette = Arrays.copyOf(this.palette, this.palette.length * 2);
+            }
+
+            this.palette[id] = state;
+            this.paletteIds.put(state, id);
+        }
+
+        return id;
+    }
+
+    private int getBlockIndex(int x, int y, int z) {
+        return (((y - this.blockBaseY) * BLOCK_LENGTH) + (z - this.blockBaseZ)) * BLOCK_LENGTH + (x - this.blockBaseX);
+    }
+
     @Override
     public BlockState getBlockState(BlockPos pos) {
         return this.getBlockState(pos.getX(), pos.getY(), pos.getZ());
     }
 
     public BlockState getBlockState(int x, int y, int z) {
-        int relX = x - this.baseX;
-        int relY = y - this.baseY;
-        int relZ = z - this.baseZ;
+        int relX = x - this.blockBaseX;
+        int relY = y - this.blockBaseY;
+        int relZ = z - this.blockBaseZ;
 
-        return this.blockStatesArrays[getLocalSectionIndex(relX >> 4, relY >> 4, relZ >> 4)]
-                [getLocalBlockIndex(relX & 15, relY & 15, relZ & 15)];
+        // Blocks beyond the neighbor radius are never copied, but the block view contract still requires a valid state
+        if (relX < 0 || relY < 0 || relZ < 0 || relX >= BLOCK_LENGTH || relY >= this.blockHeight || relZ >= BLOCK_LENGTH) {
+            return AIR;
+        }
+
+        return this.palette[this.blockIndices[((relY * BLOCK_LENGTH) + relZ) * BLOCK_LENGTH + relX]];
     }
 
+    /**
+     * Returns the block state at the given position relative to the current origin section. The position must be
+     * within the origin section.
+     */
     public BlockState getOriginBlockState(int x, int y, int z) {
-        return this.originBlockStates[getLocalBlockIndex(x, y, z)];
+        int relY = this.originOffsetY + y;
+        int relZ = NEIGHBOR_BLOCK_RADIUS + z;
+        int relX = NEIGHBOR_BLOCK_RADIUS + x;
+
+        return this.palette[this.blockIndices[((relY * BLOCK_LENGTH) + relZ) * BLOCK_LENGTH + relX]];
     }
 
     @Override
@@ -314,75 +492,101 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
         return this.world.getLightingProvider();
     }
 
+    /**
+     * Returns the block entity at the given position as it was when this slice was created. Block entities are never
+     * created by this method, and those outside the copied bounds of this slice are never returned.
+     */
     @Override
     public BlockEntity getBlockEntity(BlockPos pos) {
-        return this.getBlockEntity(pos, WorldChunk.CreationType.IMMEDIATE);
-    }
-
-    public BlockEntity getBlockEntity(BlockPos pos, WorldChunk.CreationType type) {
-        int relX = pos.getX() - this.baseX;
-        int relZ = pos.getZ() - this.baseZ;
-
-        return this.chunks[getLocalChunkIndex(relX >> 4, relZ >> 4)]
-                .getBlockEntity(pos, type);
+        return this.blockEntities.get(pos.asLong());
     }
 
     @Override
     public int getColor(BlockPos pos, ColorResolver resolver) {
-        BiomeColorCache cache;
+        int[] colors;
 
         if (this.prevColorResolver == resolver) {
-            cache = this.prevColorCache;
+            colors = this.prevColorMap;
         } else {
-            cache = this.colorResolvers.get(resolver);
-
-            if (cache == null) {
-                this.colorResolvers.put(resolver, cache = new BiomeColorCache(resolver, this));
+            if (this.colorColumn == null) {
+                this.colorColumn = this.biomeCacheManager.getColorColumn(this.origin.getX(), this.origin.getZ(), this.biomeVersion);
             }
 
+            colors = this.colorColumn.getColorMap(resolver, this);
+
             this.prevColorResolver = resolver;
-            this.prevColorCache = cache;
+            this.prevColorMap = colors;
         }
 
-        return cache.getBlendedColor(pos);
+        return colors[BiomeColorColumn.getIndex(pos.getX() - this.colorBaseX, pos.getZ() - this.colorBaseZ)];
     }
 
     @Override
     public int getLightLevel(LightType type, BlockPos pos) {
+        int packed = this.getPackedLightLevels(pos.getX(), pos.getY(), pos.getZ());
+
         switch (type) {
             case SKY:
-                return this.getLightLevel(this.skyLightArrays, pos);
+                return packed >>> 4;
             case BLOCK:
-                return this.getLightLevel(this.blockLightArrays, pos);
+                return packed & 15;
             default:
                 return 0;
         }
     }
 
-    @Override
-    public int getBaseLightLevel(BlockPos pos, int ambientDarkness) {
-        return 0;
-    }
+    /**
+     * [VanillaCopy] WorldRenderer#getLightmapCoordinates(BlockRenderView, BlockState, BlockPos)
+     *
+     * Reads both light levels of the block with a single lookup.
+     */
+    public int getLightmapCoordinates(BlockState state, BlockPos pos) {
+        if (state.hasEmissiveLighting(this, pos)) {
+            return 15728880;
+        }
 
-    @Override
-    public boolean isSkyVisible(BlockPos pos) {
-        return false;
+        return this.getLightmapCoordinates(pos.getX(), pos.getY(), pos.getZ(), state.getLuminance());
     }
 
-    private int getLightLevel(ChunkNibbleArray[] arrays, BlockPos pos) {
-        int relX = pos.getX() - this.baseX;
-        int relY = pos.getY() - this.baseY;
-        int relZ = pos.getZ() - this.baseZ;
+    /**
+     * Returns the light map coordinates of a block which doesn't have emissive lighting.
+     * @param luminance The luminance of the block state at the given position
+     */
+    public int getLightmapCoordinates(int x, int y, int z, int luminance) {
+        int packed = this.getPackedLightLevels(x, y, z);
+
+        int sky = packed >>> 4;
+        int block = Math.max(packed & 15, luminance);
+
+        return sky << 20 | block << 4;
+    }
 
-        ChunkNibbleArray array = arrays[getLocalSectionIndex(relX >> 4, relY >> 4, relZ >> 4)];
+    /**
+     * Returns the light levels of a block as they were when this slice was created, with the sky light in the upper
+     * four bits and the block light in the lower four bits. Blocks outside the copied area are always dark.
+     */
+    public int getPackedLightLevels(int x, int y, int z) {
+        int relX = x - this.blockBaseX;
+        int relY = y - this.blockBaseY;
+        int relZ = z - this.blockBaseZ;
 
-        if (array != null) {
-            return array.get(relX & 15, relY & 15, relZ & 15);
+        if (relX < 0 || relY < 0 || relZ < 0 || relX >= BLOCK_LENGTH || relY >= this.blockHeight || relZ >= BLOCK_LENGTH) {
+            return 0;
         }
 
+        return this.lightLevels[((relY * BLOCK_LENGTH) + relZ) * BLOCK_LENGTH + relX] & 0xFF;
+    }
+
+    @Override
+    public int getBaseLightLevel(BlockPos pos, int ambientDarkness) {
         return 0;
     }
 
+    @Override
+    public boolean isSkyVisible(BlockPos pos) {
+        return false;
+    }
+
     // TODO: Is this safe? The biome data arrays should be immutable once loaded into the client
     @Override
     public Biome getBiomeForNoiseGen(int x, int y, int z) {
@@ -400,6 +604,15 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
         return this.world.getGeneratorStoredBiome(x, y, z);
     }
 
+    /**
+     * Returns the biome array of a chunk within this slice, or null if it has none.
+     * @param chunkX The x-position of the chunk in the world
+     * @param chunkZ The z-position of the chunk in the world
+     */
+    public BiomeArray getBiomeArray(int chunkX, int chunkZ) {
+        return this.biomeArrays[getLocalChunkIndex(chunkX - (this.baseX >> 4), chunkZ - (this.baseZ >> 4))];
+    }
+
     /**
      * Gets or computes the biome at the given global coordinates.
      */
@@ -407,8 +620,16 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
         int relX = x - this.baseX;
         int relZ = z - this.baseZ;
 
-        return this.biomeCaches[getLocalChunkIndex(relX >> 4, relZ >> 4)]
-                .getBiome(this, x, z);
+        int chunkIdx = getLocalChunkIndex(relX >> 4, relZ >> 4);
+        BiomeCache cache = this.biomeCaches[chunkIdx];
+
+        if (cache == null) {
+            this.biomeCacheManager.populateArrays(this.origin.getX(), this.origin.getY(), this.origin.getZ(), this.biomeCaches, this.biomeVersion);
+
+            cache = this.biomeCaches[chunkIdx];
+        }
+
+        return cache.getBiome(this, x, z);
     }
 
     public ChunkSectionPos getOrigin() {
@@ -417,23 +638,28 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
 
     @Override
     public void reset() {
-        for (BiomeCache cache : this.biomeCaches) {
-            if (cache != null) {
-                this.biomeCacheManager.release(cache);
+        for (BiomeCache[] caches : this.biomeCachesByOrigin) {
+            for (BiomeCache cache : caches) {
+                if (cache != null) {
+                    this.biomeCacheManager.release(cache);
+                }
             }
-        }
 
-        Arrays.fill(this.biomeCaches, null);
+            Arrays.fill(caches, null);
+        }
         Arrays.fill(this.biomeArrays, null);
-        Arrays.fill(this.blockLightArrays, null);
-        Arrays.fill(this.skyLightArrays, null);
+        this.blockEntities.clear();
+        Arrays.fill(this.palette, 0, this.paletteSize, null);
+        this.paletteSize = 0;
+        this.paletteIds.clear();
 
         this.biomeCacheManager = null;
+        this.sectionCache = null;
         this.chunks = null;
         this.world = null;
 
-        this.colorResolvers.clear();
-        this.prevColorCache = null;
+        this.colorColumn = null;
+        this.prevColorMap = null;
         this.prevColorResolver = null;
     }
 
@@ -442,10 +668,6 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
         return y << 8 | z << 4 | x;
     }
 
-    public static int getLocalSectionIndex(int x, int y, int z) {
-        return y << TABLE_BITS << TABLE_BITS | z << TABLE_BITS | x;
-    }
-
     public static int getLocalChunkIndex(int x, int z) {
         return z << TABLE_BITS | x;
     }
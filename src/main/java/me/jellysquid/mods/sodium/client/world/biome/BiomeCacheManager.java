@@ -1,23 +1,57 @@
 package me.jellysquid.mods.sodium.client.world.biome;
 
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceLinkedOpenHashMap;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.common.util.pool.ObjectPool;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.biome.source.BiomeAccessType;
 
+/**
+ * Caches the biomes and blended biome colors of chunk columns for world slices.
+ *
+ * The caches are split into stripes by chunk column, each with its own lock, so that build tasks on many threads can
+ * look them up at the same time. Caches are dropped by the main thread whenever a nearby chunk is loaded or unloaded,
+ * but a world slice could still hold on to the biome data from before then. To keep such slices from filling newer
+ * caches with old biomes, each slice passes the version of this manager from when it was created. If a chunk in the
+ * same stripe has been dropped since then, the slice is handed caches of its own which are never shared.
+ */
 public class BiomeCacheManager {
-    private static final int CACHE_SIZE = 256;
+    private static final int STRIPE_COUNT = 64;
+
+    private static final int CACHE_SIZE = 1024;
     private static final int ARENA_SIZE = 64;
+    private static final int COLOR_CACHE_SIZE = 1024;
 
     private final ObjectPool<BiomeCache> pool;
-    private final Long2ReferenceLinkedOpenHashMap<BiomeCache> caches = new Long2ReferenceLinkedOpenHashMap<>(CACHE_SIZE, 0.5f);
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    // The number of times that caches have been dropped, which is only ever modified by the main thread
+    private volatile long version;
 
     public BiomeCacheManager(BiomeAccessType type, long seed) {
         this.pool = new ObjectPool<>(ARENA_SIZE, () -> new BiomeCache(type, seed));
+
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Returns the current version of the caches, which world slices must take while copying data from the world.
+     */
+    public long getVersion() {
+        return this.version;
     }
 
-    public void populateArrays(int centerX, int centerY, int centerZ, BiomeCache[] array) {
+    /**
+     * Fills the given array with the biome caches for the section and its neighbors on the horizontal axes. This is
+     * safe to call from any thread.
+     *
+     * @param version The version of the caches when the world slice was created
+     */
+    public void populateArrays(int centerX, int centerY, int centerZ, BiomeCache[] array, long version) {
         int minX = centerX - 1;
         int minZ = centerZ - 1;
 
@@ -26,30 +60,90 @@ public class BiomeCacheManager {
 
         for (int x = minX; x <= maxX; x++) {
             for (int z = minZ; z <= maxZ; z++) {
-                long key = ChunkSectionPos.asLong(x, centerY, z);
+                array[WorldSlice.getLocalChunkIndex(x - minX, z - minZ)] = this.getCache(x, centerY, z, version);
+            }
+        }
+    }
 
-                BiomeCache cache = this.caches.getAndMoveToFirst(key);
+    private BiomeCache getCache(int x, int y, int z, long version) {
+        Stripe stripe = this.getStripe(x, z);
 
-                if (cache == null) {
-                    if (this.caches.size() >= CACHE_SIZE) {
-                        this.release(this.caches.removeLast());
-                    }
+        long key = ChunkSectionPos.asLong(x, y, z);
+        BiomeCache evicted = null;
+        BiomeCache cache;
+
+        synchronized (stripe) {
+            if (stripe.lastDropVersion > version) {
+                return this.pool.allocate();
+            }
 
-                    this.caches.put(key, cache = this.pool.allocate());
+            cache = stripe.caches.getAndMoveToFirst(key);
+
+            if (cache == null) {
+                if (stripe.caches.size() >= CACHE_SIZE / STRIPE_COUNT) {
+                    evicted = stripe.caches.removeLast();
                 }
 
-                this.pool.acquireReference(cache);
+                stripe.caches.put(key, cache = this.pool.allocate());
+            }
+
+            this.pool.acquireReference(cache);
+        }
+
+        if (evicted != null) {
+            this.release(evicted);
+        }
 
-                array[WorldSlice.getLocalChunkIndex(x - minX, z - minZ)] = cache;
+        return cache;
+    }
+
+    /**
+     * Returns the blended biome colors of the given chunk column. This is safe to call from any thread.
+     *
+     * @param version The version of the caches when the world slice was created
+     */
+    public BiomeColorColumn getColorColumn(int chunkX, int chunkZ, long version) {
+        Stripe stripe = this.getStripe(chunkX, chunkZ);
+
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+
+        synchronized (stripe) {
+            if (stripe.lastDropVersion > version) {
+                return new BiomeColorColumn();
             }
+
+            BiomeColorColumn column = stripe.colorColumns.getAndMoveToFirst(key);
+
+            if (column == null) {
+                if (stripe.colorColumns.size() >= COLOR_CACHE_SIZE / STRIPE_COUNT) {
+                    stripe.colorColumns.removeLast();
+                }
+
+                stripe.colorColumns.putAndMoveToFirst(key, column = new BiomeColorColumn());
+            }
+
+            return column;
         }
     }
 
+    /**
+     * Drops all caches which could contain biomes from the given chunk. This must only be called from the main thread.
+     */
     public void dropCachesForChunk(int centerX, int centerZ) {
+        long version = ++this.version;
+
         for (int x = centerX - 1; x <= centerX; x++) {
             for (int z = centerZ - 1; z <= centerZ; z++) {
+                Stripe stripe = this.getStripe(x, z);
+
                 for (int y = 0; y <= 16; y++) {
-                    BiomeCache column = this.caches.remove(ChunkSectionPos.asLong(x, y, z));
+                    BiomeCache column;
+
+                    synchronized (stripe) {
+                        stripe.lastDropVersion = version;
+
+                        column = stripe.caches.remove(ChunkSectionPos.asLong(x, y, z));
+                    }
 
                     if (column != null) {
                         this.release(column);
@@ -57,9 +151,37 @@ public class BiomeCacheManager {
                 }
             }
         }
+
+        this.dropColorColumns(centerX, centerZ, version);
+    }
+
+    // The colors of a column are blended from the biomes of the columns directly next to it
+    private void dropColorColumns(int centerX, int centerZ, long version) {
+        for (int x = centerX - 1; x <= centerX + 1; x++) {
+            for (int z = centerZ - 1; z <= centerZ + 1; z++) {
+                Stripe stripe = this.getStripe(x, z);
+
+                synchronized (stripe) {
+                    stripe.lastDropVersion = version;
+                    stripe.colorColumns.remove(ChunkPos.toLong(x, z));
+                }
+            }
+        }
     }
 
     public void release(BiomeCache cache) {
         this.pool.release(cache);
     }
-}
\ No newline at end of file
+
+    private Stripe getStripe(int chunkX, int chunkZ) {
+        return this.stripes[(int) HashCommon.mix(ChunkPos.toLong(chunkX, chunkZ)) & (STRIPE_COUNT - 1)];
+    }
+
+    private static class Stripe {
+        private final Long2ReferenceLinkedOpenHashMap<BiomeCache> caches = new Long2ReferenceLinkedOpenHashMap<>(CACHE_SIZE / STRIPE_COUNT, 0.5f);
+        private final Long2ReferenceLinkedOpenHashMap<BiomeColorColumn> colorColumns = new Long2ReferenceLinkedOpenHashMap<>(COLOR_CACHE_SIZE / STRIPE_COUNT, 0.5f);
+
+        // The version of the caches when the last chunk in this stripe was dropped
+        private long lastDropVersion;
+    }
+}
@@ -5,13 +5,19 @@ import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.biome.Biome;
 import net.minecraft.world.level.ColorResolver;
 
 import java.util.Arrays;
 
 public class BiomeColorCache {
+    // The number of bits used for each color channel when summing colors. This must be large enough to hold the sum of a
+    // channel over the largest blend area (255 * 15 * 15) without carrying into the next channel.
+    private static final int CHANNEL_BITS = 21;
+    private static final long CHANNEL_MASK = (1L << CHANNEL_BITS) - 1;
+
     private final ColorResolver resolver;
-    private final WorldSlice slice;
+    private final BiomeLookup biomes;
 
     private final int[] blendedColors;
     private final int[] cache;
@@ -20,12 +26,22 @@ public class BiomeColorCache {
     private final int dim;
     private final int minX, minZ;
 
+    // True if the blended colors have been calculated
+    private boolean blended;
+
     public BiomeColorCache(ColorResolver resolver, WorldSlice slice) {
-        this.resolver = resolver;
-        this.slice = slice;
-        this.radius = MinecraftClient.getInstance().options.biomeBlendRadius;
+        this(resolver, slice::getCachedBiome, slice.getOrigin(), MinecraftClient.getInstance().options.biomeBlendRadius);
+    }
 
-        ChunkSectionPos origin = this.slice.getOrigin();
+    /**
+     * @param biomes The lookup for the biomes around the origin section
+     * @param origin The section which colors will be blended for
+     * @param radius The radius of blocks to blend colors over
+     */
+    public BiomeColorCache(ColorResolver resolver, BiomeLookup biomes, ChunkSectionPos origin, int radius) {
+        this.resolver = resolver;
+        this.biomes = biomes;
+        this.radius = radius;
 
         this.minX = origin.getMinX() - (this.radius + 2);
         this.minZ = origin.getMinZ() - (this.radius + 2);
@@ -36,51 +52,115 @@ public class BiomeColorCache {
         this.blendedColors = new int[this.dim * this.dim];
 
         Arrays.fill(this.cache, -1);
-        Arrays.fill(this.blendedColors, -1);
     }
 
     public int getBlendedColor(BlockPos pos) {
-        int x2 = pos.getX() - this.minX;
-        int z2 = pos.getZ() - this.minZ;
+        return this.getBlendedColor(pos.getX(), pos.getZ());
+    }
 
-        int index = (x2 * this.dim) + z2;
-        int color = this.blendedColors[index];
+    private int getBlendedColor(int x, int z) {
+        if (this.radius == 0) {
+            return this.getColor(x, z);
+        }
 
-        if (color == -1) {
-            this.blendedColors[index] = color = this.calculateBlendedColor(pos.getX(), pos.getZ());
+        if (!this.blended) {
+            this.calculateBlendedColors();
         }
 
-        return color;
+        int x2 = x - this.minX;
+        int z2 = z - this.minZ;
+
+        return this.blendedColors[(x2 * this.dim) + z2];
     }
 
-    private int calculateBlendedColor(int posX, int posZ) {
-        if (this.radius == 0) {
-            return this.getColor(posX, posZ);
+    /**
+     * Creates a map of the blended colors of the origin column and its border, laid out as described by
+     * {@link BiomeColorColumn#getIndex(int, int)}.
+     */
+    public int[] createColorMap() {
+        int[] colors = new int[BiomeColorColumn.SIZE * BiomeColorColumn.SIZE];
+
+        int baseX = this.minX + this.radius + 2 - BiomeColorColumn.BORDER;
+        int baseZ = this.minZ + this.radius + 2 - BiomeColorColumn.BORDER;
+
+        for (int x = 0; x < BiomeColorColumn.SIZE; x++) {
+            for (int z = 0; z < BiomeColorColumn.SIZE; z++) {
+                colors[BiomeColorColumn.getIndex(x, z)] = this.getBlendedColor(baseX + x, baseZ + z);
+            }
         }
 
-        int diameter = (this.radius * 2) + 1;
+        return colors;
+    }
+
+    /**
+     * Calculates the blended colors of every column which can be blended using a separable box filter. Each axis is
+     * summed with a sliding window, so the cost of blending each column is constant regardless of the blend radius.
+     * The results are identical to averaging all colors within the radius of each column.
+     */
+    private void calculateBlendedColors() {
+        int radius = this.radius;
+        int dim = this.dim;
+
+        int diameter = (radius * 2) + 1;
         int area = diameter * diameter;
 
-        int r = 0;
-        int g = 0;
-        int b = 0;
+        // The number of columns on each axis which have all of their neighbors within the cached area
+        int blendDim = dim - (radius * 2);
 
-        int minX = posX - this.radius;
-        int minZ = posZ - this.radius;
+        // The sums of each window along the Z axis, indexed by the X coordinate and the center of the window
+        long[] sums = new long[dim * blendDim];
 
-        int maxX = posX + this.radius;
-        int maxZ = posZ + this.radius;
+        for (int x = 0; x < dim; x++) {
+            long sum = 0L;
 
-        for (int x2 = minX; x2 <= maxX; x2++) {
-            for (int z2 = minZ; z2 <= maxZ; z2++) {
-                int color = this.getColor(x2, z2);
+            for (int z = 0; z < diameter; z++) {
+                sum += this.getSummableColor(x, z);
+            }
+
+            sums[x * blendDim] = sum;
+
+            for (int z = diameter; z < dim; z++) {
+                sum += this.getSummableColor(x, z) - this.getSummableColor(x, z - diameter);
+                sums[(x * blendDim) + (z - diameter + 1)] = sum;
+            }
+        }
+
+        // Sum the windows of each column along the X axis to complete the box filter
+        for (int z = 0; z < blendDim; z++) {
+            long sum = 0L;
+
+            for (int x = 0; x < diameter; x++) {
+                sum += sums[(x * blendDim) + z];
+            }
+
+            this.blendedColors[(radius * dim) + (z + radius)] = averageColor(sum, area);
 
-                r += ColorARGB.unpackRed(color);
-                g += ColorARGB.unpackGreen(color);
-                b += ColorARGB.unpackBlue(color);
+            for (int x = diameter; x < dim; x++) {
+                sum += sums[(x * blendDim) + z] - sums[((x - diameter) * blendDim) + z];
+                this.blendedColors[((x - radius) * dim) + (z + radius)] = averageColor(sum, area);
             }
         }
 
+        this.blended = true;
+    }
+
+    /**
+     * Returns the color of the column at the given position relative to the cached area, with each channel spread out
+     * so that the colors of many columns can be summed together in a single integer.
+     */
+    private long getSummableColor(int x, int z) {
+        int color = this.getColor(this.minX + x, this.minZ + z);
+
+        return ((long) ColorARGB.unpackRed(color) << (CHANNEL_BITS * 2)) |
+                ((long) ColorARGB.unpackGreen(color) << CHANNEL_BITS) |
+                (long) ColorARGB.unpackBlue(color);
+    }
+
+    private static int averageColor(long sum, int area) {
+        int r = (int) ((sum >>> (CHANNEL_BITS * 2)) & CHANNEL_MASK);
+        int g = (int) ((sum >>> CHANNEL_BITS) & CHANNEL_MASK);
+        int b = (int) (sum & CHANNEL_MASK);
+
         return ColorARGB.pack(r / area, g / area, b / area, 255);
     }
 
@@ -96,6 +176,14 @@ public class BiomeColorCache {
     }
 
     private int calculateColor(int x, int z) {
-        return this.resolver.getColor(this.slice.getCachedBiome(x, z), x, z);
+        return this.resolver.getColor(this.biomes.getBiome(x, z), x, z);
+    }
+
+    @FunctionalInterface
+    public interface BiomeLookup {
+        /**
+         * @return The biome at the given global block coordinates
+         */
+        Biome getBiome(int x, int z);
     }
 }
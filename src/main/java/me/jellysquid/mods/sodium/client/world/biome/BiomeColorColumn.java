@@ -0,0 +1,53 @@
+package me.jellysquid.mods.sodium.client.world.biome;
+
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.minecraft.world.level.ColorResolver;
+
+/**
+ * The blended biome colors of a chunk column for each color resolver. Biome colors don't depend on the height of a
+ * block, so every section in a column (and every build task of those sections) can share the same colors instead of
+ * blending them again.
+ *
+ * The colors are blended lazily by the first build task which needs them for a given resolver. Columns are handed out
+ * to world slices by {@link BiomeCacheManager}, which replaces them whenever a nearby chunk is loaded or unloaded.
+ */
+public class BiomeColorColumn {
+    /**
+     * The number of blocks around the column which colors are also blended for, since the corners of quads at the edge
+     * of a section can sample colors just outside of it.
+     */
+    public static final int BORDER = 2;
+
+    /**
+     * The width of the color maps on each axis.
+     */
+    public static final int SIZE = 16 + (BORDER * 2);
+
+    private final Reference2ReferenceOpenHashMap<ColorResolver, int[]> colorMaps = new Reference2ReferenceOpenHashMap<>();
+
+    /**
+     * Returns the blended colors of this column for the given resolver, blending them if needed. The returned array
+     * must never be modified.
+     *
+     * @param slice A world slice for any section in this column, which is used to look up biomes
+     */
+    public synchronized int[] getColorMap(ColorResolver resolver, WorldSlice slice) {
+        int[] colors = this.colorMaps.get(resolver);
+
+        if (colors == null) {
+            this.colorMaps.put(resolver, colors = new BiomeColorCache(resolver, slice).createColorMap());
+        }
+
+        return colors;
+    }
+
+    /**
+     * @param x The x-coordinate relative to the start of the border
+     * @param z The z-coordinate relative to the start of the border
+     * @return The index of the given column in a color map
+     */
+    public static int getIndex(int x, int z) {
+        return (x * SIZE) + z;
+    }
+}
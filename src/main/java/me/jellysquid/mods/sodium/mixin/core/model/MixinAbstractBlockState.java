@@ -0,0 +1,21 @@
+package me.jellysquid.mods.sodium.mixin.core.model;
+
+import me.jellysquid.mods.sodium.client.render.pipeline.BlockRenderPlan;
+import me.jellysquid.mods.sodium.client.render.pipeline.BlockStateExtended;
+import net.minecraft.block.AbstractBlock;
+import org.spongepowered.asm.mixin.Mixin;
+
+@Mixin(AbstractBlock.AbstractBlockState.class)
+public class MixinAbstractBlockState implements BlockStateExtended {
+    private BlockRenderPlan renderPlan;
+
+    @Override
+    public BlockRenderPlan getRenderPlan() {
+        return this.renderPlan;
+    }
+
+    @Override
+    public void setRenderPlan(BlockRenderPlan plan) {
+        this.renderPlan = plan;
+    }
+}
@@ -0,0 +1,20 @@
+package me.jellysquid.mods.sodium.mixin.core.model;
+
+import me.jellysquid.mods.sodium.client.render.occlusion.VoxelShapeExtended;
+import net.minecraft.util.shape.VoxelShape;
+import org.spongepowered.asm.mixin.Mixin;
+
+@Mixin(VoxelShape.class)
+public class MixinVoxelShape implements VoxelShapeExtended {
+    private int occlusionShapeId;
+
+    @Override
+    public int getOcclusionShapeId() {
+        return this.occlusionShapeId;
+    }
+
+    @Override
+    public void setOcclusionShapeId(int id) {
+        this.occlusionShapeId = id;
+    }
+}
@@ -113,7 +113,7 @@ public abstract class MixinWorldRenderer {
      */
     @Overwrite
     private void scheduleSectionRender(BlockPos pos, boolean important) {
-        this.renderer.scheduleRebuildForBlockArea(pos.getX() - 1, pos.getY() - 1, pos.getZ() - 1, pos.getX() + 1, pos.getY() + 1, pos.getZ() + 1, important);
+        this.renderer.scheduleRebuildForBlock(pos, important);
     }
 
     /**
@@ -44,11 +44,13 @@ public abstract class MixinDebugHud {
     }
 
     private static List<String> getChunkRendererDebugStrings() {
-        ChunkRenderBackend<?> backend = SodiumWorldRenderer.getInstance().getChunkRenderer();
+        SodiumWorldRenderer renderer = SodiumWorldRenderer.getInstance();
+        ChunkRenderBackend<?> backend = renderer.getChunkRenderer();
 
-        List<String> strings = new ArrayList<>(4);
+        List<String> strings = new ArrayList<>(8);
         strings.add("Chunk Renderer: " + backend.getRendererName());
         strings.addAll(backend.getDebugStrings());
+        strings.addAll(renderer.getChunkBuilderDebugStrings());
 
         return strings;
     }
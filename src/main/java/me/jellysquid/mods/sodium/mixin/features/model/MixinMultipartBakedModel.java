@@ -1,15 +1,14 @@
 package me.jellysquid.mods.sodium.mixin.features.model;
 
+import me.jellysquid.mods.sodium.client.model.MultipartQuadTable;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.render.model.BakedModel;
 import net.minecraft.client.render.model.BakedQuad;
 import net.minecraft.client.render.model.MultipartBakedModel;
 import net.minecraft.util.math.Direction;
 import org.apache.commons.lang3.tuple.Pair;
-import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
-import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
@@ -19,16 +18,11 @@ import java.util.function.Predicate;
 
 @Mixin(MultipartBakedModel.class)
 public class MixinMultipartBakedModel {
-    private Map<BlockState, List<BakedModel>> stateCacheFast;
-
-    @Shadow
-    @Final
-    private List<Pair<Predicate<BlockState>, BakedModel>> components;
-
+    private MultipartQuadTable quadTable;
 
     @Inject(method = "<init>", at = @At("RETURN"))
     private void init(List<Pair<Predicate<BlockState>, BakedModel>> components, CallbackInfo ci) {
-        this.stateCacheFast = new IdentityHashMap<>();
+        this.quadTable = new MultipartQuadTable(components);
     }
 
     /**
@@ -41,31 +35,7 @@ public class MixinMultipartBakedModel {
             return Collections.emptyList();
         }
 
-        List<BakedModel> models = this.stateCacheFast.get(state);
-
-        if (models == null) {
-            models = new ArrayList<>(this.components.size());
-
-            for (Pair<Predicate<BlockState>, BakedModel> pair : this.components) {
-                if ((pair.getLeft()).test(state)) {
-                    models.add(pair.getRight());
-                }
-            }
-
-            this.stateCacheFast.put(state, models);
-        }
-
-        List<BakedQuad> list = new ArrayList<>();
-
-        long seed = random.nextLong();
-
-        for (BakedModel model : models) {
-            random.setSeed(seed);
-
-            list.addAll(model.getQuads(state, face, random));
-        }
-
-        return list;
+        return this.quadTable.getQuads(state, face, random);
     }
 
 }
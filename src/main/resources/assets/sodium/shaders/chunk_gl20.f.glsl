@@ -1,8 +1,12 @@
 #version 110
 
+#extension GL_ARB_shader_texture_lod : enable
+
 varying vec4 v_Color; // The interpolated vertex color
 varying vec2 v_TexCoord; // The interpolated block texture coordinates
 varying vec2 v_LightCoord; // The interpolated light map texture coordinates
+varying vec2 v_TileMin; // The minimum texture coordinates of the tile repeated by merged quads
+varying vec2 v_TileSize; // The size of the tile repeated by merged quads, or zero if the quad isn't merged
 
 uniform sampler2D u_BlockTex; // The block texture sampler
 uniform sampler2D u_LightTex; // The light map texture sampler
@@ -32,9 +36,26 @@ float getFogFactor() {
 }
 #endif
 
+vec4 sampleBlockTexture() {
+    vec2 texCoord = v_TexCoord;
+
+    if (v_TileSize.x > 0.0) {
+        // Wrap the texture coordinates of merged quads back into the tile of the original face
+        texCoord = v_TileMin + mod(v_TexCoord - v_TileMin, v_TileSize);
+    }
+
+#ifdef GL_ARB_shader_texture_lod
+    // The wrapped coordinates jump at the edges of each tile, so use the gradients of the unwrapped coordinates to
+    // keep the same mipmap level across the whole quad
+    return texture2DGradARB(u_BlockTex, texCoord, dFdx(v_TexCoord), dFdy(v_TexCoord));
+#else
+    return texture2D(u_BlockTex, texCoord);
+#endif
+}
+
 void main() {
     // Block texture sample
-    vec4 sampleBlockTex = texture2D(u_BlockTex, v_TexCoord);
+    vec4 sampleBlockTex = sampleBlockTexture();
 
     // Light map texture sample
     vec4 sampleLightTex = texture2D(u_LightTex, v_LightCoord);
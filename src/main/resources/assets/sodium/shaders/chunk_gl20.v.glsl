@@ -3,10 +3,13 @@ attribute vec3 a_Pos; // The position of the vertex
 attribute vec4 a_Color; // The color of the vertex
 attribute vec2 a_TexCoord; // The block texture coordinate of the vertex
 attribute vec2 a_LightCoord; // The light map texture coordinate of the vertex
+attribute vec4 mc_Entity; // The block ID of the vertex, followed by the texture tile of merged quads
 
 varying vec4 v_Color;
 varying vec2 v_TexCoord;
 varying vec2 v_LightCoord;
+varying vec2 v_TileMin;
+varying vec2 v_TileSize;
 
 #ifdef USE_FOG
 varying float v_FragDistance;
@@ -41,5 +44,11 @@ void main() {
     v_Color = a_Color;
     v_TexCoord = a_TexCoord * u_TextureScale;
     v_LightCoord = a_LightCoord;
+
+    // Merged quads repeat the texture of a single face, which is stored as its minimum texture coordinates and its size
+    // packed into one component as (width * 4096 + height). The width is zero for all other quads, including those in
+    // the compact vertex format, where the missing component defaults to one.
+    v_TileMin = mc_Entity.yz * u_TextureScale;
+    v_TileSize = vec2(floor(mc_Entity.w / 4096.0), mod(mc_Entity.w, 4096.0)) * u_TextureScale;
 }
 
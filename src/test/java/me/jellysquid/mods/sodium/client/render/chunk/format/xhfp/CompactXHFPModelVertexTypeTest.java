@@ -0,0 +1,89 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.xhfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import me.jellysquid.mods.sodium.client.util.Norm10b;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes the same quads with both the extended and the compact format, and checks that every vertex decodes to the same
+ * attributes in both. Only the difference in precision of the packed normals and tangents is allowed.
+ */
+public class CompactXHFPModelVertexTypeTest {
+    // The largest difference allowed between a normal component decoded from either format, as the extended format
+    // truncates each component to 8 bits while the compact format rounds it to 10 bits
+    private static final float NORMAL_EPSILON = (1.0f / 127.0f) + (0.5f / 511.0f) + 1.0e-4f;
+
+    private static final ChunkVertexType EXTENDED = DefaultModelVertexFormats.MODEL_VERTEX_XHFP;
+    private static final ChunkVertexType COMPACT = DefaultModelVertexFormats.MODEL_VERTEX_COMPACT_XHFP;
+
+    @Test
+    public void verticesDecodeToSameAttributes() {
+        this.verifyRoundTrip(false);
+    }
+
+    @Test
+    public void verticesDecodeToSameAttributesWithUnsafeWriter() {
+        this.verifyRoundTrip(true);
+    }
+
+    private void verifyRoundTrip(boolean direct) {
+        ByteBuffer extended = TestQuads.write(EXTENDED, direct);
+        ByteBuffer compact = TestQuads.write(COMPACT, direct);
+
+        int extendedStride = EXTENDED.getBufferVertexFormat().getStride();
+        int compactStride = COMPACT.getBufferVertexFormat().getStride();
+
+        int vertexCount = extended.limit() / extendedStride;
+
+        assertEquals(TestQuads.QUAD_COUNT * 4, vertexCount, "Extended format wrote the wrong number of vertices");
+        assertEquals(vertexCount, compact.limit() / compactStride, "Formats wrote a different number of vertices");
+
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int a = vertex * extendedStride;
+            int b = vertex * compactStride;
+
+            // The position, color, texture coordinates, light and mid-texture coordinates share the same layout
+            for (int offset = 0; offset < 24; offset += 2) {
+                if (offset != 6) {
+                    assertEquals(extended.getShort(a + offset), compact.getShort(b + offset),
+                            "Vertex " + vertex + " differs at offset " + offset);
+                }
+            }
+
+            assertEquals((short) extended.getFloat(a + 32), compact.getShort(b + 6),
+                    "Vertex " + vertex + " has a different block ID");
+
+            int extendedNormal = extended.getInt(a + 28);
+            int compactNormal = compact.getInt(b + 28);
+
+            int extendedTangent = extended.getInt(a + 24);
+            int compactTangent = compact.getInt(b + 24);
+
+            for (int axis = 0; axis < 3; axis++) {
+                assertEquals(NormalHelper.getPackedNormalComponent(extendedNormal, axis), unpack(compactNormal, axis),
+                        NORMAL_EPSILON, "Vertex " + vertex + " has a different normal");
+                assertEquals(NormalHelper.getPackedNormalComponent(extendedTangent, axis), unpack(compactTangent, axis),
+                        NORMAL_EPSILON, "Vertex " + vertex + " has a different tangent");
+            }
+
+            assertEquals(Math.signum(NormalHelper.getPackedNormalComponent(extendedTangent, 3)), Norm10b.unpackW(compactTangent),
+                    "Vertex " + vertex + " has a different bitangent sign");
+        }
+    }
+
+    private static float unpack(int norm, int axis) {
+        switch (axis) {
+            case 0:
+                return Norm10b.unpackX(norm);
+            case 1:
+                return Norm10b.unpackY(norm);
+            default:
+                return Norm10b.unpackZ(norm);
+        }
+    }
+}
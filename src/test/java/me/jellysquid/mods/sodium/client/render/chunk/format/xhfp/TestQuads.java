@@ -0,0 +1,108 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.xhfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferBuilder;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.MaterialIdHolder;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import net.minecraft.util.math.Direction;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes a fixed set of quads through the chunk vertex formats, so that the vertex data written by different formats
+ * and writers can be compared. The quads are the faces of blocks scattered over a section, and some of them are
+ * tilted so that their normals and tangents don't line up with the axes. The faces can also be written one by one.
+ */
+class TestQuads {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // The corners of each block face in counter-clockwise order, indexed by direction
+    private static final float[][] FACE_CORNERS = new float[][] {
+            { 0, 0, 0,  1, 0, 0,  1, 0, 1,  0, 0, 1 }, // DOWN
+            { 0, 1, 1,  1, 1, 1,  1, 1, 0,  0, 1, 0 }, // UP
+            { 1, 1, 0,  1, 0, 0,  0, 0, 0,  0, 1, 0 }, // NORTH
+            { 0, 1, 1,  0, 0, 1,  1, 0, 1,  1, 1, 1 }, // SOUTH
+            { 0, 1, 0,  0, 0, 0,  0, 0, 1,  0, 1, 1 }, // WEST
+            { 1, 1, 1,  1, 0, 1,  1, 0, 0,  1, 1, 0 }  // EAST
+    };
+
+    private static final int BLOCK_COUNT = 512;
+
+    static final int FULL_LIGHT = 0x00F000F0;
+
+    static final int QUAD_COUNT = BLOCK_COUNT * 6;
+
+    /**
+     * Writes every quad with the given vertex type, giving each block its own block ID.
+     *
+     * @param direct True if the unsafe writer should be used instead of the NIO writer
+     * @return The vertex data which was written
+     */
+    static ByteBuffer write(ChunkVertexType vertexType, boolean direct) {
+        int vertexCount = QUAD_COUNT * 4;
+
+        VertexBufferBuilder builder = new VertexBufferBuilder(vertexType.getBufferVertexFormat(),
+                vertexCount * vertexType.getBufferVertexFormat().getStride());
+
+        MaterialIdHolder idHolder = new MaterialIdHolder();
+
+        ModelVertexSink sink = vertexType.createBufferWriter(builder, direct, idHolder);
+        sink.ensureCapacity(vertexCount);
+
+        for (int block = 0; block < BLOCK_COUNT; block++) {
+            int h = hash(block, 0, 0);
+
+            int x = h & 15;
+            int y = (h >>> 4) & 15;
+            int z = (h >>> 8) & 15;
+
+            idHolder.id = (short) ((h >>> 12) % 4096);
+
+            for (Direction dir : DIRECTIONS) {
+                // Tilt some of the faces by moving their corners along the direction of the face
+                float tilt = (block & 1) != 0 ? ((hash(block, dir.ordinal(), 1) & 7) / 16.0f) : 0.0f;
+
+                writeFace(sink, x, y, z, dir, 0.0f, 0.0f, 1.0f, FULL_LIGHT, tilt);
+            }
+        }
+
+        sink.flush();
+
+        ByteBuffer buffer = ByteBuffer.allocate(builder.getSize()).order(ByteOrder.nativeOrder());
+        builder.copyInto(buffer);
+        buffer.flip();
+
+        return buffer;
+    }
+
+    /**
+     * Writes the face of a block in the given direction, with its texture coordinates spanning a square tile.
+     * @param minU The texture coordinates of the corner of the tile
+     * @param tileSize The size of the tile in texture coordinates
+     * @param tilt How far the first corner of the face is moved along the direction of the face
+     */
+    static void writeFace(ModelVertexSink sink, float x, float y, float z, Direction dir, float minU, float minV,
+                          float tileSize, int light, float tilt) {
+        float[] corners = FACE_CORNERS[dir.ordinal()];
+
+        for (int i = 0; i < 4; i++) {
+            // Only the first corner is moved, which tilts the face around the diagonal between its neighbours
+            float offset = i == 0 ? tilt : 0.0f;
+
+            sink.writeQuad(x + corners[i * 3] + (dir.getOffsetX() * offset),
+                    y + corners[i * 3 + 1] + (dir.getOffsetY() * offset),
+                    z + corners[i * 3 + 2] + (dir.getOffsetZ() * offset),
+                    0xFFFFFFFF, minU + ((i >> 1) * tileSize), minV + ((((i + 1) >> 1) & 1) * tileSize), light);
+        }
+    }
+
+    static int hash(int x, int y, int z) {
+        int h = (x * 0x1F1F1F1F) ^ (y * 0x5BD1E995) ^ (z * 0x27D4EB2D);
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+
+        return h;
+    }
+}
@@ -0,0 +1,76 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.xhfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes the same quads with both the NIO and the unsafe writer of each extended format, and checks that they produce
+ * the same vertex data and that the mid-texture coordinate of each quad decodes to the mean of its texture coordinates.
+ */
+public class XHFPModelVertexBufferWriterUnsafeTest {
+    // The texture coordinates of the vertices are stored with less precision than the mid-texture coordinate
+    private static final float MID_TEX_COORD_EPSILON = 1.0f / 16384.0f;
+
+    @Test
+    public void extendedWritersProduceSameData() {
+        // The padding after the position isn't written by either writer
+        verifyUnsafeWriter(DefaultModelVertexFormats.MODEL_VERTEX_XHFP, true);
+    }
+
+    @Test
+    public void compactWritersProduceSameData() {
+        verifyUnsafeWriter(DefaultModelVertexFormats.MODEL_VERTEX_COMPACT_XHFP, false);
+    }
+
+    @Test
+    public void midTexCoordIsMeanOfTexCoords() {
+        for (ChunkVertexType vertexType : new ChunkVertexType[] { DefaultModelVertexFormats.MODEL_VERTEX_XHFP, DefaultModelVertexFormats.MODEL_VERTEX_COMPACT_XHFP }) {
+            verifyMidTexCoords(TestQuads.write(vertexType, false), vertexType.getBufferVertexFormat().getStride());
+            verifyMidTexCoords(TestQuads.write(vertexType, true), vertexType.getBufferVertexFormat().getStride());
+        }
+    }
+
+    private static void verifyMidTexCoords(ByteBuffer buffer, int stride) {
+        int quadStride = stride * 4;
+
+        for (int quad = 0; quad + quadStride <= buffer.limit(); quad += quadStride) {
+            float uSum = 0.0f;
+            float vSum = 0.0f;
+
+            for (int i = 0; i < 4; i++) {
+                uSum += (buffer.getShort(quad + (i * stride) + 12) & 0xFFFF) * XHFPModelVertexType.TEXTURE_SCALE;
+                vSum += (buffer.getShort(quad + (i * stride) + 14) & 0xFFFF) * XHFPModelVertexType.TEXTURE_SCALE;
+            }
+
+            for (int i = 0; i < 4; i++) {
+                int midTexCoord = buffer.getInt(quad + (i * stride) + 20);
+
+                // Both halves are unsigned and normalized, so neither may spill into the other
+                assertEquals(uSum * 0.25f, (midTexCoord & 0xFFFF) / 65536.0f, MID_TEX_COORD_EPSILON, "Mid u of quad " + (quad / quadStride));
+                assertEquals(vSum * 0.25f, (midTexCoord >>> 16) / 65536.0f, MID_TEX_COORD_EPSILON, "Mid v of quad " + (quad / quadStride));
+            }
+        }
+    }
+
+    private static void verifyUnsafeWriter(ChunkVertexType vertexType, boolean hasPadding) {
+        ByteBuffer nio = TestQuads.write(vertexType, false);
+        ByteBuffer unsafe = TestQuads.write(vertexType, true);
+
+        int stride = vertexType.getBufferVertexFormat().getStride();
+
+        assertEquals(nio.limit(), unsafe.limit(), "Writers wrote a different amount of vertex data");
+
+        for (int i = 0; i < nio.limit(); i++) {
+            if (hasPadding && (i % stride == 6 || i % stride == 7)) {
+                continue;
+            }
+
+            assertEquals(nio.get(i), unsafe.get(i), "Vertex " + (i / stride) + " differs at offset " + (i % stride));
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package me.jellysquid.mods.sodium.client.render.chunk.format.xhfp;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import net.minecraft.util.math.Direction;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks the merged meshes against the original meshes: every block face must be covered by exactly one quad, with the
+ * same color, light and texture at its center as the original face.
+ */
+public class XHFPQuadMergerTest {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private static final int STRIDE = 48;
+    private static final int QUAD_STRIDE = STRIDE * 4;
+
+    // The size of a block in the vertex positions, and of a texture tile in the texture coordinates
+    private static final int BLOCK_SIZE = 2048;
+    private static final int TILE_SIZE = 512;
+
+    private final XHFPQuadMerger merger = new XHFPQuadMerger();
+
+    @Test
+    public void mergesUniformPlaneIntoOneQuad() {
+        for (Direction dir : DIRECTIONS) {
+            VertexBufferBuilder builder = createBuilder();
+            ModelVertexSink sink = createSink(builder);
+
+            for (int a = 0; a < 16; a++) {
+                for (int b = 0; b < 16; b++) {
+                    writeFace(sink, dir, 7, a, b, 0, TestQuads.FULL_LIGHT);
+                }
+            }
+
+            sink.flush();
+
+            ModelQuadFacing facing = ModelQuadFacing.fromDirection(dir);
+            ByteBuffer input = copyOf(builder);
+
+            this.merger.merge(builder, facing);
+
+            assertEquals(QUAD_STRIDE, builder.getSize(), "A uniform plane should become a single quad (facing: " + facing + ")");
+            verifyCoverage(input, copyOf(builder), facing);
+        }
+    }
+
+    @Test
+    public void mergedQuadsCoverEveryFaceOnce() {
+        for (Direction dir : DIRECTIONS) {
+            VertexBufferBuilder builder = createBuilder();
+            ModelVertexSink sink = createSink(builder);
+
+            for (int plane = 0; plane < 16; plane++) {
+                for (int a = 0; a < 16; a++) {
+                    for (int b = 0; b < 16; b++) {
+                        int h = TestQuads.hash(plane, a, b);
+
+                        // Leave gaps in the planes, and vary the tile and light so that only some faces look the same
+                        if ((h & 3) == 0) {
+                            continue;
+                        }
+
+                        writeFace(sink, dir, plane, a, b, (h >>> 2) & 3, (h & 16) != 0 ? TestQuads.FULL_LIGHT : 0x00800080);
+                    }
+                }
+            }
+
+            sink.flush();
+
+            ModelQuadFacing facing = ModelQuadFacing.fromDirection(dir);
+            ByteBuffer input = copyOf(builder);
+
+            this.merger.merge(builder, facing);
+
+            assertTrue(builder.getSize() < input.limit(), "Some faces should have been merged (facing: " + facing + ")");
+            verifyCoverage(input, copyOf(builder), facing);
+        }
+    }
+
+    @Test
+    public void overlappedFacesAreNotMerged() {
+        VertexBufferBuilder builder = createBuilder();
+        ModelVertexSink sink = createSink(builder);
+
+        // Every face is covered twice, such as by the overlay of a grass block
+        for (int a = 0; a < 16; a++) {
+            for (int b = 0; b < 16; b++) {
+                writeFace(sink, Direction.UP, 0, a, b, 0, TestQuads.FULL_LIGHT);
+                writeFace(sink, Direction.UP, 0, a, b, 1, TestQuads.FULL_LIGHT);
+            }
+        }
+
+        sink.flush();
+
+        ByteBuffer input = copyOf(builder);
+
+        this.merger.merge(builder, ModelQuadFacing.UP);
+
+        assertEquals(input, copyOf(builder), "Overlapped faces must be kept as-is");
+    }
+
+    @Test
+    public void onlyIncludedQuadsAreMerged() {
+        VertexBufferBuilder builder = createBuilder();
+        ModelVertexSink sink = createSink(builder);
+
+        // The first half of the plane may be merged, while the second half must be kept as-is
+        for (int b = 0; b < 16; b++) {
+            for (int a = 0; a < 16; a++) {
+                writeFace(sink, Direction.UP, 0, a, b, 0, TestQuads.FULL_LIGHT);
+            }
+        }
+
+        sink.flush();
+
+        ByteBuffer input = copyOf(builder);
+        int half = input.limit() / 2;
+
+        this.merger.merge(builder, ModelQuadFacing.UP, IntArrayList.wrap(new int[] { 0, half }));
+
+        ByteBuffer output = copyOf(builder);
+
+        assertEquals(QUAD_STRIDE + half, output.limit(), "The included half should become a single quad");
+        verifyCoverage(input, output, ModelQuadFacing.UP);
+
+        // The excluded quads are written after the merged quads in their original order
+        input.position(half);
+        output.position(QUAD_STRIDE);
+
+        assertEquals(input, output, "Excluded quads must be kept as-is");
+    }
+
+    private static VertexBufferBuilder createBuilder() {
+        return new VertexBufferBuilder(DefaultModelVertexFormats.MODEL_VERTEX_XHFP.getBufferVertexFormat(), 16 * 16 * 16 * QUAD_STRIDE);
+    }
+
+    private static ModelVertexSink createSink(VertexBufferBuilder builder) {
+        ModelVertexSink sink = DefaultModelVertexFormats.MODEL_VERTEX_XHFP.createBufferWriter(builder, false);
+        sink.ensureCapacity(16 * 16 * 16 * 4);
+
+        return sink;
+    }
+
+    /**
+     * Writes the face of the given direction of a block, where the block is placed by the index of its plane along the
+     * axis of the direction and its position within that plane.
+     */
+    private static void writeFace(ModelVertexSink sink, Direction dir, int plane, int a, int b, int tile, int light) {
+        int x, y, z;
+
+        switch (dir.getAxis()) {
+            case X:
+                x = plane; y = b; z = a;
+                break;
+            case Y:
+                x = a; y = plane; z = b;
+                break;
+            default:
+                x = a; y = b; z = plane;
+                break;
+        }
+
+        float minU = (tile & 7) * TILE_SIZE;
+        float minV = (tile >> 3) * TILE_SIZE;
+
+        TestQuads.writeFace(sink, x, y, z, dir, minU / 32768.0f, minV / 32768.0f, TILE_SIZE / 32768.0f, light, 0.0f);
+    }
+
+    private static ByteBuffer copyOf(VertexBufferBuilder builder) {
+        ByteBuffer view = builder.getDirectBuffer().duplicate().order(ByteOrder.nativeOrder());
+        view.position(0);
+        view.limit(builder.getSize());
+
+        ByteBuffer copy = ByteBuffer.allocate(builder.getSize()).order(ByteOrder.nativeOrder());
+        copy.put(view);
+        copy.flip();
+
+        return copy;
+    }
+
+    /**
+     * Checks that every block face of the input is covered by exactly one quad of the output, with the same
+     * appearance at the center of the face.
+     */
+    private static void verifyCoverage(ByteBuffer input, ByteBuffer output, ModelQuadFacing facing) {
+        Map<Long, double[]> expected = new HashMap<>();
+
+        for (int base = 0; base < input.limit(); base += QUAD_STRIDE) {
+            Quad quad = new Quad(input, base, facing);
+
+            assertEquals(1, quad.width * quad.height, "The input must only contain single block faces");
+
+            expected.put(quad.getCell(0, 0), quad.sample(0, 0));
+        }
+
+        int covered = 0;
+
+        for (int base = 0; base < output.limit(); base += QUAD_STRIDE) {
+            Quad quad = new Quad(output, base, facing);
+
+            for (int a = 0; a < quad.width; a++) {
+                for (int b = 0; b < quad.height; b++) {
+                    double[] face = expected.remove(quad.getCell(a, b));
+
+                    assertNotNull(face, "Merged quad covers a face which is missing or already covered (facing: " + facing + ")");
+
+                    double[] sample = quad.sample(a, b);
+
+                    for (int i = 0; i < face.length; i++) {
+                        if (Math.abs(face[i] - sample[i]) > 1.0e-3D) {
+                            fail("Merged quad doesn't look the same as the original face (facing: " + facing + ")");
+                        }
+                    }
+
+                    covered++;
+                }
+            }
+        }
+
+        assertTrue(expected.isEmpty(), expected.size() + " faces are not covered by the merged quads (facing: " + facing + ")");
+        assertEquals(input.limit() / QUAD_STRIDE, covered, "Merged quads cover a different number of faces (facing: " + facing + ")");
+    }
+
+    /**
+     * A quad read back from vertex data, which must be an axis-aligned rectangle on the block grid.
+     */
+    private static class Quad {
+        private final int plane, minA, minB;
+        private final int width, height;
+
+        private final int color, light;
+
+        // The texture coordinates at the minimum corner, and how much they change for each block along each axis
+        private final double u, v, uA, vA, uB, vB;
+
+        // The texture tile which is repeated over a merged quad
+        private final double tileU, tileV, tileWidth, tileHeight;
+
+        private Quad(ByteBuffer buffer, int base, ModelQuadFacing facing) {
+            int planeAxis = facing == ModelQuadFacing.UP || facing == ModelQuadFacing.DOWN ? 1 :
+                    (facing == ModelQuadFacing.EAST || facing == ModelQuadFacing.WEST ? 0 : 2);
+            int axisA = planeAxis == 0 ? 2 : 0;
+            int axisB = planeAxis == 1 ? 2 : 1;
+
+            int minA = Integer.MAX_VALUE, minB = Integer.MAX_VALUE;
+            int maxA = Integer.MIN_VALUE, maxB = Integer.MIN_VALUE;
+
+            for (int i = 0; i < 4; i++) {
+                int vertex = base + (i * STRIDE);
+
+                minA = Math.min(minA, getCoordinate(buffer, vertex, axisA));
+                minB = Math.min(minB, getCoordinate(buffer, vertex, axisB));
+                maxA = Math.max(maxA, getCoordinate(buffer, vertex, axisA));
+                maxB = Math.max(maxB, getCoordinate(buffer, vertex, axisB));
+            }
+
+            this.plane = getCoordinate(buffer, base, planeAxis);
+            this.minA = minA / BLOCK_SIZE;
+            this.minB = minB / BLOCK_SIZE;
+            this.width = (maxA - minA) / BLOCK_SIZE;
+            this.height = (maxB - minB) / BLOCK_SIZE;
+
+            this.color = buffer.getInt(base + 8);
+            this.light = buffer.getInt(base + 16);
+
+            double[] u = new double[4];
+            double[] v = new double[4];
+
+            for (int i = 0; i < 4; i++) {
+                int vertex = base + (i * STRIDE);
+                int corner = (getCoordinate(buffer, vertex, axisA) != minA ? 1 : 0) | (getCoordinate(buffer, vertex, axisB) != minB ? 2 : 0);
+
+                u[corner] = buffer.getShort(vertex + 12) & 0xFFFF;
+                v[corner] = buffer.getShort(vertex + 14) & 0xFFFF;
+            }
+
+            this.u = u[0];
+            this.v = v[0];
+            this.uA = (u[1] - u[0]) / this.width;
+            this.vA = (v[1] - v[0]) / this.width;
+            this.uB = (u[2] - u[0]) / this.height;
+            this.vB = (v[2] - v[0]) / this.height;
+
+            float tileSize = buffer.getFloat(base + 44);
+
+            this.tileU = buffer.getFloat(base + 36);
+            this.tileV = buffer.getFloat(base + 40);
+            this.tileWidth = Math.floor(tileSize / 4096.0f);
+            this.tileHeight = tileSize % 4096.0f;
+        }
+
+        private long getCell(int a, int b) {
+            return ((long) this.plane << 32) | ((long) (this.minB + b) << 16) | (this.minA + a);
+        }
+
+        /**
+         * @return The color, light and texture coordinates at the center of the given block face within this quad, in
+         *         the same way as they are sampled by the chunk shader
+         */
+        private double[] sample(int a, int b) {
+            double u = this.u + (this.uA * (a + 0.5D)) + (this.uB * (b + 0.5D));
+            double v = this.v + (this.vA * (a + 0.5D)) + (this.vB * (b + 0.5D));
+
+            if (this.tileWidth > 0.0D) {
+                u = this.tileU + floorMod(u - this.tileU, this.tileWidth);
+                v = this.tileV + floorMod(v - this.tileV, this.tileHeight);
+            }
+
+            return new double[] { this.color, this.light, u, v };
+        }
+
+        private static double floorMod(double x, double y) {
+            return x - (y * Math.floor(x / y));
+        }
+
+        private static int getCoordinate(ByteBuffer buffer, int vertex, int axis) {
+            return buffer.getShort(vertex + (axis * 2)) & 0xFFFF;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package me.jellysquid.mods.sodium.client.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that packing and unpacking normals in the signed 10-10-10-2 format only loses as much precision as it must.
+ */
+public class Norm10bTest {
+    // Each component is rounded to the nearest of 511 steps in either direction
+    private static final float EPSILON = (0.5f / 511.0f) + 1.0e-6f;
+
+    @Test
+    public void componentsSurvivePacking() {
+        Random random = new Random(4096L);
+
+        for (int i = 0; i < 4096; i++) {
+            float x = (random.nextInt(1999) - 999) / 999.0f;
+            float y = (random.nextInt(1999) - 999) / 999.0f;
+            float z = (random.nextInt(1999) - 999) / 999.0f;
+            float w = (i % 3) - 1.0f;
+
+            int packed = Norm10b.pack(x, y, z, w);
+
+            assertEquals(x, Norm10b.unpackX(packed), EPSILON);
+            assertEquals(y, Norm10b.unpackY(packed), EPSILON);
+            assertEquals(z, Norm10b.unpackZ(packed), EPSILON);
+            assertEquals(w, Norm10b.unpackW(packed));
+        }
+    }
+
+    @Test
+    public void extremesSurvivePacking() {
+        int packed = Norm10b.pack(1.0f, -1.0f, 0.0f, -1.0f);
+
+        assertEquals(1.0f, Norm10b.unpackX(packed), 1.0e-6f);
+        assertEquals(-1.0f, Norm10b.unpackY(packed), 1.0e-6f);
+        assertEquals(0.0f, Norm10b.unpackZ(packed));
+        assertEquals(-1.0f, Norm10b.unpackW(packed));
+    }
+}